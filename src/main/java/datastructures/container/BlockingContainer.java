@@ -1,18 +1,23 @@
 package datastructures.container;
 
-import utils.FuncUtils;
 import utils.Pair;
 
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.*;
 
+/**
+ * A container whose reads of missing keys wait until the key is put. Waiting is done with one CompletableFuture per missing key in a ConcurrentHashMap,
+ * so a thread can either block in get(...), or chain on getAsync(...) without parking. The wrapped container must be thread-safe.
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
 public class BlockingContainer<K, V> implements Container<K, V> {
     private final Container<K, V> container;
-    private final Map<K, CountDownLatch> latchMap;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> pending;
 
     public BlockingContainer(Container<K, V> container) {
         this.container = container;
-        this.latchMap = new HashMap<>();
+        this.pending = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -21,19 +26,74 @@ public class BlockingContainer<K, V> implements Container<K, V> {
         if (value != null)
             return value;
 
-        CountDownLatch latch;
-        synchronized (latchMap) {
-            latch = latchMap.get(key);
+        try {
+            return pendingFuture(key).join();
+        }
+        catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * Waits at most the given time for the value of key. The key stays pending after a timeout until it is put or cancelled.
+     * @param key the key.
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of timeout.
+     * @return the value of key, or null if it was not put in time.
+     */
+    public V get(K key, long timeout, TimeUnit unit) {
+        V value = container.get(key);
+        if (value != null)
+            return value;
 
-            if (latch == null) {
-                latch = new CountDownLatch(1);
-                latchMap.put(key, latch);
-            }
+        try {
+            return pendingFuture(key).get(timeout, unit);
+        }
+        catch (TimeoutException e) {
+            return null;
         }
+        catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns a future that completes with the value of key once it is put. Cancelling or timing out the returned future does not affect other readers of key.
+     * @param key the key.
+     * @return the future of the value.
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        V value = container.get(key);
+        if (value != null)
+            return CompletableFuture.completedFuture(value);
+
+        return pendingFuture(key).copy();
+    }
+
+    /**
+     * Returns a future that completes with the value of key once it is put, or exceptionally with a TimeoutException after the given time.
+     * @param key the key.
+     * @param timeout the maximum time to wait.
+     * @param unit the unit of timeout.
+     * @return the future of the value.
+     */
+    public CompletableFuture<V> getAsync(K key, long timeout, TimeUnit unit) {
+        return getAsync(key).orTimeout(timeout, unit);
+    }
 
-        CountDownLatch finalLatch = latch;
-        FuncUtils.safeRun(finalLatch::await);
-        return container.get(key);
+    private CompletableFuture<V> pendingFuture(K key) {
+        CompletableFuture<V> future = pending.computeIfAbsent(key, __ -> new CompletableFuture<>());
+        // the value may have been put before the future was registered
+        V value = container.get(key);
+        if (value != null) {
+            pending.remove(key, future);
+            future.complete(value);
+        }
+        return future;
     }
 
     @Override
@@ -53,12 +113,46 @@ public class BlockingContainer<K, V> implements Container<K, V> {
 
     public void put(K key, V value) {
         container.put(key, value);
-        synchronized (latchMap) {
-            CountDownLatch latch = latchMap.remove(key);
-            if (latch != null) {
-                latch.countDown();
-            }
-        }
+        CompletableFuture<V> future = pending.remove(key);
+        if (future != null)
+            future.complete(value);
+    }
+
+    /**
+     * Fails all readers waiting for key with the given exception, e.g., when the task that should put key failed.
+     * @param key the key.
+     * @param t the cause.
+     */
+    public void fail(K key, Throwable t) {
+        CompletableFuture<V> future = pending.computeIfAbsent(key, __ -> new CompletableFuture<>());
+        future.completeExceptionally(t);
+    }
+
+    /**
+     * Puts value, or fails the readers waiting for key if t is not null. Fits as the callback of CompletableFuture.whenComplete(...) of the task computing the value.
+     * @param key the key.
+     * @param value the value, ignored if t is not null.
+     * @param t the failure of the task computing the value, or null.
+     */
+    public void complete(K key, V value, Throwable t) {
+        if (t != null)
+            fail(key, t);
+        else
+            put(key, value);
+    }
+
+    /**
+     * Cancels all readers waiting for key.
+     * @param key the key.
+     * @return true if readers were waiting for key, and false otherwise.
+     */
+    public boolean cancel(K key) {
+        CompletableFuture<V> future = pending.remove(key);
+        return future != null && future.cancel(false);
+    }
+
+    public int numPendingKeys() {
+        return pending.size();
     }
 
     @Override
@@ -68,14 +162,14 @@ public class BlockingContainer<K, V> implements Container<K, V> {
 
     @Override
     public boolean remove(K key) {
-        synchronized (latchMap) {
-            CountDownLatch latch = latchMap.remove(key);
-            if (latch != null) {
-                if(latch.getCount() > 0L)
-                    return false;
-            }
-            return container.remove(key);
+        CompletableFuture<V> future = pending.get(key);
+        if (future != null) {
+            if (!future.isDone())
+                return false;
+
+            pending.remove(key, future);
         }
+        return container.remove(key);
     }
 
     @Override
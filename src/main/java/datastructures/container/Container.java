@@ -11,6 +11,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
@@ -95,6 +96,129 @@ public interface Container<K, V> extends Streamable<Pair<K, V>> {
     }
 
 
+    /**
+     * Returns a thread-safe view of a container that reads optimistically. get(...), contains(...) and size() first run without locking and only retry under the read lock
+     * if a write happened concurrently, so reads neither allocate nor write to shared memory. Writes are exclusive.
+     * The container must tolerate reads that overlap a write, i.e., such reads may return wrong values or throw, but must terminate, as they do for MappedLongContainer.
+     * @param container the container.
+     * @return the thread-safe container.
+     * @param <K> the key type.
+     * @param <V> the value type.
+     */
+    static <K, V> Container<K, V> optimisticReadContainer(Container<K, V> container) {
+        return new Container<>() {
+            final StampedLock lock = new StampedLock();
+
+            @Override
+            public void put(K key, V value) {
+                long stamp = lock.writeLock();
+                try {
+                    container.put(key, value);
+                }
+                finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+
+            @Override
+            public boolean remove(K key) {
+                long stamp = lock.writeLock();
+                try {
+                    return container.remove(key);
+                }
+                finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+
+            @Override
+            public V get(K key) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0L) {
+                    try {
+                        V value = container.get(key);
+                        if (lock.validate(stamp))
+                            return value;
+                    }
+                    catch (RuntimeException ignored) {
+                        // the read overlapped a write
+                    }
+                }
+                stamp = lock.readLock();
+                try {
+                    return container.get(key);
+                }
+                finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            @Override
+            public boolean contains(K key) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0L) {
+                    try {
+                        boolean contained = container.contains(key);
+                        if (lock.validate(stamp))
+                            return contained;
+                    }
+                    catch (RuntimeException ignored) {
+                    }
+                }
+                stamp = lock.readLock();
+                try {
+                    return container.contains(key);
+                }
+                finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            @Override
+            public long size() {
+                long stamp = lock.tryOptimisticRead();
+                long size = container.size();
+                if (lock.validate(stamp))
+                    return size;
+
+                stamp = lock.readLock();
+                try {
+                    return container.size();
+                }
+                finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            @Override
+            public Collection<V> values() {
+                long stamp = lock.readLock();
+                try {
+                    return container.values();
+                }
+                finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            @Override
+            public Set<K> keys() {
+                long stamp = lock.readLock();
+                try {
+                    return container.keys();
+                }
+                finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            @Override
+            public boolean isPersistent() {
+                return container.isPersistent();
+            }
+        };
+    }
+
 
     static <K, V1, V2> Container<K, V1> transform(Container<K, V2> container, Coder<V1, V2> mapper) {
         return new Container<>() {
@@ -1,9 +1,11 @@
 package datastructures.container;
 
 import core.BaseSequence;
+import datastructures.container.impl.CachedDNAContainer;
 import datastructures.container.impl.RichDNAContainer;
 import datastructures.container.impl.SizedDNAContainer;
 import datastructures.container.translation.AddressManager;
+import datastructures.container.translation.RoutingManager;
 import utils.AddressedDNA;
 import utils.Coder;
 
@@ -29,6 +31,10 @@ public interface DNAContainer extends Container<Long, BaseSequence> {
 
     AddressedDNA[] getOligos(long id);
 
+    default AddressedDNA[][] getOligos(long[] ids) {
+        return Arrays.stream(ids).mapToObj(this::getOligos).toArray(AddressedDNA[][]::new);
+    }
+
 
     default <T> RichDNAContainer<T> toRichContainer(Coder<T, BaseSequence> coder) {
         return new RichDNAContainer<>(
@@ -36,10 +42,14 @@ public interface DNAContainer extends Container<Long, BaseSequence> {
                 coder
         );
     }
+    default CachedDNAContainer toCachedContainer(long maxCachedBases, int maxCachedOligoIds) {
+        return new CachedDNAContainer(this, maxCachedBases, maxCachedOligoIds);
+    }
+
     default List<AddressManager.ManagedAddress<Long, BaseSequence>> registerManagedIds(int n) {
         long[] ids = registerIds(n);
         var am = getAddressManager();
-        return LongStream.of(ids).mapToObj(am::routeAndTranslate).toList();
+        return am.routeAndTranslateAll(LongStream.of(ids).boxed().toList());
     }
 
     @Override
@@ -69,6 +79,11 @@ public interface DNAContainer extends Container<Long, BaseSequence> {
         return Arrays.stream(getOligos(id)).map(AddressedDNA::payload).toArray(BaseSequence[]::new);
     }
 
+    // the ids of all stored oligos in increasing order. The stream may contain ids that have no oligo stored
+    default LongStream oligoIds() {
+        return getAddressManager().addressRoutingManager().stream().mapToLong(RoutingManager.RoutedAddress::original).sorted();
+    }
+
     default Collection<AddressedDNA[]> getSegmentedOligos() {
         return keys().stream().map(this::getOligos).toList();
     }
@@ -108,6 +123,15 @@ public interface DNAContainer extends Container<Long, BaseSequence> {
         public abstract boolean remove(long key);
         public abstract AddressedDNA get(long key);
 
+        // returns the oligos of the given ids in their order, or null for missing ids
+        public AddressedDNA[] getAll(long[] keys) {
+            AddressedDNA[] result = new AddressedDNA[keys.length];
+            for (int i = 0; i < keys.length; i++)
+                result[i] = get(keys[i]);
+
+            return result;
+        }
+
 
         @Override
         public Set<AddressManager.ManagedAddress<Long, BaseSequence>> keys() {
@@ -0,0 +1,209 @@
+package datastructures.container.impl;
+
+import core.BaseSequence;
+import datastructures.container.DNAContainer;
+import datastructures.container.translation.AddressManager;
+import utils.AddressedDNA;
+import utils.LRUCache;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+/**
+ * A DNAContainer decorator that caches reads in two LRU tiers: the decoded sequences of ids, bounded by their total number of bases,
+ * and optionally the raw oligos of ids, bounded by the number of ids. Hot ids, e.g., tree roots, list heads and array headers, are then neither read from the store nor decoded again.
+ * Puts and removes through this container invalidate the cached id. Cached sequences are shared with the callers and must not be modified.
+ */
+public class CachedDNAContainer implements DNAContainer {
+
+    private final DNAContainer container;
+    private final LRUCache<Long, BaseSequence> values;
+    private final LRUCache<Long, AddressedDNA[]> oligos;
+
+    /**
+     * Creates a cache in front of a DNAContainer.
+     * @param container the container.
+     * @param maxCachedBases the maximum number of bases of the cached decoded sequences. 0 disables this tier.
+     * @param maxCachedOligoIds the maximum number of ids whose raw oligos are cached. 0 disables this tier.
+     */
+    public CachedDNAContainer(DNAContainer container, long maxCachedBases, int maxCachedOligoIds) {
+        this.container = container;
+        this.values = new LRUCache<>(maxCachedBases, BaseSequence::length);
+        this.oligos = new LRUCache<>(maxCachedOligoIds);
+    }
+
+    public DNAContainer getContainer() {
+        return container;
+    }
+
+    @Override
+    public BaseSequence get(Long id) {
+        BaseSequence seq = values.get(id);
+        if (seq != null)
+            return seq;
+
+        long version = values.version();
+        AddressedDNA[] idOligos = getOligos(id.longValue());
+        if (idOligos == null)
+            return null;
+
+        seq = container.assembleFromOligos(idOligos);
+        values.put(id, seq, version);
+        return seq;
+    }
+
+    @Override
+    public AddressedDNA[] getOligos(long id) {
+        AddressedDNA[] cached = oligos.get(id);
+        if (cached != null)
+            return cached;
+
+        long version = oligos.version();
+        AddressedDNA[] read = container.getOligos(id);
+        if (read != null)
+            oligos.put(id, read, version);
+
+        return read;
+    }
+
+    @Override
+    public AddressedDNA[][] getOligos(long[] ids) {
+        AddressedDNA[][] result = new AddressedDNA[ids.length][];
+        int[] missing = new int[ids.length];
+        int numMissing = 0;
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = oligos.get(ids[i]);
+            if (result[i] == null)
+                missing[numMissing++] = i;
+        }
+        if (numMissing == 0)
+            return result;
+
+        long version = oligos.version();
+        long[] missingIds = Arrays.stream(missing, 0, numMissing).mapToLong(i -> ids[i]).toArray();
+        AddressedDNA[][] read = container.getOligos(missingIds);
+        for (int i = 0; i < numMissing; i++) {
+            result[missing[i]] = read[i];
+            if (read[i] != null)
+                oligos.put(missingIds[i], read[i], version);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Long key, BaseSequence value) {
+        container.put(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public long put(BaseSequence seq) {
+        long id = container.registerId();
+        put(id, seq);
+        return id;
+    }
+
+    @Override
+    public boolean remove(Long key) {
+        boolean removed = container.remove(key);
+        invalidate(key);
+        return removed;
+    }
+
+    /**
+     * Drops the cached sequence and oligos of an id, e.g., after it was written without going through this container.
+     * @param id the id.
+     */
+    public void invalidate(long id) {
+        values.remove(id);
+        oligos.remove(id);
+    }
+
+    public void invalidateAll() {
+        values.clear();
+        oligos.clear();
+    }
+
+    public long valueHits() {
+        return values.hits();
+    }
+
+    public long valueMisses() {
+        return values.misses();
+    }
+
+    public double valueHitRate() {
+        return values.hitRate();
+    }
+
+    public long oligoHits() {
+        return oligos.hits();
+    }
+
+    public long oligoMisses() {
+        return oligos.misses();
+    }
+
+    public double oligoHitRate() {
+        return oligos.hitRate();
+    }
+
+    public long cachedBases() {
+        return values.weight();
+    }
+
+    public long cachedOligoIds() {
+        return oligos.weight();
+    }
+
+    @Override
+    public long size() {
+        return container.size();
+    }
+
+    @Override
+    public Set<Long> keys() {
+        return container.keys();
+    }
+
+    @Override
+    public LongStream oligoIds() {
+        return container.oligoIds();
+    }
+
+    @Override
+    public DNAStorage getOligoStore() {
+        return container.getOligoStore();
+    }
+
+    @Override
+    public BaseSequence assembleFromOligos(AddressedDNA[] oligos) {
+        return container.assembleFromOligos(oligos);
+    }
+
+    @Override
+    public AddressManager<Long, BaseSequence> getAddressManager() {
+        return container.getAddressManager();
+    }
+
+    @Override
+    public long registerId() {
+        return container.registerId();
+    }
+
+    @Override
+    public long[] registerIds(int n) {
+        return container.registerIds(n);
+    }
+
+    @Override
+    public int getAddressSize() {
+        return container.getAddressSize();
+    }
+
+    @Override
+    public int getPayloadSize() {
+        return container.getPayloadSize();
+    }
+}
@@ -7,32 +7,46 @@ import datastructures.container.translation.AddressManager;
 import utils.*;
 import utils.serializers.FixedSizeSerializer;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Stream;
 
 public class DNAStorageDisk extends DNAContainer.DNAStorage {
 
     private final Container<Long, Long> diskRouting;
     private final PersistentContainer<AddressedDNA> disk;
-    private final ReadWriteLock lock;
+    private final StampedLock lock;
 
 
     public DNAStorageDisk(AddressManager<Long, BaseSequence> am, Container<Long, Long> diskRouting, int payloadSize, String filePath) {
+        this(am, diskRouting, payloadSize, filePath, false);
+    }
+
+    /**
+     * Creates a DNAStorageDisk backed by the store file at filePath.
+     * @param am the address manager.
+     * @param diskRouting the container routing the addresses to the positions in the store file.
+     * @param payloadSize the payload size.
+     * @param filePath the path of the store file.
+     * @param reopen whether an existing store file is continued, e.g., when the state of the container and the address manager was loaded as well. Otherwise, the store file is truncated.
+     */
+    public DNAStorageDisk(AddressManager<Long, BaseSequence> am, Container<Long, Long> diskRouting, int payloadSize, String filePath, boolean reopen) {
         super(am);
         if (!am.addressTranslationManager().addressIsFixedSize())
             throw new RuntimeException("variable address size not supported by this DNAStorage");
 
-        this.lock = new ReentrantReadWriteLock();
+        this.lock = new StampedLock();
         int addrSize = am.addressTranslationManager().addressSize();
         int oligoSize = addrSize + payloadSize;
         this.diskRouting = diskRouting;
-        this.disk = new PersistentContainer<>(filePath, new FixedSizeSerializer<>() {
+        FixedSizeSerializer<AddressedDNA> serializer = new FixedSizeSerializer<>() {
             final int serializedSize = 2 + oligoSize / 4;
             @Override
             public int serializedSize() {
@@ -52,11 +66,31 @@ public class DNAStorageDisk extends DNAContainer.DNAStorage {
                 BaseSequence oligo = SeqBitStringConverter.transform(Packer.withoutBytePadding(new BitString(bs)));
                 return AddressedDNA.of(oligo, addrSize);
             }
-        });
+        };
+        if (!reopen)
+            FuncUtils.safeCall(() -> Files.deleteIfExists(Path.of(filePath)));
+        this.disk = Files.exists(Path.of(filePath)) ? PersistentContainer.load(filePath, serializer) : new PersistentContainer<>(filePath, serializer);
     }
 
     public DNAStorageDisk(AddressManager<Long, BaseSequence> am, int payloadSize, String filePath) {
-        this(am, new MapContainer<>(), payloadSize, filePath);
+        this(am, payloadSize, filePath, false);
+    }
+
+    /**
+     * Creates a DNAStorageDisk that routes the addresses with a MappedLongContainer stored next to the store file, at filePath.routing.
+     * @param am the address manager.
+     * @param payloadSize the payload size.
+     * @param filePath the path of the store file.
+     * @param reopen whether the existing store and routing files are continued. Otherwise, both files are truncated.
+     */
+    public DNAStorageDisk(AddressManager<Long, BaseSequence> am, int payloadSize, String filePath, boolean reopen) {
+        this(am, routingContainer(filePath + ".routing", reopen), payloadSize, filePath, reopen);
+    }
+
+    private static MappedLongContainer routingContainer(String routingPath, boolean reopen) {
+        if (!reopen)
+            FuncUtils.safeCall(() -> Files.deleteIfExists(Path.of(routingPath)));
+        return new MappedLongContainer(routingPath);
     }
 
     @Override
@@ -71,7 +105,7 @@ public class DNAStorageDisk extends DNAContainer.DNAStorage {
 
     @Override
     public AddressedDNA get(AddressManager.ManagedAddress<Long, BaseSequence> key) {
-        return get(key.routed());
+        return getRouted(key.routed());
     }
 
     @Override
@@ -125,21 +159,70 @@ public class DNAStorageDisk extends DNAContainer.DNAStorage {
 
     @Override
     public AddressedDNA get(long key) {
-        return readLocked(() -> disk.get(diskRouting.get(key)));
+        Long routed = am.addressRoutingManager().get(key).routed();
+        return routed == null ? null : getRouted(routed);
+    }
+
+    @Override
+    public AddressedDNA[] getAll(long[] keys) {
+        // the addresses are routed by the address manager, whose routing container is thread-safe, so only the disk routing is read under the lock of this storage
+        Long[] routedIds = Arrays.stream(keys).mapToObj(key -> am.addressRoutingManager().get(key).routed()).toArray(Long[]::new);
+        return readLocked(() -> {
+            long[] diskIds = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Long routed = routedIds[i];
+                Long diskId = routed == null ? null : diskRouting.get(routed);
+                diskIds[i] = diskId == null ? -1L : diskId;
+            }
+            return disk.getAll(diskIds).toArray(AddressedDNA[]::new);
+        });
+    }
+
+    // reads optimistically first, since oligos are only appended and a read overlapping a put is detected by the stamp
+    private AddressedDNA getRouted(long routed) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                AddressedDNA oligo = getRoutedUnlocked(routed);
+                if (lock.validate(stamp))
+                    return oligo;
+            }
+            catch (RuntimeException ignored) {
+                // the read overlapped a put
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return getRoutedUnlocked(routed);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private AddressedDNA getRoutedUnlocked(long routed) {
+        Long diskId = diskRouting.get(routed);
+        return diskId == null ? null : disk.get(diskId);
     }
 
     protected  <T> T readLocked(Callable<T> callable) {
-        lock.readLock().lock();
-        T result = FuncUtils.safeCall(callable);
-        lock.readLock().unlock();
-        return result;
+        long stamp = lock.readLock();
+        try {
+            return FuncUtils.safeCall(callable);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     protected <T> T writeLocked(Callable<T> callable) {
-        lock.writeLock().lock();
-        T result = FuncUtils.safeCall(callable);
-        lock.writeLock().unlock();
-        return result;
+        long stamp = lock.writeLock();
+        try {
+            return FuncUtils.safeCall(callable);
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     protected void writeLocked(Runnable runnable) {
@@ -0,0 +1,283 @@
+package datastructures.container.impl;
+
+import core.Base;
+import core.BaseSequence;
+import datastructures.container.Container;
+import datastructures.container.DNAContainer;
+import datastructures.container.translation.AddressManager;
+import utils.AddressedDNA;
+import utils.FuncUtils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A persistent DNAStorage that appends oligos to memory-mapped segment files of a fixed number of slots. The store grows by whole segments.
+ * Writers reserve slots lock-free and write the oligos 2 bits per base directly into the mapped segments.
+ * Each slot starts with a written flag and the routed key, so the routing is rebuilt from the segments when an existing directory is opened.
+ * Written oligos become durable with the next group force(), which runs periodically if a force interval is set, or when force() or close() is called.
+ */
+public final class DNAStorageMapped extends DNAContainer.DNAStorage implements AutoCloseable {
+
+    public static final int DEFAULT_SLOTS_PER_SEGMENT = 1 << 18;
+    public static final long DEFAULT_FORCE_INTERVAL_MILLIS = 1000L;
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final byte SLOT_WRITTEN = 1;
+    private static final int SLOT_HEADER_SIZE = 1 + Long.BYTES;
+    private static final Base[] BASES = Base.values();
+
+    private final Container<Long, Long> routing;
+    private final Path directory;
+    private final int addrSize;
+    private final int oligoSize;
+    private final int slotSize;
+    private final int slotsPerSegment;
+    private final AtomicLong nextSlot;
+    private final AtomicLong size;
+    private volatile Segment[] segments;
+    private int firstUnsealedSegment;
+    private final ScheduledExecutorService forcer;
+
+    public DNAStorageMapped(AddressManager<Long, BaseSequence> am, Container<Long, Long> routing, int payloadSize, String directory, int slotsPerSegment, long forceIntervalMillis) {
+        super(am);
+        if (!am.addressTranslationManager().addressIsFixedSize())
+            throw new RuntimeException("variable address size not supported by this DNAStorage");
+
+        this.routing = routing;
+        this.directory = Path.of(directory);
+        this.addrSize = am.addressTranslationManager().addressSize();
+        this.oligoSize = addrSize + payloadSize;
+        this.slotSize = SLOT_HEADER_SIZE + (oligoSize + 3) / 4;
+        this.slotsPerSegment = slotsPerSegment;
+        if ((long) slotSize * slotsPerSegment > Integer.MAX_VALUE)
+            throw new RuntimeException("segment too large: slotSize * slotsPerSegment > Integer.MAX_VALUE");
+
+        this.nextSlot = new AtomicLong(0L);
+        this.size = new AtomicLong(0L);
+        this.segments = new Segment[0];
+        this.firstUnsealedSegment = 0;
+        FuncUtils.safeCall(() -> Files.createDirectories(this.directory));
+        load();
+
+        if (forceIntervalMillis > 0L) {
+            this.forcer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "DNAStorageMapped-force");
+                t.setDaemon(true);
+                return t;
+            });
+            this.forcer.scheduleWithFixedDelay(this::force, forceIntervalMillis, forceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.forcer = null;
+        }
+    }
+
+    public DNAStorageMapped(AddressManager<Long, BaseSequence> am, int payloadSize, String directory) {
+        this(am, new MapContainer<>(), payloadSize, directory, DEFAULT_SLOTS_PER_SEGMENT, DEFAULT_FORCE_INTERVAL_MILLIS);
+    }
+
+    private void load() {
+        long lastWrittenSlot = -1L;
+        for (int i = 0; Files.exists(segmentPath(i)); i++) {
+            Segment segment = segment(i);
+            for (int s = 0; s < slotsPerSegment; s++) {
+                int offset = s * slotSize;
+                if (segment.buffer.get(offset) == SLOT_WRITTEN) {
+                    long slot = (long) i * slotsPerSegment + s;
+                    routing.put(segment.buffer.getLong(offset + 1), slot);
+                    segment.written.incrementAndGet();
+                    size.incrementAndGet();
+                    lastWrittenSlot = slot;
+                }
+            }
+        }
+        nextSlot.set(lastWrittenSlot + 1L);
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(SEGMENT_FILE_PREFIX + index);
+    }
+
+    private Segment segment(int index) {
+        Segment[] segs = segments;
+        if (index < segs.length)
+            return segs[index];
+
+        synchronized (this) {
+            segs = segments;
+            if (index < segs.length)
+                return segs[index];
+
+            Segment[] newSegments = Arrays.copyOf(segs, index + 1);
+            long segmentBytes = (long) slotSize * slotsPerSegment;
+            for (int i = segs.length; i <= index; i++) {
+                Path path = segmentPath(i);
+                try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    long fileSize = fc.size();
+                    if (fileSize != 0L && fileSize != segmentBytes)
+                        throw new RuntimeException("segment " + path + " has size " + fileSize + " != " + segmentBytes);
+
+                    newSegments[i] = new Segment(fc.map(FileChannel.MapMode.READ_WRITE, 0L, segmentBytes));
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            segments = newSegments;
+            return newSegments[index];
+        }
+    }
+
+    @Override
+    public void put(long key, AddressedDNA value) {
+        if (value.length() != oligoSize)
+            throw new RuntimeException("oligo cannot be stored. Reason: oligo.length() != " + oligoSize);
+
+        long slot = nextSlot.getAndIncrement();
+        Segment segment = segment((int) (slot / slotsPerSegment));
+        int offset = (int) (slot % slotsPerSegment) * slotSize;
+        byte[] packed = new byte[slotSize - SLOT_HEADER_SIZE];
+        int bitPos = pack(value.address(), packed, 0);
+        pack(value.payload(), packed, bitPos);
+
+        segment.buffer.putLong(offset + 1, key);
+        segment.buffer.put(offset + SLOT_HEADER_SIZE, packed);
+        segment.buffer.put(offset, SLOT_WRITTEN);
+        segment.dirty = true;
+        segment.written.incrementAndGet();
+        size.incrementAndGet();
+        routing.put(key, slot);
+    }
+
+    private static int pack(BaseSequence seq, byte[] packed, int bitPos) {
+        int len = seq.length();
+        for (int i = 0; i < len; i++, bitPos += 2)
+            packed[bitPos >>> 3] |= (byte) (seq.get(i).ordinal() << (6 - (bitPos & 7)));
+
+        return bitPos;
+    }
+
+    @Override
+    public AddressedDNA get(long key) {
+        Long routed = am.addressRoutingManager().get(key).routed();
+        return routed == null ? null : getRouted(routed);
+    }
+
+    private AddressedDNA getRouted(long routed) {
+        Long slot = routing.get(routed);
+        if (slot == null)
+            return null;
+
+        Segment segment = segment((int) (slot / slotsPerSegment));
+        int offset = (int) (slot % slotsPerSegment) * slotSize;
+        return read(segment, offset);
+    }
+
+    private AddressedDNA read(Segment segment, int offset) {
+        byte[] packed = new byte[slotSize - SLOT_HEADER_SIZE];
+        segment.buffer.get(offset + SLOT_HEADER_SIZE, packed);
+        List<Base> bases = new ArrayList<>(oligoSize);
+        for (int bitPos = 0; bases.size() < oligoSize; bitPos += 2)
+            bases.add(BASES[(packed[bitPos >>> 3] >>> (6 - (bitPos & 7))) & 0b11]);
+
+        return AddressedDNA.of(new BaseSequence(bases), addrSize);
+    }
+
+    /**
+     * Flushes the written oligos of all segments that changed since the last call to the disk.
+     */
+    public synchronized void force() {
+        Segment[] segs = segments;
+        boolean sealed = true;
+        for (int i = firstUnsealedSegment; i < segs.length; i++) {
+            Segment segment = segs[i];
+            if (segment.dirty) {
+                segment.dirty = false;
+                segment.buffer.force();
+            }
+            // a full segment without pending writes never changes again
+            if (sealed && segment.written.get() == slotsPerSegment && !segment.dirty)
+                firstUnsealedSegment = i + 1;
+            else
+                sealed = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (forcer != null)
+            forcer.shutdown();
+
+        force();
+    }
+
+    @Override
+    public void put(AddressManager.ManagedAddress<Long, BaseSequence> key, AddressedDNA value) {
+        put(key.routed(), value);
+    }
+
+    @Override
+    public boolean remove(AddressManager.ManagedAddress<Long, BaseSequence> key) {
+        return remove(key.routed());
+    }
+
+    @Override
+    public AddressedDNA get(AddressManager.ManagedAddress<Long, BaseSequence> key) {
+        return getRouted(key.routed());
+    }
+
+    @Override
+    public boolean remove(long key) {
+        throw new UnsupportedOperationException("cannot remove objects from DNAStorageMapped");
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public Collection<AddressedDNA> values() {
+        long numSlots = nextSlot.get();
+        List<AddressedDNA> values = new ArrayList<>();
+        for (long slot = 0L; slot < numSlots; slot++) {
+            Segment segment = segment((int) (slot / slotsPerSegment));
+            int offset = (int) (slot % slotsPerSegment) * slotSize;
+            if (segment.buffer.get(offset) == SLOT_WRITTEN)
+                values.add(read(segment, offset));
+        }
+        return values;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    public String getDirectory() {
+        return directory.toString();
+    }
+
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger written;
+        private volatile boolean dirty;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.written = new AtomicInteger(0);
+            this.dirty = false;
+        }
+    }
+}
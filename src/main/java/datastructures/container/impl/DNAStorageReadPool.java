@@ -0,0 +1,79 @@
+package datastructures.container.impl;
+
+import core.BaseSequence;
+import datastructures.container.DNAContainer;
+import datastructures.container.translation.AddressManager;
+import dnacoders.tree.encodednodestorage.ReadClusterIndex;
+import utils.AddressedDNA;
+
+import java.util.Collection;
+
+/**
+ * A read-only DNAStorage over a pool of raw sequenced reads. The oligo of an id is the consensus of the reads of the id's translated address.
+ * Use SizedDNAContainer.withOligoStore(...) to read the objects of a container back from its sequenced pool.
+ */
+public class DNAStorageReadPool extends DNAContainer.DNAStorage {
+
+    private final ReadClusterIndex index;
+
+    public DNAStorageReadPool(AddressManager<Long, BaseSequence> am, ReadClusterIndex index) {
+        super(am);
+        this.index = index;
+    }
+
+    public ReadClusterIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public AddressedDNA get(long key) {
+        var routed = am.addressRoutingManager().get(key);
+        return routed.routed() == null ? null : get(am.get(routed));
+    }
+
+    @Override
+    public AddressedDNA get(AddressManager.ManagedAddress<Long, BaseSequence> key) {
+        BaseSequence address = key.translated();
+        if (address == null)
+            return null;
+
+        BaseSequence oligo = index.consensus(address);
+        return oligo == null ? null : AddressedDNA.of(oligo, index.getAddressSize());
+    }
+
+    @Override
+    public void put(long key, AddressedDNA value) {
+        throw new UnsupportedOperationException("cannot put objects into DNAStorageReadPool");
+    }
+
+    @Override
+    public void put(AddressManager.ManagedAddress<Long, BaseSequence> key, AddressedDNA value) {
+        throw new UnsupportedOperationException("cannot put objects into DNAStorageReadPool");
+    }
+
+    @Override
+    public boolean remove(long key) {
+        throw new UnsupportedOperationException("cannot remove objects from DNAStorageReadPool");
+    }
+
+    @Override
+    public boolean remove(AddressManager.ManagedAddress<Long, BaseSequence> key) {
+        throw new UnsupportedOperationException("cannot remove objects from DNAStorageReadPool");
+    }
+
+    // the number of reads, since the number of distinct oligos is not known without clustering the whole pool
+    @Override
+    public long size() {
+        return index.numReads();
+    }
+
+    @Override
+    public Collection<AddressedDNA> values() {
+        throw new UnsupportedOperationException("cannot list the oligos of DNAStorageReadPool");
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+}
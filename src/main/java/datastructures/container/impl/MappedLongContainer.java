@@ -0,0 +1,297 @@
+package datastructures.container.impl;
+
+import datastructures.container.Container;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A persistent long to long map stored off-heap in a memory-mapped, linear probing hash table. Each entry costs 16 bytes in the file at a load factor of at most 0.5.
+ * Opening an existing file maps the table as it is, so reopening does not replay or rehash the entries.
+ * The key -1 is reserved. This container is not thread-safe; wrap it with Container.readWriteSynchronizedContainer(...) or Container.optimisticReadContainer(...) for concurrent access.
+ */
+public class MappedLongContainer implements Container<Long, Long>, AutoCloseable {
+
+    public static final long DEFAULT_INITIAL_CAPACITY = 1L << 16;
+
+    private static final long MAGIC = 0x4C4F4E474D4150L; // "LONGMAP"
+    private static final int HEADER_SIZE = 64;
+    private static final int CAPACITY_POS = 8;
+    private static final int SIZE_POS = 16;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1L;
+    private static final long EMPTY = 0L; // keys are stored complemented, so zero-filled slots are empty
+
+    private final Path path;
+    private MappedByteBuffer[] chunks;
+    private long capacity;
+    private long mask;
+    private long size;
+
+    public MappedLongContainer(String filePath) {
+        this(filePath, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public MappedLongContainer(String filePath, long initialCapacity) {
+        this.path = Path.of(filePath);
+        if (Files.exists(path) && fileSize(path) > 0L) {
+            this.chunks = map(path, HEADER_SIZE);
+            if (chunks[0].getLong(0) != MAGIC)
+                throw new RuntimeException("failed loading " + filePath + ": not a MappedLongContainer file");
+
+            this.capacity = chunks[0].getLong(CAPACITY_POS);
+            this.size = chunks[0].getLong(SIZE_POS);
+            if (fileSize(path) != fileSize(capacity))
+                throw new RuntimeException("failed loading " + filePath + ": file size does not match the capacity " + capacity);
+
+            this.chunks = map(path, fileSize(capacity));
+        }
+        else {
+            this.capacity = Long.highestOneBit(Math.max(2L, initialCapacity - 1L)) << 1;
+            this.size = 0L;
+            this.chunks = create(path, capacity);
+        }
+        this.mask = capacity - 1L;
+    }
+
+    private static long fileSize(Path path) {
+        try {
+            return Files.size(path);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long fileSize(long capacity) {
+        return HEADER_SIZE + capacity * ENTRY_SIZE;
+    }
+
+    private static MappedByteBuffer[] create(Path path, long capacity) {
+        MappedByteBuffer[] chunks = map(path, fileSize(capacity));
+        chunks[0].putLong(0, MAGIC);
+        chunks[0].putLong(CAPACITY_POS, capacity);
+        chunks[0].putLong(SIZE_POS, 0L);
+        return chunks;
+    }
+
+    private static MappedByteBuffer[] map(Path path, long bytes) {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long pos = (long) i << CHUNK_SHIFT;
+                chunks[i] = fc.map(FileChannel.MapMode.READ_WRITE, pos, Math.min(CHUNK_MASK + 1L, bytes - pos));
+            }
+            return chunks;
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    // entries never cross a chunk boundary since both the header and the chunks are multiples of the entry size
+    private static long storedKey(MappedByteBuffer[] chunks, long slot) {
+        long pos = HEADER_SIZE + slot * ENTRY_SIZE;
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    private static long value(MappedByteBuffer[] chunks, long slot) {
+        long pos = HEADER_SIZE + slot * ENTRY_SIZE + Long.BYTES;
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    private static void setEntry(MappedByteBuffer[] chunks, long slot, long storedKey, long value) {
+        long pos = HEADER_SIZE + slot * ENTRY_SIZE;
+        MappedByteBuffer chunk = chunks[(int) (pos >>> CHUNK_SHIFT)];
+        int offset = (int) (pos & CHUNK_MASK);
+        chunk.putLong(offset + Long.BYTES, value);
+        chunk.putLong(offset, storedKey);
+    }
+
+    // returns the slot of key or the empty slot where key would be inserted
+    private long find(long storedKey) {
+        long slot = hash(~storedKey) & mask;
+        long k;
+        while ((k = storedKey(chunks, slot)) != EMPTY && k != storedKey)
+            slot = (slot + 1L) & mask;
+
+        return slot;
+    }
+
+    private static long checkKey(long key) {
+        if (key == -1L)
+            throw new RuntimeException("the key -1 is reserved");
+
+        return ~key;
+    }
+
+    public void put(long key, long value) {
+        long storedKey = checkKey(key);
+        long slot = find(storedKey);
+        if (storedKey(chunks, slot) == EMPTY) {
+            if (2L * (size + 1L) > capacity) {
+                grow();
+                slot = find(storedKey);
+            }
+            setSize(size + 1L);
+        }
+        setEntry(chunks, slot, storedKey, value);
+    }
+
+    /**
+     * Returns the value of key, or absentValue if key is not stored.
+     * @param key the key.
+     * @param absentValue the value returned for missing keys.
+     * @return the value.
+     */
+    public long get(long key, long absentValue) {
+        long slot = find(checkKey(key));
+        return storedKey(chunks, slot) == EMPTY ? absentValue : value(chunks, slot);
+    }
+
+    public boolean remove(long key) {
+        long slot = find(checkKey(key));
+        if (storedKey(chunks, slot) == EMPTY)
+            return false;
+
+        // backward shift deletion keeps the probe sequences of the following entries intact
+        long next = slot;
+        while (true) {
+            next = (next + 1L) & mask;
+            long k = storedKey(chunks, next);
+            if (k == EMPTY)
+                break;
+
+            long home = hash(~k) & mask;
+            boolean stays = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (!stays) {
+                setEntry(chunks, slot, k, value(chunks, next));
+                slot = next;
+            }
+        }
+        setEntry(chunks, slot, EMPTY, 0L);
+        setSize(size - 1L);
+        return true;
+    }
+
+    private void setSize(long size) {
+        this.size = size;
+        chunks[0].putLong(SIZE_POS, size);
+    }
+
+    // rehashes into a new file that atomically replaces the current one
+    private void grow() {
+        Path resized = path.resolveSibling(path.getFileName() + ".resize");
+        try {
+            Files.deleteIfExists(resized);
+            long newCapacity = capacity << 1;
+            long newMask = newCapacity - 1L;
+            MappedByteBuffer[] newChunks = create(resized, newCapacity);
+            for (long slot = 0L; slot < capacity; slot++) {
+                long k = storedKey(chunks, slot);
+                if (k != EMPTY) {
+                    long newSlot = hash(~k) & newMask;
+                    while (storedKey(newChunks, newSlot) != EMPTY)
+                        newSlot = (newSlot + 1L) & newMask;
+
+                    setEntry(newChunks, newSlot, k, value(chunks, slot));
+                }
+            }
+            newChunks[0].putLong(SIZE_POS, size);
+            for (MappedByteBuffer chunk : newChunks)
+                chunk.force();
+
+            Files.move(resized, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.chunks = newChunks;
+            this.capacity = newCapacity;
+            this.mask = newMask;
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Flushes the table to the disk.
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : chunks)
+            chunk.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    @Override
+    public void put(Long key, Long value) {
+        put(key.longValue(), value.longValue());
+    }
+
+    @Override
+    public boolean remove(Long key) {
+        return remove(key.longValue());
+    }
+
+    @Override
+    public Long get(Long key) {
+        long slot = find(checkKey(key));
+        return storedKey(chunks, slot) == EMPTY ? null : value(chunks, slot);
+    }
+
+    @Override
+    public boolean contains(Long key) {
+        return storedKey(chunks, find(checkKey(key))) != EMPTY;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public Collection<Long> values() {
+        List<Long> values = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, size));
+        for (long slot = 0L; slot < capacity; slot++) {
+            if (storedKey(chunks, slot) != EMPTY)
+                values.add(value(chunks, slot));
+        }
+        return values;
+    }
+
+    @Override
+    public Set<Long> keys() {
+        Set<Long> keys = new HashSet<>();
+        for (long slot = 0L; slot < capacity; slot++) {
+            long k = storedKey(chunks, slot);
+            if (k != EMPTY)
+                keys.add(~k);
+        }
+        return keys;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    public String getFilePath() {
+        return path.toString();
+    }
+}
@@ -8,8 +8,15 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 
 public class PersistentContainer<V> extends Container.LinearLongContainer<V> {
+    public static final int MAX_COALESCED_READ = 1024;
+
     private long nextFreePos;
     private final FileChannel fc;
     private final FixedSizeSerializer<V> valueSerializer;
@@ -43,16 +50,16 @@ public class PersistentContainer<V> extends Container.LinearLongContainer<V> {
 
     @Override
     public void put(Long key, V value) {
-        if (key > size)
-            throw new RuntimeException("key > size");
+        if (key < 0L)
+            throw new RuntimeException("key < 0");
 
         long pos = filePositionFromKey(key);
         FuncUtils.safeRun(() -> fc.write(ByteBuffer.wrap(valueSerializer.serialize(value)), pos));
-        if (pos == nextFreePos) {
-            nextFreePos += serializedSize;
-            size++;
-            if (gen.getCurrentNextFreeId() == key)
-                gen.advance();
+        // keys beyond size() leave a zero-filled gap, e.g., routed ids skipped by a DNAAddrManager
+        if (pos >= nextFreePos) {
+            nextFreePos = pos + serializedSize;
+            size = key + 1L;
+            gen.sync(key);
         }
     }
 
@@ -80,6 +87,37 @@ public class PersistentContainer<V> extends Container.LinearLongContainer<V> {
         return FuncUtils.safeCall(() -> valueSerializer.deserialize(fc, pos));
     }
 
+    /**
+     * Returns the values of the given keys, or null for missing keys. Runs of adjacent keys are read with a single positional read.
+     * @param keys the keys.
+     * @return the values in the order of keys.
+     */
+    public List<V> getAll(long[] keys) {
+        List<V> result = new ArrayList<>(Collections.nCopies(keys.length, null));
+        int[] order = IntStream.range(0, keys.length).filter(i -> keys[i] >= 0L && keys[i] < size).boxed().sorted((i, j) -> Long.compare(keys[i], keys[j])).mapToInt(Integer::intValue).toArray();
+        int start = 0;
+        while (start < order.length) {
+            long firstKey = keys[order[start]];
+            int end = start + 1;
+            while (end < order.length && keys[order[end]] - firstKey < MAX_COALESCED_READ && keys[order[end]] - keys[order[end - 1]] <= 1L)
+                end++;
+
+            int numValues = (int) (keys[order[end - 1]] - firstKey + 1L);
+            ByteBuffer buffer = ByteBuffer.allocate(numValues * (int) serializedSize);
+            long pos = filePositionFromKey(firstKey);
+            FuncUtils.safeRun(() -> {
+                while (buffer.hasRemaining() && fc.read(buffer, pos + buffer.position()) >= 0);
+            });
+            byte[] bytes = buffer.array();
+            for (int i = start; i < end; i++) {
+                int offset = (int) ((keys[order[i]] - firstKey) * serializedSize);
+                result.set(order[i], valueSerializer.deserialize(Arrays.copyOfRange(bytes, offset, offset + (int) serializedSize)));
+            }
+            start = end;
+        }
+        return result;
+    }
+
     protected long filePositionFromKey(Long key) {
         return key * serializedSize;
     }
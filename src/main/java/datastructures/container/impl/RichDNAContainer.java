@@ -12,6 +12,7 @@ import utils.Coder;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.LongStream;
 
 public class RichDNAContainer<T> implements DNAContainer {
 
@@ -51,6 +52,11 @@ public class RichDNAContainer<T> implements DNAContainer {
         return container.get(key);
     }
 
+    @Override
+    public LongStream oligoIds() {
+        return container.oligoIds();
+    }
+
     @Override
     public DNAStorage getOligoStore() {
         return container.getOligoStore();
@@ -96,6 +102,11 @@ public class RichDNAContainer<T> implements DNAContainer {
         return container.getOligos(id);
     }
 
+    @Override
+    public AddressedDNA[][] getOligos(long[] ids) {
+        return container.getOligos(ids);
+    }
+
     public IDNAFedReference.DNAFedReference<T, DNAPointer.ContainerDNAPointer> putReference(T reference) {
         return putReference(container.registerId(), reference);
     }
@@ -19,16 +19,24 @@ import utils.FuncUtils;
 import utils.lsh.LSH;
 import utils.lsh.minhash.MinHashLSH;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequence> implements DNAContainer {
 
+    public static final String STATE_FILE_NAME = "container.state";
+
     private final SegmentationCoder segmentationCoder;
     private final LSH<BaseSequence> oligLSH;
     private final int payloadSize;
@@ -38,6 +46,7 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
     private final AddressManager<Long, BaseSequence> addressManager;
     private final int payloadOffset;
     private final boolean isParallel;
+    private final Path directory;
 
     private SizedDNAContainer(
             boolean isParallel,
@@ -47,7 +56,8 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
             int payloadSize,
             DNAPacker.LengthBase sizedHeaderLengthBase,
             DNAStorage store,
-            AddressManager<Long, BaseSequence> addressManager) {
+            AddressManager<Long, BaseSequence> addressManager,
+            Path directory) {
 
         super();
         this.segmentationCoder = segmentationCoder;
@@ -59,61 +69,298 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
         this.payloadOffset = sizedHeaderLengthBase.totalSize() + DNAPacker.LengthBase.INT_64.totalSize();
         this.payloadDistanceCoder = payloadDistanceCoder;
         this.isParallel = isParallel;
+        this.directory = directory;
+        if (directory != null && Files.exists(directory.resolve(STATE_FILE_NAME)))
+            loadState();
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Returns a container that shares the coders and the address manager of this container, but reads and writes its oligos from and to the given store,
+     * e.g., a DNAStorageReadPool over the sequenced reads of this container's oligos.
+     * @param store the store.
+     * @return the container over store.
+     */
+    public SizedDNAContainer withOligoStore(DNAStorage store) {
+        SizedDNAContainer container = new SizedDNAContainer(isParallel, segmentationCoder, payloadDistanceCoder, oligLSH, payloadSize, sizedHeaderLengthBase, store, addressManager, null);
+        container.gen.sync(gen.getCurrentNextFreeId() - 1L);
+        return container;
+    }
+
     @Override
     public void put(Long id, BaseSequence seq) {
+        checkRegistered(id);
+        PendingPut p = new PendingPut(id, seq);
+        reserve(p);
+        segment(p);
+        p.oligos = new AddressedDNA[p.segments.length];
+        FuncUtils.stream(IntStream.range(0, p.segments.length), isParallel).forEach(i -> {
+            p.oligos[i] = payloadDistanceCoder.encode(new AddressedDNA(p.managedIds.get(i).translated(), p.segments[i]));
+            store.put(p.managedIds.get(i), p.oligos[i]);
+        });
+    }
+
+    /**
+     * Puts the given registered ids and sequences with the default PutPipeline.
+     * @param seqs the sequences by id.
+     */
+    public void putAll(Map<Long, BaseSequence> seqs) {
+        putAll(seqs, PutPipeline.defaults());
+    }
+
+    /**
+     * Puts the given registered ids and sequences with a staged pipeline. Each stage runs on its own threads and passes the objects to the next stage through a bounded queue:
+     * reserving the addresses, segmenting, distance coding the oligos and writing them to the store.
+     * @param seqs the sequences by id.
+     * @param pipeline the threads per stage and the queue capacity.
+     */
+    public void putAll(Map<Long, BaseSequence> seqs, PutPipeline pipeline) {
+        seqs.keySet().forEach(this::checkRegistered);
+        runPutPipeline(seqs.entrySet().stream().map(e -> new PendingPut(e.getKey(), e.getValue())).iterator(), pipeline);
+    }
+
+    /**
+     * Registers an id for each sequence and puts the sequences with the default PutPipeline.
+     * @param seqs the sequences.
+     * @return the ids in the order of seqs.
+     */
+    public long[] putAll(Stream<BaseSequence> seqs) {
+        return putAll(seqs, PutPipeline.defaults());
+    }
+
+    /**
+     * Registers an id for each sequence and puts the sequences with a staged pipeline. The stream is consumed lazily, so it may be larger than the memory.
+     * @param seqs the sequences.
+     * @param pipeline the threads per stage and the queue capacity.
+     * @return the ids in the order of seqs.
+     */
+    public long[] putAll(Stream<BaseSequence> seqs, PutPipeline pipeline) {
+        LongStream.Builder ids = LongStream.builder();
+        runPutPipeline(seqs.map(seq -> {
+            long id = registerId();
+            ids.add(id);
+            return new PendingPut(id, seq);
+        }).iterator(), pipeline);
+        return ids.build().toArray();
+    }
+
+    private void checkRegistered(long id) {
         if (id >= gen.getCurrentNextFreeId())
             throw new RuntimeException("id=" + id + " not registered");
+    }
 
-        int numSegmentsMinusOne = segmentationCoder.numSegments(seq.length() + sizedHeaderLengthBase.totalSize() + DNAPacker.LengthBase.INT_64.totalSize()) - 1;
-        if (DNAPacker.pack(numSegmentsMinusOne, sizedHeaderLengthBase).length() > sizedHeaderLengthBase.totalSize())
+    // routes and translates the root id together with newly registered ids for the remaining segments
+    private void reserve(PendingPut p) {
+        p.numSegmentsMinusOne = segmentationCoder.numSegments(p.seq.length() + sizedHeaderLengthBase.totalSize() + DNAPacker.LengthBase.INT_64.totalSize()) - 1;
+        if (DNAPacker.pack(p.numSegmentsMinusOne, sizedHeaderLengthBase).length() > sizedHeaderLengthBase.totalSize())
             throw new RuntimeException("payload too large for the specified sizedHeaderLengthBase. Consider using a larger sizedHeaderLengthBase (Packer.Type)!");
 
-        List<AddressManager.ManagedAddress<Long, BaseSequence>> managedIds = registerManagedIds(numSegmentsMinusOne);
+        List<Long> ids = new ArrayList<>(p.numSegmentsMinusOne + 1);
+        ids.add(p.id);
+        for (long segmentId : registerIds(p.numSegmentsMinusOne))
+            ids.add(segmentId);
+
+        p.managedIds = addressManager.routeAndTranslateAll(ids);
+    }
 
+    private void segment(PendingPut p) {
         BaseSequence sizedPayload = BaseSequence.join(
-                DNAPacker.pack(managedIds.isEmpty() ? -1L : managedIds.get(0).original(), DNAPacker.LengthBase.INT_64),
-                DNAPacker.pack(numSegmentsMinusOne, sizedHeaderLengthBase),
-                seq);
-
-        var segments = segmentationCoder.encode(sizedPayload);
-        var addressedSegments = new AddressedDNA[segments.length];
-        var rootId = addressManager.routeAndTranslate(id);
-        addressedSegments[0] = payloadDistanceCoder.encode(new AddressedDNA(rootId.translated(), segments[0]));
-        store.put(rootId, addressedSegments[0]);
-
-        FuncUtils.stream(IntStream.range(0, managedIds.size()), isParallel).forEach(i -> {
-            addressedSegments[i + 1] = payloadDistanceCoder.encode(new AddressedDNA(managedIds.get(i).translated(), segments[i + 1]));
-            store.put(managedIds.get(i), addressedSegments[i + 1]);
+                DNAPacker.pack(p.numSegmentsMinusOne == 0 ? -1L : p.managedIds.get(1).original(), DNAPacker.LengthBase.INT_64),
+                DNAPacker.pack(p.numSegmentsMinusOne, sizedHeaderLengthBase),
+                p.seq);
+
+        p.segments = segmentationCoder.encode(sizedPayload);
+    }
+
+    private void encode(PendingPut p) {
+        p.oligos = new AddressedDNA[p.segments.length];
+        for (int i = 0; i < p.segments.length; i++)
+            p.oligos[i] = payloadDistanceCoder.encode(new AddressedDNA(p.managedIds.get(i).translated(), p.segments[i]));
+    }
+
+    private void store(PendingPut p) {
+        for (int i = 0; i < p.oligos.length; i++)
+            store.put(p.managedIds.get(i), p.oligos[i]);
+    }
+
+    private void runPutPipeline(Iterator<PendingPut> puts, PutPipeline pipeline) {
+        List<Consumer<PendingPut>> stages = List.of(this::reserve, this::segment, this::encode, this::store);
+        int[] threads = {pipeline.reserveThreads(), pipeline.segmentThreads(), pipeline.encodeThreads(), pipeline.storeThreads()};
+        List<BlockingQueue<PendingPut>> queues = IntStream.range(0, stages.size()).mapToObj(__ -> (BlockingQueue<PendingPut>) new ArrayBlockingQueue<PendingPut>(pipeline.queueCapacity())).toList();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(IntStream.of(threads).sum());
+        for (int s = 0; s < stages.size(); s++) {
+            Consumer<PendingPut> stage = stages.get(s);
+            BlockingQueue<PendingPut> in = queues.get(s);
+            BlockingQueue<PendingPut> out = s + 1 < queues.size() ? queues.get(s + 1) : null;
+            AtomicInteger runningWorkers = new AtomicInteger(threads[s]);
+            for (int t = 0; t < threads[s]; t++) {
+                pool.execute(() -> {
+                    try {
+                        PendingPut p;
+                        while ((p = in.take()) != PendingPut.END) {
+                            // after a failure, the objects are only drained, since interrupting the workers could close the channels of the store
+                            if (failure.get() == null) {
+                                try {
+                                    stage.accept(p);
+                                }
+                                catch (Throwable e) {
+                                    failure.compareAndSet(null, e);
+                                }
+                            }
+                            if (out != null)
+                                out.put(p);
+                        }
+                        // hands the end marker to the other workers of this stage, and the last worker passes it on to the next stage
+                        in.put(PendingPut.END);
+                        if (runningWorkers.decrementAndGet() == 0 && out != null)
+                            out.put(PendingPut.END);
+                    }
+                    catch (InterruptedException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            }
+        }
+
+        try {
+            BlockingQueue<PendingPut> first = queues.get(0);
+            try {
+                while (puts.hasNext() && failure.get() == null)
+                    first.put(puts.next());
+            }
+            catch (Throwable e) {
+                // e.g., thrown by the caller's iterator. The end marker is still passed on, so the workers stop and the pool can be closed
+                failure.compareAndSet(null, e);
+            }
+            finally {
+                first.put(PendingPut.END);
+            }
+        }
+        catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            pool.shutdownNow();
+        }
+        finally {
+            pool.close();
+        }
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException re)
+            throw re;
+        if (t instanceof Error error)
+            throw error;
+        if (t != null)
+            throw new RuntimeException(t);
+    }
+
+    /**
+     * Writes the id generator and a snapshot of the oligo LSH to the persistent directory, and saves the state of the address manager if it is a DNAAddrManager.
+     * A container built later with the same directory continues from this state. Must not run concurrently to put(...).
+     */
+    public void saveState() {
+        if (directory == null)
+            throw new RuntimeException("no persistent directory set for this container");
+
+        if (store instanceof DNAStorageMapped mapped)
+            mapped.force();
+        if (addressManager instanceof DNAAddrManager dnaAddrManager)
+            dnaAddrManager.saveState();
+
+        FuncUtils.writeFileAtomically(directory.resolve(STATE_FILE_NAME), out -> {
+            out.writeInt(payloadSize);
+            out.writeLong(gen.getCurrentNextFreeId());
+            oligoMinHashLSH().writeSnapshot(out, MinHashLSH.SEQ_SNAPSHOT_CODER);
         });
     }
 
+    private void loadState() {
+        FuncUtils.readFile(directory.resolve(STATE_FILE_NAME), in -> {
+            if (in.readInt() != payloadSize)
+                throw new RuntimeException("the saved state does not match the payload size " + payloadSize);
+
+            gen.sync(in.readLong() - 1L);
+            oligoMinHashLSH().readSnapshot(in, MinHashLSH.SEQ_SNAPSHOT_CODER);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private MinHashLSH<BaseSequence, ?> oligoMinHashLSH() {
+        if (!(oligLSH instanceof MinHashLSH<?, ?> minHashLSH))
+            throw new RuntimeException("saving the state requires a MinHashLSH as oligo LSH");
+
+        return (MinHashLSH<BaseSequence, ?>) minHashLSH;
+    }
+
     @Override
     public AddressedDNA[] getOligos(long id) {
         AddressedDNA root = store.get(id);
         if (root == null)
             return null;
 
-        var payload = payloadDistanceCoder.decode(root).payload();
-        BaseSequence header = segmentationCoder.decode(new BaseSequence[] {payload});
-
-        long nextId = DNAPacker.LengthBase.INT_64.unpackSingle(header).longValue();
-        int numSegments = sizedHeaderLengthBase.unpackSingle(header.window(DNAPacker.LengthBase.INT_64.totalSize())).intValue() + 1;
-        AddressedDNA[] oligos = new AddressedDNA[numSegments];
+        BaseSequence header = decodeRootHeader(root);
+        long nextId = nextIdOfHeader(header);
+        AddressedDNA[] oligos = new AddressedDNA[numSegmentsOfHeader(header)];
         oligos[0] = root;
-
         int c = 1;
-        while(c < numSegments)
+        while(c < oligos.length)
             oligos[c++] = store.get(nextId++);
 
         return oligos;
     }
 
+    /**
+     * Returns the oligos of the given ids with two batched reads from the store: one for the roots and one for the remaining segments of all ids.
+     * @param ids the ids.
+     * @return the oligos of each id, or null for missing ids.
+     */
+    @Override
+    public AddressedDNA[][] getOligos(long[] ids) {
+        AddressedDNA[] roots = store.getAll(ids);
+        AddressedDNA[][] result = new AddressedDNA[ids.length][];
+        long[] nextIds = new long[ids.length];
+        int numSegments = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (roots[i] != null) {
+                BaseSequence header = decodeRootHeader(roots[i]);
+                nextIds[i] = nextIdOfHeader(header);
+                result[i] = new AddressedDNA[numSegmentsOfHeader(header)];
+                result[i][0] = roots[i];
+                numSegments += result[i].length - 1;
+            }
+        }
+
+        long[] segmentIds = new long[numSegments];
+        int c = 0;
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = 1; result[i] != null && j < result[i].length; j++)
+                segmentIds[c++] = nextIds[i] + j - 1;
+        }
+
+        AddressedDNA[] segments = store.getAll(segmentIds);
+        c = 0;
+        for (AddressedDNA[] oligos : result) {
+            for (int j = 1; oligos != null && j < oligos.length; j++)
+                oligos[j] = segments[c++];
+        }
+        return result;
+    }
+
+    private BaseSequence decodeRootHeader(AddressedDNA root) {
+        var payload = payloadDistanceCoder.decode(root).payload();
+        return segmentationCoder.decode(new BaseSequence[] {payload});
+    }
+
+    private long nextIdOfHeader(BaseSequence header) {
+        return DNAPacker.LengthBase.INT_64.unpackSingle(header).longValue();
+    }
+
+    private int numSegmentsOfHeader(BaseSequence header) {
+        return sizedHeaderLengthBase.unpackSingle(header.window(DNAPacker.LengthBase.INT_64.totalSize())).intValue() + 1;
+    }
+
     @Override
     public BaseSequence get(Long id) {
         var oligos = getOligos(id);
@@ -130,6 +377,12 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
         return oligos == null? null : assembleSizedFromOligos(oligos);
     }
 
+    // roots and segments of all objects have ids below the next free id
+    @Override
+    public LongStream oligoIds() {
+        return LongStream.range(gen.getStart(), gen.getCurrentNextFreeId());
+    }
+
     @Override
     public DNAStorage getOligoStore() {
         return store;
@@ -167,6 +420,40 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
         return addressManager;
     }
 
+    /**
+     * The number of threads of each stage of putAll(...) and the capacity of the queues between the stages.
+     */
+    public record PutPipeline(int reserveThreads, int segmentThreads, int encodeThreads, int storeThreads, int queueCapacity) {
+        public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+        public PutPipeline {
+            if (reserveThreads <= 0 || segmentThreads <= 0 || encodeThreads <= 0 || storeThreads <= 0 || queueCapacity <= 0)
+                throw new RuntimeException("the threads per stage and the queue capacity must be > 0");
+        }
+
+        // distance coding and reserving addresses dominate, so they get most threads
+        public static PutPipeline defaults() {
+            int cpus = Runtime.getRuntime().availableProcessors();
+            return new PutPipeline(cpus, Math.max(1, cpus / 4), cpus, Math.max(1, cpus / 4), DEFAULT_QUEUE_CAPACITY);
+        }
+    }
+
+    private static final class PendingPut {
+        private static final PendingPut END = new PendingPut(-1L, null);
+
+        private final long id;
+        private final BaseSequence seq;
+        private int numSegmentsMinusOne;
+        private List<AddressManager.ManagedAddress<Long, BaseSequence>> managedIds;
+        private BaseSequence[] segments;
+        private AddressedDNA[] oligos;
+
+        private PendingPut(long id, BaseSequence seq) {
+            this.id = id;
+            this.seq = seq;
+        }
+    }
+
     public static class Builder {
         public static final int DEFAULT_PAYLOAD_SIZE = 150;
         public static final int DEFAULT_PAYLOAD_ECC_SIZE = 0;
@@ -185,8 +472,15 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
         public static final DNAPacker.LengthBase DEFAULT_SIZED_HEADER = DNAPacker.LengthBase.SHORT;
         public static final DNARule DEFAULT_DNA_RULES = BasicDNARules.INSTANCE;
 
+        public static final long DEFAULT_CACHE_MAX_BASES = 1L << 22;
+        public static final int DEFAULT_CACHE_MAX_OLIGO_IDS = 0;
+
+        public static final String DEFAULT_STORE_FILE_NAME = "dnacontainer.store";
+        public static final String DEFAULT_SEGMENTS_DIRECTORY_NAME = "dnacontainer.segments";
+
         public static final Function<AddressManager<Long, BaseSequence>, DNAStorage> DEFAULT_STORE_NOT_PERSISTENT = DNAStorageMap::new;
-        public static final BiFunction<AddressManager<Long, BaseSequence>, Integer, DNAStorage> DEFAULT_STORE_PERSISTENT = (am, payloadSize) -> new DNAStorageDisk(am, payloadSize, "dnacontainer.store");
+        public static final BiFunction<AddressManager<Long, BaseSequence>, Integer, DNAStorage> DEFAULT_STORE_PERSISTENT = (am, payloadSize) -> new DNAStorageDisk(am, payloadSize, DEFAULT_STORE_FILE_NAME);
+        public static final BiFunction<AddressManager<Long, BaseSequence>, Integer, DNAStorage> DEFAULT_STORE_PERSISTENT_MAPPED = (am, payloadSize) -> new DNAStorageMapped(am, payloadSize, DEFAULT_SEGMENTS_DIRECTORY_NAME);
 
         public static final Supplier<DNAAddrManager> DEFAULT_ADDRESS_TRANSLATION_MANAGER_SUPP =
                 () -> DNAAddrManager
@@ -217,6 +511,9 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
         private DNAStorage store;
         private AddressManager<Long, BaseSequence> addressManager;
         private LSH<BaseSequence> oligoLSH;
+        private Path directory;
+        private Long cacheMaxBases;
+        private Integer cacheMaxOligoIds;
 
         public <T> RichDNAContainer<T> buildToRichContainer(Coder<T, BaseSequence> coder) {
             return build().toRichContainer(coder);
@@ -226,11 +523,24 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
             return build().toRichContainer(Coder.identity());
         }
 
+        /**
+         * Builds the container and decorates it with a read cache configured by setReadCache(...).
+         * @return the cached container.
+         */
+        public CachedDNAContainer buildCached() {
+            SizedDNAContainer container = build();
+            this.cacheMaxBases = FuncUtils.conditionOrElse(x -> x != null && x >= 0L, cacheMaxBases, () -> DEFAULT_CACHE_MAX_BASES);
+            this.cacheMaxOligoIds = FuncUtils.conditionOrElse(x -> x != null && x >= 0, cacheMaxOligoIds, () -> DEFAULT_CACHE_MAX_OLIGO_IDS);
+            return container.toCachedContainer(cacheMaxBases, cacheMaxOligoIds);
+        }
+
         public Builder() {
             this.storeType = DNAStoreType.MEMORY_MAP;
         }
 
         public SizedDNAContainer build() {
+            if (directory != null)
+                this.addressManager = FuncUtils.nullEscape(addressManager, () -> DNAAddrManager.builder().setPersistentDirectory(directory.toString()).build());
             this.addressManager = FuncUtils.nullEscape(addressManager, DEFAULT_ADDRESS_TRANSLATION_MANAGER_SUPP::get);
             this.payloadSize = FuncUtils.conditionOrElse(x -> x != null && x > 0, payloadSize, () -> DEFAULT_PAYLOAD_SIZE);
             this.payloadEccSize = FuncUtils.conditionOrElse(x -> x != null && x >= 0, payloadEccSize, () -> DEFAULT_PAYLOAD_ECC_SIZE);
@@ -280,11 +590,22 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
 
             BasicSegmentationCoder segmentationCoder = new BasicSegmentationCoder(targetLen, numGcCorrectionsPayload, BasicDNAPadder.FILLER_RANDOM_CUSTOM_GC.apply(targetGcContent));
 
-            this.store = switch (storeType) {
-                case MEMORY_MAP -> DEFAULT_STORE_NOT_PERSISTENT.apply(addressManager);
-                case DISK_PERSISTENT -> DEFAULT_STORE_PERSISTENT.apply(addressManager, payloadSize);
-                case CUSTOM -> store;
-            };
+            if (directory != null) {
+                this.store = switch (storeType) {
+                    // the files of the store are only continued together with the saved state of the container
+                    case MEMORY_MAP, DISK_PERSISTENT -> new DNAStorageDisk(addressManager, payloadSize, directory.resolve(DEFAULT_STORE_FILE_NAME).toString(), Files.exists(directory.resolve(STATE_FILE_NAME)));
+                    case MAPPED_PERSISTENT -> new DNAStorageMapped(addressManager, payloadSize, directory.resolve(DEFAULT_SEGMENTS_DIRECTORY_NAME).toString());
+                    case CUSTOM -> store;
+                };
+            }
+            else {
+                this.store = switch (storeType) {
+                    case MEMORY_MAP -> DEFAULT_STORE_NOT_PERSISTENT.apply(addressManager);
+                    case DISK_PERSISTENT -> DEFAULT_STORE_PERSISTENT.apply(addressManager, payloadSize);
+                    case MAPPED_PERSISTENT -> DEFAULT_STORE_PERSISTENT_MAPPED.apply(addressManager, payloadSize);
+                    case CUSTOM -> store;
+                };
+            }
 
             return new SizedDNAContainer(
                     isParallel,
@@ -294,10 +615,23 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
                     payloadSize,
                     sizedHeaderLengthBase,
                     store,
-                    addressManager
+                    addressManager,
+                    directory
             );
         }
 
+        /**
+         * Sets the bounds of the read cache used by buildCached().
+         * @param maxCachedBases the maximum number of bases of the cached decoded sequences. 0 disables caching decoded sequences.
+         * @param maxCachedOligoIds the maximum number of ids whose raw oligos are cached. 0 disables caching oligos.
+         * @return this builder.
+         */
+        public Builder setReadCache(long maxCachedBases, int maxCachedOligoIds) {
+            this.cacheMaxBases = maxCachedBases;
+            this.cacheMaxOligoIds = maxCachedOligoIds;
+            return this;
+        }
+
         public Builder setPayloadSize(int payloadSize) {
             this.payloadSize = payloadSize;
             return this;
@@ -374,17 +708,37 @@ public class SizedDNAContainer extends Container.LinearLongContainer<BaseSequenc
             return this;
         }
 
+        /**
+         * Stores the oligos with a DNAStorageDisk. Without a persistent directory, the store and routing files are truncated when the container is built,
+         * since the ids and addresses start over. Use setPersistentDirectory(...) to continue a container.
+         * @return this builder.
+         */
         public Builder setStorePersistentDefault() {
             this.storeType = DNAStoreType.DISK_PERSISTENT;
             return this;
         }
+        /**
+         * Keeps the oligos, the address manager's tables and the saved state in the given directory. If the directory holds a state written by saveState(),
+         * the built container continues from it. Unless another store is set, the oligos are stored by a DNAStorageDisk.
+         * @param directory the directory.
+         * @return this builder.
+         */
+        public Builder setPersistentDirectory(String directory) {
+            this.directory = Path.of(directory);
+            return this;
+        }
+
+        public Builder setStorePersistentMapped() {
+            this.storeType = DNAStoreType.MAPPED_PERSISTENT;
+            return this;
+        }
         public Builder setStoreNotPersistentDefault() {
             this.storeType = DNAStoreType.MEMORY_MAP;
             return this;
         }
 
         private enum DNAStoreType {
-            MEMORY_MAP, CUSTOM, DISK_PERSISTENT
+            MEMORY_MAP, CUSTOM, DISK_PERSISTENT, MAPPED_PERSISTENT
         }
     }
 }
@@ -4,6 +4,7 @@ import datastructures.container.Container;
 import utils.Coder;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -45,6 +46,10 @@ public interface AddressManager<F, T> extends Coder<F, AddressManager.ManagedAdd
         return ManagedAddress.of(routed, translatedAddress);
     }
 
+    default List<ManagedAddress<F, T>> routeAndTranslateAll(List<F> originals) {
+        return originals.stream().map(this::routeAndTranslate).toList();
+    }
+
     default RoutingManager.RoutedAddress<F> route(F original) {
         return addressRoutingManager().route(original);
     }
@@ -4,6 +4,7 @@ import core.BaseSequence;
 import core.dnarules.BasicDNARules;
 import core.dnarules.DNARule;
 import datastructures.container.Container;
+import datastructures.container.impl.MappedLongContainer;
 import datastructures.container.impl.PersistentContainer;
 import dnacoders.DistanceCoder;
 import dnacoders.GCFiller;
@@ -16,15 +17,27 @@ import utils.lsh.LSH;
 import utils.lsh.minhash.MinHashLSH;
 import utils.serializers.FixedSizeSerializer;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
 
+    public static final String STATE_FILE_NAME = "addrmanager.state";
+    public static final String ROUTING_FILE_NAME = "routing.index";
+    public static final String TRANSLATION_FILE_NAME = "translation.table";
+
     private final LSH<BaseSequence> lsh;
     private final Function<Long, BaseSequence> coder;
     private final int addressSize;
@@ -34,6 +47,9 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
     private final int addressTranslationTrials;
     private final AtomicLong size;
     private final ReadWriteLock addressManagerLock;
+    private final Path directory;
+    private final AddressPool addressPool;
+    private final MappedLongContainer mappedRoutingContainer;
 
     private final AddressTranslationManager addressTranslationManager;
     private final AddressRoutingManager addressRoutingManager;
@@ -45,7 +61,10 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
             Coder<Long, BaseSequence> coder,
             int translationTrials,
             Container<Long, Long> addressRoutingContainer,
-            Container<Long, BaseSequence> addressTranslationContainer
+            Container<Long, BaseSequence> addressTranslationContainer,
+            Path directory,
+            int addressPoolCapacity,
+            int addressPoolThreads
     ) {
         this.lsh = lsh;
         this.coder = coder;
@@ -53,11 +72,18 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         this.addressSize = addressSize;
         this.addressTranslationTrials = translationTrials;
         this.addrGen = new UniqueIDGenerator();
-        this.addressRoutingManager = new AddressRoutingManager(addressRoutingContainer);
+        // readers route addresses without the lock of this instance, e.g., DNAStorageDisk.get(...), so the routing container must be thread-safe, which MappedLongContainer is not by itself
+        this.mappedRoutingContainer = addressRoutingContainer instanceof MappedLongContainer mlc ? mlc : null;
+        this.addressRoutingManager = new AddressRoutingManager(mappedRoutingContainer != null ? Container.optimisticReadContainer(mappedRoutingContainer) : addressRoutingContainer);
         this.addressTranslationManager = new AddressTranslationManager(addressTranslationContainer);
         this.badAddresses = new AtomicLong(0L);
         this.addressManagerLock = new ReentrantReadWriteLock();
         this.size = new AtomicLong(0L);
+        this.directory = directory;
+        if (directory != null && Files.exists(directory.resolve(STATE_FILE_NAME)))
+            loadState();
+
+        this.addressPool = addressPoolCapacity > 0 ? new AddressPool(addressPoolCapacity, addressPoolThreads) : null;
     }
 
     @Override
@@ -65,6 +91,121 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         return routeAndTranslate(addr, true);
     }
 
+    /**
+     * Routes and translates a batch of addresses. The barcodes of the addresses that are not managed yet are generated in parallel and checked against the LSH as well as against each other,
+     * and all new addresses are written with a single acquisition of the write lock.
+     * @param addrs the original addresses.
+     * @return the managed addresses in the order of addrs.
+     */
+    @Override
+    public List<ManagedAddress<Long, BaseSequence>> routeAndTranslateAll(List<Long> addrs) {
+        List<ManagedAddress<Long, BaseSequence>> result = new ArrayList<>(addrs.size());
+        int[] missing;
+        addressManagerLock.readLock().lock();
+        try {
+            addrs.forEach(addr -> result.add(readManagedAddress(addr, false)));
+            missing = IntStream.range(0, result.size()).filter(i -> result.get(i) == null).toArray();
+        }
+        finally {
+            addressManagerLock.readLock().unlock();
+        }
+        if (missing.length == 0)
+            return result;
+
+        PooledAddress[] batch = addressPool != null ? addressPool.take(missing.length) : generateBatch(missing.length);
+        addressManagerLock.writeLock().lock();
+        try {
+            for (int i = 0; i < missing.length; i++) {
+                long addr = addrs.get(missing[i]);
+                PooledAddress candidate = batch[i];
+                ManagedAddress<Long, BaseSequence> managed = readManagedAddress(addr, false);
+                if (managed != null) {
+                    // registered concurrently or listed twice in addrs
+                    if (addressPool != null)
+                        addressPool.giveBack(candidate);
+                    result.set(missing[i], managed);
+                }
+                else {
+                    writeNewManagedAddress(addr, candidate.routed(), candidate.barcode(), candidate.numBadAddresses(), addressPool == null);
+                    result.set(missing[i], new ManagedAddress<>(addr, candidate.routed(), candidate.barcode()));
+                }
+            }
+        }
+        finally {
+            addressManagerLock.writeLock().unlock();
+        }
+        return result;
+    }
+
+    // generates n barcodes that keep the minimum distance to the LSH and to each other. The candidates are encoded and checked against the LSH in parallel,
+    // and the candidates passing that check are compared to the barcodes already accepted for this batch. Rejected slots are retried with new candidates
+    private PooledAddress[] generateBatch(int n) {
+        PooledAddress[] batch = new PooledAddress[n];
+        int[] trials = new int[n];
+        long[] numBadAddresses = new long[n];
+        BatchDistanceFilter filter = new BatchDistanceFilter(lsh instanceof MinHashLSH<?, ?> minHashLSH ? minHashLSH.getK() : BatchDistanceFilter.DEFAULT_K);
+        int[] open = IntStream.range(0, n).toArray();
+        while (open.length > 0) {
+            long[] routed = addrGen.getN(open.length);
+            BaseSequence[] barcodes = new BaseSequence[open.length];
+            boolean[] passed = new boolean[open.length];
+            IntStream.range(0, open.length).parallel().forEach(i -> {
+                barcodes[i] = coder.apply(routed[i]);
+                passed[i] = isSufficientDistance(barcodes[i]);
+            });
+
+            int numRejected = 0;
+            for (int i = 0; i < open.length; i++) {
+                int slot = open[i];
+                if (++trials[slot] >= addressTranslationTrials || passed[i] && filter.isSufficientDistance(barcodes[i])) {
+                    filter.add(barcodes[i]);
+                    batch[slot] = new PooledAddress(routed[i], barcodes[i], numBadAddresses[slot]);
+                }
+                else {
+                    numBadAddresses[slot]++;
+                    open[numRejected++] = slot;
+                }
+            }
+            open = Arrays.copyOf(open, numRejected);
+        }
+        return batch;
+    }
+
+    // the Jaccard distances of k-mers between the barcodes of a batch, i.e., the distance DistanceCoder computes for the candidates of a traditional MinHashLSH
+    private final class BatchDistanceFilter {
+        private static final int DEFAULT_K = 5;
+
+        private final int k;
+        private final List<BitSet> lowKmers;
+        private final List<Set<BaseSequence>> highKmers;
+
+        private BatchDistanceFilter(int k) {
+            this.k = k;
+            this.lowKmers = new ArrayList<>();
+            this.highKmers = new ArrayList<>();
+        }
+
+        private boolean isSufficientDistance(BaseSequence barcode) {
+            return isSufficientDistanceOf(barcode) && isSufficientDistanceOf(barcode.complement());
+        }
+
+        private boolean isSufficientDistanceOf(BaseSequence seq) {
+            if (k < DistanceCoder.LARGE_K) {
+                BitSet kmers = DistanceCoder.kmersJaccard(seq, k);
+                return lowKmers.stream().allMatch(other -> DistanceCoder.jaccardDistanceLowK(kmers, other) >= minDist);
+            }
+            List<BaseSequence> kmers = seq.kmers(k);
+            return highKmers.stream().allMatch(other -> DistanceCoder.jaccardDistanceHighK(other, kmers) >= minDist);
+        }
+
+        private void add(BaseSequence barcode) {
+            if (k < DistanceCoder.LARGE_K)
+                lowKmers.add(DistanceCoder.kmersJaccard(barcode, k));
+            else
+                highKmers.add(new HashSet<>(barcode.kmers(k)));
+        }
+    }
+
     private ManagedAddress<Long, BaseSequence> readManagedAddress(long addr, boolean lockContainers) {
         try {
             if (lockContainers)
@@ -82,7 +223,12 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
     }
 
     private void writeNewManagedAddress(long addr, long routed, BaseSequence translated, long addedBadAddresses) {
-        lsh.insert(translated);
+        writeNewManagedAddress(addr, routed, translated, addedBadAddresses, true);
+    }
+
+    private void writeNewManagedAddress(long addr, long routed, BaseSequence translated, long addedBadAddresses, boolean insertIntoLsh) {
+        if (insertIntoLsh)
+            lsh.insert(translated);
         addressRoutingManager.container.put(addr, routed);
         addressTranslationManager.container.put(routed, translated);
         size.incrementAndGet();
@@ -98,6 +244,13 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
     }
 
     public ManagedAddress<Long, BaseSequence> compute(long addr, boolean store) {
+        if (store && addressPool != null) {
+            // the pool is drained once it is shut down, and the address is generated inline below
+            PooledAddress pooled = addressPool.take();
+            if (pooled != null)
+                return computeFromPool(addr, pooled);
+        }
+
         int trials = 0;
         long routed = addrGen.get();
         BaseSequence barcode = coder.apply(routed);
@@ -135,6 +288,82 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         return new ManagedAddress<>(addr, routed, barcode);
     }
 
+    /**
+     * Writes the address generator, the counters and a snapshot of the LSH to the persistent directory. Together with the routing and translation tables in that directory,
+     * this allows rebuilding this instance without re-inserting the addresses into the LSH.
+     * Requires a MinHashLSH and must not run concurrently to routeAndTranslate(...).
+     */
+    public void saveState() {
+        if (directory == null)
+            throw new RuntimeException("no persistent directory set for this DNAAddrManager");
+
+        addressManagerLock.writeLock().lock();
+        try {
+            if (mappedRoutingContainer != null)
+                mappedRoutingContainer.force();
+
+            FuncUtils.writeFileAtomically(directory.resolve(STATE_FILE_NAME), out -> {
+                out.writeInt(addressSize);
+                out.writeLong(addrGen.getCurrentNextFreeId());
+                out.writeLong(size.get());
+                out.writeLong(badAddresses.get());
+                minHashLSH().writeSnapshot(out, MinHashLSH.SEQ_SNAPSHOT_CODER);
+            });
+        }
+        finally {
+            addressManagerLock.writeLock().unlock();
+        }
+    }
+
+    private void loadState() {
+        FuncUtils.readFile(directory.resolve(STATE_FILE_NAME), in -> {
+            if (in.readInt() != addressSize)
+                throw new RuntimeException("the saved state does not match the address size " + addressSize);
+
+            addrGen.sync(in.readLong() - 1L);
+            size.set(in.readLong());
+            badAddresses.set(in.readLong());
+            minHashLSH().readSnapshot(in, MinHashLSH.SEQ_SNAPSHOT_CODER);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private MinHashLSH<BaseSequence, ?> minHashLSH() {
+        if (!(lsh instanceof MinHashLSH<?, ?> minHashLSH))
+            throw new RuntimeException("saving the state requires a MinHashLSH");
+
+        return (MinHashLSH<BaseSequence, ?>) minHashLSH;
+    }
+
+    private ManagedAddress<Long, BaseSequence> computeFromPool(long addr, PooledAddress pooled) {
+        addressManagerLock.writeLock().lock();
+        try {
+            ManagedAddress<Long, BaseSequence> managed = readManagedAddress(addr, false);
+            if (managed != null) {
+                addressPool.giveBack(pooled);
+                return managed;
+            }
+            // pooled barcodes are inserted into the LSH when they are validated
+            writeNewManagedAddress(addr, pooled.routed(), pooled.barcode(), pooled.numBadAddresses(), false);
+            return new ManagedAddress<>(addr, pooled.routed(), pooled.barcode());
+        }
+        finally {
+            addressManagerLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops the threads producing pooled addresses, if an address pool is enabled. The barcodes still pooled are handed out first, and addresses are generated inline afterwards.
+     */
+    public void shutdownAddressPool() {
+        if (addressPool != null)
+            addressPool.shutdown();
+    }
+
+    public int getAddressPoolSize() {
+        return addressPool == null ? 0 : addressPool.size();
+    }
+
     public int getAddressSize() {
         return addressSize;
     }
@@ -223,6 +452,109 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         }
     }
 
+    private record PooledAddress(long routed, BaseSequence barcode, long numBadAddresses) {
+    }
+
+    // pre-generates validated barcodes on background threads. The barcodes are encoded in parallel, but validated and inserted into the LSH one at a time,
+    // so pooled barcodes also keep the minimum distance to each other
+    private final class AddressPool {
+        private static final long POLL_MILLIS = 10L;
+
+        private final BlockingDeque<PooledAddress> queue;
+        // barcodes given back after a concurrent registration. They are already inserted into the LSH, so they are kept outside the bounded queue instead of being dropped when it is full
+        private final Deque<PooledAddress> givenBack;
+        private final Object validationLock;
+        private final Thread[] producers;
+        private volatile boolean running;
+
+        private AddressPool(int capacity, int numThreads) {
+            this.queue = new LinkedBlockingDeque<>(capacity);
+            this.givenBack = new ConcurrentLinkedDeque<>();
+            this.validationLock = new Object();
+            this.running = true;
+            this.producers = new Thread[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                producers[i] = new Thread(this::produce, "DNAAddrManager-pool-" + i);
+                producers[i].setDaemon(true);
+                producers[i].start();
+            }
+        }
+
+        private void produce() {
+            try {
+                while (running)
+                    queue.put(nextValidAddress());
+            }
+            catch (InterruptedException ignored) {
+            }
+        }
+
+        private PooledAddress nextValidAddress() {
+            int trials = 0;
+            long numBadAddresses = 0L;
+            while (true) {
+                long routed = addrGen.getLeased();
+                BaseSequence barcode = coder.apply(routed);
+                synchronized (validationLock) {
+                    if (++trials >= addressTranslationTrials || isSufficientDistance(barcode)) {
+                        lsh.insert(barcode);
+                        return new PooledAddress(routed, barcode, numBadAddresses);
+                    }
+                }
+                numBadAddresses++;
+            }
+        }
+
+        // waits for a barcode while the producers are running. Once the pool is shut down, the remaining barcodes are handed out and null is returned when none is left
+        private PooledAddress take() {
+            try {
+                PooledAddress pooled = givenBack.pollFirst();
+                while (pooled == null && running) {
+                    pooled = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (pooled == null)
+                        pooled = givenBack.pollFirst();
+                }
+                return pooled != null ? pooled : queue.poll();
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        // the barcodes missing after the pool is shut down are generated with generateBatch and inserted into the LSH, like the pooled ones
+        private PooledAddress[] take(int n) {
+            List<PooledAddress> taken = new ArrayList<>(n);
+            PooledAddress pooled;
+            while (taken.size() < n && (pooled = givenBack.pollFirst()) != null)
+                taken.add(pooled);
+            queue.drainTo(taken, n - taken.size());
+            while (taken.size() < n && (pooled = take()) != null)
+                taken.add(pooled);
+
+            if (taken.size() < n) {
+                for (PooledAddress generated : generateBatch(n - taken.size())) {
+                    lsh.insert(generated.barcode());
+                    taken.add(generated);
+                }
+            }
+            return taken.toArray(PooledAddress[]::new);
+        }
+
+        private void giveBack(PooledAddress pooled) {
+            givenBack.offerFirst(pooled);
+        }
+
+        private int size() {
+            return queue.size() + givenBack.size();
+        }
+
+        private void shutdown() {
+            running = false;
+            for (Thread producer : producers)
+                producer.interrupt();
+        }
+    }
+
     public static class Builder {
         public static final int DEFAULT_ADDRESS_TRANSLATION_TRIALS = 1000;
         public static final int DEFAULT_ADDRESS_SIZE = 80;
@@ -231,6 +563,8 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         public static final int DEFAULT_ECC_LEN = 0;
         public static final double DEFAULT_MIN_DIST = 0.3d;
         public static final boolean DEFAULT_DEEP_LSH = true;
+        public static final int DEFAULT_ADDRESS_POOL_CAPACITY = 0;
+        public static final int DEFAULT_ADDRESS_POOL_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
         public static final Coder<String, BaseSequence> DEFAULT_STRING_CODER = RotatingTre.INSTANCE;
         public static final BiFunction<Integer, Boolean, LSH<BaseSequence>> DEFAULT_LSH = (addrSize, deep) -> deep ? MinHashLSH.newSeqLSHTraditional(5, 5) : MinHashLSH.newSeqLSHLight(5, 5);
         public static final Supplier<DNARule> DEFAULT_DNA_RULES = () -> BasicDNARules.INSTANCE;
@@ -241,20 +575,7 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         public static final Supplier<Container<Long, Long>> DEFAULT_ADDRESS_ROUTING_CONTAINER_NOT_PERSISTENT = Container.MapContainer::new;
 
         // only supported in single-thread mode
-        public static final Function<Integer, Container<Long, BaseSequence>> DEFAULT_ADDRESS_TRANSLATION_CONTAINER_PERSISTENT = addrSize -> new PersistentContainer<>("translation.table", new FixedSizeSerializer<>() {
-            @Override
-            public int serializedSize() {
-                return 2 + addrSize / 4;
-            }
-            @Override
-            public byte[] serialize(BaseSequence seq) {
-                return Packer.withBytePadding(SeqBitStringConverter.transform(seq)).toBytes();
-            }
-            @Override
-            public BaseSequence deserialize(byte[] bs) {
-                return SeqBitStringConverter.transform(Packer.withoutBytePadding(new BitString(bs)));
-            }
-        });
+        public static final Function<Integer, Container<Long, BaseSequence>> DEFAULT_ADDRESS_TRANSLATION_CONTAINER_PERSISTENT = addrSize -> new PersistentContainer<>("translation.table", translationSerializer(addrSize));
         public static final Function<Integer, Container<Long, BaseSequence>> DEFAULT_ADDRESS_TRANSLATION_CONTAINER_NOT_PERSISTENT = __ -> new Container.MapContainer<>();
 
         private LSH<BaseSequence> lsh;
@@ -268,6 +589,26 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
         private Double minDist;
         private Integer addressTranslationTrials;
         private Boolean deepLSH;
+        private Path directory;
+        private Integer addressPoolCapacity;
+        private Integer addressPoolThreads;
+
+        private static FixedSizeSerializer<BaseSequence> translationSerializer(int addrSize) {
+            return new FixedSizeSerializer<>() {
+                @Override
+                public int serializedSize() {
+                    return 2 + addrSize / 4;
+                }
+                @Override
+                public byte[] serialize(BaseSequence seq) {
+                    return Packer.withBytePadding(SeqBitStringConverter.transform(seq)).toBytes();
+                }
+                @Override
+                public BaseSequence deserialize(byte[] bs) {
+                    return SeqBitStringConverter.transform(Packer.withoutBytePadding(new BitString(bs)));
+                }
+            };
+        }
 
         public DNAAddrManager build() {
             this.addressEccSize = FuncUtils.conditionOrElse(ecc -> ecc != null && ecc >= 0, addressEccSize, () -> DEFAULT_ECC_LEN);
@@ -279,11 +620,19 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
             this.lsh = FuncUtils.nullEscape(lsh, () -> DEFAULT_LSH.apply(addrSize, deepLSH));
             this.numPermutations = FuncUtils.conditionOrElse(n -> n != null && n >= 0, numPermutations, () -> DEFAULT_ADDR_NUM_PERMUTATIONS);
             this.dnaRules = FuncUtils.nullEscape(dnaRules, DEFAULT_DNA_RULES);
+            if (directory != null) {
+                FuncUtils.safeCall(() -> Files.createDirectories(directory));
+                String translationPath = directory.resolve(TRANSLATION_FILE_NAME).toString();
+                this.addressRoutingContainer = FuncUtils.nullEscape(addressRoutingContainer, () -> new MappedLongContainer(directory.resolve(ROUTING_FILE_NAME).toString()));
+                this.addressTranslationContainer = FuncUtils.nullEscape(addressTranslationContainer, () -> Files.exists(Path.of(translationPath)) ? PersistentContainer.load(translationPath, translationSerializer(addrSize)) : new PersistentContainer<>(translationPath, translationSerializer(addrSize)));
+            }
             this.addressRoutingContainer = FuncUtils.nullEscape(addressRoutingContainer, DEFAULT_ADDRESS_ROUTING_CONTAINER_NOT_PERSISTENT);
             this.addressTranslationContainer = FuncUtils.nullEscape(addressTranslationContainer, () -> DEFAULT_ADDRESS_TRANSLATION_CONTAINER_NOT_PERSISTENT.apply(addrSize));
             this.minDist = FuncUtils.conditionOrElse(d -> d != null && d > 0d && d <= 1d, minDist, () -> DEFAULT_MIN_DIST);
             this.stringCoder = FuncUtils.nullEscape(stringCoder, () -> DEFAULT_STRING_CODER);
             this.addressTranslationTrials = FuncUtils.conditionOrElse(t -> t != null && t > 0, addressTranslationTrials, () -> DEFAULT_ADDRESS_TRANSLATION_TRIALS);
+            this.addressPoolCapacity = FuncUtils.conditionOrElse(c -> c != null && c >= 0, addressPoolCapacity, () -> DEFAULT_ADDRESS_POOL_CAPACITY);
+            this.addressPoolThreads = FuncUtils.conditionOrElse(t -> t != null && t > 0, addressPoolThreads, () -> DEFAULT_ADDRESS_POOL_THREADS);
 
             PermutationCoder addressPermutationCoder = numPermutations <= 0 ? new ZeroPermCoder(false) : new PermutationCoder(false, numPermutations, seq -> -dnaRules.evalErrorProbability(seq));
             int addrPermOffset = addressPermutationCoder.getLengthBase().totalSize();
@@ -311,7 +660,10 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
                     coder,
                     addressTranslationTrials,
                     addressRoutingContainer,
-                    addressTranslationContainer
+                    addressTranslationContainer,
+                    directory,
+                    addressPoolCapacity,
+                    addressPoolThreads
             );
         }
 
@@ -372,6 +724,29 @@ public class DNAAddrManager implements AddressManager<Long, BaseSequence> {
             return this;
         }
 
+        /**
+         * Keeps the routing and translation tables in the given directory, and restores a state written by saveState() from it if one exists.
+         * @param directory the directory.
+         * @return this builder.
+         */
+        public Builder setPersistentDirectory(String directory) {
+            this.directory = Path.of(directory);
+            return this;
+        }
+
+        /**
+         * Enables a pool of pre-generated and validated addresses filled by background threads, so new addresses are taken from the pool instead of being searched inline.
+         * Pooled addresses are inserted into the LSH when they enter the pool. A capacity of 0 disables the pool.
+         * @param capacity the maximum number of pooled addresses.
+         * @param numThreads the number of producer threads.
+         * @return this builder.
+         */
+        public Builder setAddressPool(int capacity, int numThreads) {
+            this.addressPoolCapacity = capacity;
+            this.addressPoolThreads = numThreads;
+            return this;
+        }
+
         public Builder setStringCoder(Coder<String, BaseSequence> stringCoder) {
             this.stringCoder = stringCoder;
             return this;
@@ -6,14 +6,14 @@ import datastructures.reference.IDNAFedReference;
 import datastructures.reference.DNAPointer;
 import utils.*;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 public class ContainerArray<T> extends IDNAFedReference.DNAFedReference<ArrayList<T>, DNAPointer.ContainerDNAPointer> implements Streamable<T> {
+    public static final int ITERATOR_BATCH_SIZE = 64;
+
     private final Coder<T, BaseSequence> coder;
 
     public ContainerArray(DNAContainer container, DNAPointer.ContainerDNAPointer sketch, Coder<T, BaseSequence> coder) {
@@ -53,17 +53,23 @@ public class ContainerArray<T> extends IDNAFedReference.DNAFedReference<ArrayLis
     }
 
     public static List<AddressedDNA> getArrayOligos(DNAContainer container, long id) {
-        var header = UnpackedHeader.of(getHeaderSeq(container, id));
+        var headerOligos = container.getOligos(id);
+        var header = UnpackedHeader.of(headerOligos == null ? null : container.assembleFromOligos(headerOligos));
         checkOutOfBounds(header, 0, header.length);
-        var headerOligos = Arrays.asList(container.getOligos(id));
-        List<AddressedDNA> oligos = new ArrayList<>(headerOligos.size() + header.length);
-        oligos.addAll(headerOligos);
-        for (int i = 0; i < header.length; i++)
-            oligos.addAll(Arrays.asList(container.getOligos(header.payloadStartId + i)));
+        List<AddressedDNA> oligos = new ArrayList<>(headerOligos.length + header.length);
+        oligos.addAll(Arrays.asList(headerOligos));
+        for (AddressedDNA[] elementOligos : container.getOligos(LongStream.range(header.payloadStartId, header.payloadStartId + header.length).toArray()))
+            oligos.addAll(Arrays.asList(elementOligos));
 
         return oligos;
     }
 
+    // reads the elements [firstId, firstId + n) with one batched read
+    private static Iterator<BaseSequence> getBatch(DNAContainer container, long firstId, int n) {
+        AddressedDNA[][] oligos = container.getOligos(LongStream.range(firstId, firstId + n).toArray());
+        return Arrays.stream(oligos).map(o -> o == null ? null : container.assembleFromOligos(o)).iterator();
+    }
+
     public static <T> Iterator<T> getArrayIterator(DNAPointer.ContainerDNAPointer sketch, Coder<T, BaseSequence> coder) {
         UnpackedHeader header = UnpackedHeader.of(getHeaderSeq(sketch));
         checkOutOfBounds(header, 0, header.length);
@@ -80,6 +86,7 @@ public class ContainerArray<T> extends IDNAFedReference.DNAFedReference<ArrayLis
         DNAContainer container = sketch.container();
         return new Iterator<>() {
             int pos = startInclusive;
+            Iterator<BaseSequence> batch = Collections.emptyIterator();
             @Override
             public boolean hasNext() {
                 return pos < endExclusive;
@@ -87,7 +94,11 @@ public class ContainerArray<T> extends IDNAFedReference.DNAFedReference<ArrayLis
 
             @Override
             public T next() {
-                return coder.decode(container.get(payloadStartId + (pos++)));
+                if (!batch.hasNext())
+                    batch = getBatch(container, payloadStartId + pos, Math.min(ITERATOR_BATCH_SIZE, endExclusive - pos));
+
+                pos++;
+                return coder.decode(batch.next());
             }
         };
     }
@@ -96,6 +107,7 @@ public class ContainerArray<T> extends IDNAFedReference.DNAFedReference<ArrayLis
         DNAContainer container = sketch.container();
         return new Iterator<>() {
             int pos = startInclusive;
+            Iterator<BaseSequence> batch = Collections.emptyIterator();
             @Override
             public boolean hasNext() {
                 return pos > endExclusive;
@@ -103,7 +115,16 @@ public class ContainerArray<T> extends IDNAFedReference.DNAFedReference<ArrayLis
 
             @Override
             public T next() {
-                return coder.decode(container.get(payloadStartId + (pos--)));
+                if (!batch.hasNext()) {
+                    int n = Math.min(ITERATOR_BATCH_SIZE, pos - endExclusive);
+                    List<BaseSequence> elements = new ArrayList<>();
+                    getBatch(container, payloadStartId + pos - n + 1, n).forEachRemaining(elements::add);
+                    Collections.reverse(elements);
+                    batch = elements.iterator();
+                }
+
+                pos--;
+                return coder.decode(batch.next());
             }
         };
     }
@@ -6,6 +6,7 @@ import utils.Streamable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>, Streamable<BPlusTree.Node<K, V>> {
@@ -56,12 +57,37 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         return new Leaf<>(this);
     }
 
-    private Leaf<K, V> newLeaf(InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, List<K> keys, List<V> values) {
-        return new Leaf<>(this, parent, left, right, keys, values);
+    private Leaf<K, V> newLeaf(List<KVEntry<K, V>> entries) {
+        int size = entries.size();
+        int capacity = Math.max(size, maxLeafEntries + 1);
+        K[] keys = newKeysArray(capacity);
+        V[] values = newValuesArray(capacity);
+        for (int i = 0; i < size; i++) {
+            KVEntry<K, V> e = entries.get(i);
+            keys[i] = e.key();
+            values[i] = e.value();
+        }
+        return new Leaf<>(this, null, null, null, keys, values, size);
     }
 
-    private InternalNode<K, V> newInternalNode(InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, List<K> keys, List<Node<K, V>> kids) {
-        return new InternalNode<>(this, parent, left, right, keys, kids);
+    private InternalNode<K, V> newInternalNode(int numKids) {
+        int capacity = Math.max(numKids, maxNodeKids + 1);
+        return new InternalNode<>(this, null, null, null, newKeysArray(capacity - 1), 0, newNodesArray(capacity), 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>> K[] newKeysArray(int capacity) {
+        return (K[]) new Comparable<?>[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V[] newValuesArray(int capacity) {
+        return (V[]) new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>, V> Node<K, V>[] newNodesArray(int capacity) {
+        return (Node<K, V>[]) new Node<?, ?>[capacity];
     }
 
     public static <K extends Comparable<K>, V> BPlusTree<K, V> bulkLoad(Stream<KVEntry<K, V>> sortedStream, int b, int c) {
@@ -69,21 +95,19 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         AtomicInteger size = new AtomicInteger(0);
         List<? extends Node<K, V>> nodes = FuncUtils.chunkConservative(sortedStream, tree.maxLeafEntries)
                 .peek(ch -> size.addAndGet(ch.size()))
-                .map(ch -> tree.newLeaf(null, null, null,
-                        ch.stream().map(KVEntry::key).collect(Collectors.toCollection(ArrayList::new)),
-                        ch.stream().map(KVEntry::value).collect(Collectors.toCollection(ArrayList::new))))
+                .map(tree::newLeaf)
                 .toList();
 
         connectNodes(nodes);
         int height = nodes.size() > 0 ? 1 : 0;
         int numNodes = nodes.size();
-        Set<Node<K, V>> potentialOverflows = new HashSet<>();
+        Set<Node<K, V>> potentialOverflows = new LinkedHashSet<>();
         potentialOverflows.add(nodes.get(nodes.size() - 1));
 
         while (nodes.size() > 1) {
             nodes = FuncUtils.chunkConservative(nodes.stream(), tree.maxNodeKids)
                     .map(ch -> {
-                        InternalNode<K, V> parent = tree.newInternalNode(null, null, null, new ArrayList<>(tree.maxNodeKids - 1), new ArrayList<>(tree.maxNodeKids));
+                        InternalNode<K, V> parent = tree.newInternalNode(ch.size());
                         addToParent(ch, parent);
                         return parent;
                     }).collect(Collectors.toCollection(ArrayList::new));
@@ -103,6 +127,106 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         return tree;
     }
 
+    public static <K extends Comparable<K>, V> BPlusTree<K, V> bulkLoadParallel(KVEntry<K, V>[] sortedEntries, int b, int c) {
+        return bulkLoadParallel(Arrays.asList(sortedEntries), b, c);
+    }
+
+    public static <K extends Comparable<K>, V> BPlusTree<K, V> bulkLoadParallel(List<KVEntry<K, V>> sortedEntries, int b, int c) {
+        return bulkLoadParallel(sortedEntries, b, c, 1.0d);
+    }
+
+    /**
+     * Bulk loads a tree from a sized list of entries sorted by key. The node boundaries of every level are computed up front, and the nodes of each level are built and linked in parallel.
+     * With a fill factor of 1.0, the resulting tree has the same structure as the one returned by bulkLoad for the same entries.
+     * @param sortedEntries the entries sorted by key in ascending order.
+     * @param b the minimum number of kids of an internal node.
+     * @param c the minimum number of entries of a leaf.
+     * @param fillFactor the targeted fill of the nodes in (0, 1]. The nodes are never filled below their minimum size.
+     * @return the loaded tree.
+     */
+    public static <K extends Comparable<K>, V> BPlusTree<K, V> bulkLoadParallel(List<KVEntry<K, V>> sortedEntries, int b, int c, double fillFactor) {
+        if (fillFactor <= 0.0d || fillFactor > 1.0d)
+            throw new RuntimeException("invalid fill factor: " + fillFactor);
+
+        BPlusTree<K, V> tree = new BPlusTree<>(b, c);
+        int size = sortedEntries.size();
+        if (size == 0)
+            return tree;
+
+        int leafChunkSize = fillChunkSize(tree.minLeafEntries, tree.maxLeafEntries, fillFactor);
+        int nodeChunkSize = fillChunkSize(tree.minNodeKids, tree.maxNodeKids, fillFactor);
+
+        int numLeaves = numChunks(size, leafChunkSize);
+        Node<K, V>[] leaves = newNodesArray(numLeaves);
+        IntStream.range(0, numLeaves).parallel().forEach(i -> {
+            int from = i * leafChunkSize;
+            int to = i == numLeaves - 1 ? size : from + leafChunkSize;
+            leaves[i] = tree.newLeaf(sortedEntries.subList(from, to));
+        });
+
+        Node<K, V>[] nodes = leaves;
+        connectNodesParallel(nodes);
+        int height = 1;
+        int numNodes = nodes.length;
+        Set<Node<K, V>> potentialOverflows = new LinkedHashSet<>();
+        potentialOverflows.add(nodes[nodes.length - 1]);
+
+        while (nodes.length > 1) {
+            Node<K, V>[] kids = nodes;
+            int numParents = numChunks(kids.length, nodeChunkSize);
+            Node<K, V>[] parents = newNodesArray(numParents);
+            IntStream.range(0, numParents).parallel().forEach(i -> {
+                int from = i * nodeChunkSize;
+                int to = i == numParents - 1 ? kids.length : from + nodeChunkSize;
+                InternalNode<K, V> parent = tree.newInternalNode(to - from);
+                for (int j = from; j < to; j++) {
+                    Node<K, V> kid = kids[j];
+                    parent.addKid(kid);
+                    if (j < to - 1)
+                        parent.addKey(subtreeMaxKey(kid));
+                }
+                parents[i] = parent;
+            });
+
+            nodes = parents;
+            potentialOverflows.add(nodes[nodes.length - 1]);
+            height++;
+            numNodes += nodes.length;
+            connectNodesParallel(nodes);
+        }
+
+        height += handleBulkLoadingOverflow(tree, potentialOverflows);
+        if (tree.root == null)
+            tree.root = nodes[0];
+        tree.size = size;
+        tree.height = height;
+        tree.numNodes += numNodes;
+        return tree;
+    }
+
+    private static int fillChunkSize(int min, int max, double fillFactor) {
+        return Math.max(min, Math.min(max, (int) Math.ceil(fillFactor * max)));
+    }
+
+    // the number of chunks created by FuncUtils.chunkConservative, i.e., the last chunk absorbs the remainder
+    private static int numChunks(int size, int chunkSize) {
+        return Math.max(1, size / chunkSize);
+    }
+
+    private static <K extends Comparable<K>, V> void connectNodesParallel(Node<K, V>[] nodes) {
+        IntStream.range(1, nodes.length).parallel().forEach(j -> {
+            nodes[j - 1].right = nodes[j];
+            nodes[j].left = nodes[j - 1];
+        });
+    }
+
+    private static <K extends Comparable<K>, V> K subtreeMaxKey(Node<K, V> node) {
+        while (!node.isLeaf())
+            node = node.asInternalNode().lastKid();
+
+        return node.keys[node.numKeys - 1];
+    }
+
     private static <K extends Comparable<K>, V> void connectNodes(List<? extends Node<K, V>> nodes) {
         Node<K, V> iNode = nodes.get(0);
         Node<K, V> jNode;
@@ -118,23 +242,20 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         int lastKidIndex = kidsNodes.size() - 1;
         Node<K, V> left = kidsNodes.get(0);
         parent.addKid(left);
-        left.parent = parent;
         Node<K, V> right;
-        parent.keys.add(left.keys.get(left.keys.size() - 1));
+        parent.addKey(subtreeMaxKey(left));
         for (int j = 1; j < lastKidIndex; j++) {
             right = kidsNodes.get(j);
             left.right = right;
             right.left = left;
-            right.parent = parent;
             left = right;
             parent.addKid(right);
-            parent.keys.add(right.keys.get(right.keys.size() - 1));
+            parent.addKey(subtreeMaxKey(right));
         }
         if (lastKidIndex != 0) {
             right = kidsNodes.get(lastKidIndex);
             left.right = right;
             right.left = left;
-            right.parent = parent;
             parent.addKid(right);
         }
     }
@@ -229,7 +350,7 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         printLevelLeftToRight(root);
         Node<K, V> n = root;
         while (!n.isLeaf()) {
-            n = n.asInternalNode().kids.get(0);
+            n = n.asInternalNode().kids[0];
             printLevelLeftToRight(n);
         }
     }
@@ -240,7 +361,7 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
 
         Node<K, V> n = root;
         while (!n.isLeaf())
-            n = n.asInternalNode().kids.get(0);
+            n = n.asInternalNode().kids[0];
 
         final Node<K, V> fn = n;
         return new Iterator<>() {
@@ -279,7 +400,7 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
             @Override
             public Node<K, V> next() {
                 if (n == null && !n0.isLeaf()) {
-                    n0 = n0.asInternalNode().kids.get(0);
+                    n0 = n0.asInternalNode().kids[0];
                     n = n0;
                 }
                 Node<K, V> r = n;
@@ -315,14 +436,17 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         protected InternalNode<K, V> parent;
         protected Node<K, V> left;
         protected Node<K, V> right;
-        protected List<K> keys;
+        protected K[] keys;
+        protected int numKeys;
+        protected int slot; // the index of this node in parent.kids
 
-        protected Node(BPlusTree<K, V> tree, InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, List<K> keys) {
+        protected Node(BPlusTree<K, V> tree, InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, K[] keys, int numKeys) {
             this.tree = tree;
             this.parent = parent;
             this.left = left;
             this.right = right;
             this.keys = keys;
+            this.numKeys = numKeys;
         }
         protected abstract boolean isOverflown();
         protected abstract boolean isFull();
@@ -331,7 +455,7 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         public abstract boolean isLeaf();
 
         public int size() {
-            return keys.size();
+            return numKeys;
         }
         public final InternalNode<K, V> asInternalNode() {
             return (InternalNode<K, V>) this;
@@ -342,17 +466,33 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         }
 
         public boolean isAboveLeaf() {
-            return !isLeaf() && asInternalNode().getKids().get(0).isLeaf();
+            return !isLeaf() && asInternalNode().kids[0].isLeaf();
         }
 
-        protected InternalNode<K, V> adjustParent(int midIndex, Node<K, V> leftNode, Node<K, V> rightNode) {
-            int index = parent.kids.indexOf(this);
-            parent.keys.add(index, keys.get(midIndex));
-            parent.kids.set(index, leftNode);
-            parent.kids.add(index + 1, rightNode);
+        protected InternalNode<K, V> adjustParent(K separator, Node<K, V> rightNode) {
+            parent.insertKid(slot, separator, rightNode);
             return parent;
         }
 
+        protected InternalNode<K, V> newRoot(K separator, Node<K, V> rightNode) {
+            var _root = tree.newInternalNode(2);
+            _root.addKid(this);
+            _root.addKid(rightNode);
+            _root.addKey(separator);
+            tree.root = _root;
+            tree.height++;
+            tree.numNodes++;
+            return _root;
+        }
+
+        protected void linkRight(Node<K, V> rightNode) {
+            rightNode.left = this;
+            rightNode.right = right;
+            if (right != null)
+                right.left = rightNode;
+            right = rightNode;
+        }
+
         public InternalNode<K, V> getParent() {
             return parent;
         }
@@ -364,12 +504,12 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         }
 
         public List<K> getKeys() {
-            return keys;
+            return copyOf(keys, numKeys);
         }
 
         @Override
         public String toString() {
-            return Objects.toString(keys);
+            return Objects.toString(getKeys());
         }
 
         public Iterator<Node<K, V>> leftRightIterator() {
@@ -407,39 +547,84 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         }
     }
 
+    private static <T> List<T> unmodifiableView(T[] arr, int size) {
+        return Collections.unmodifiableList(Arrays.asList(arr).subList(0, size));
+    }
+
+    // a serializable copy, since the keys and values of a node are serialized by the default list coder of BPTreeNativeCoder
+    private static <T> List<T> copyOf(T[] arr, int size) {
+        return new ArrayList<>(Arrays.asList(arr).subList(0, size));
+    }
+
     public static class InternalNode<K extends Comparable<K>, V> extends Node<K, V> {
-        protected List<Node<K, V>> kids;
+        protected Node<K, V>[] kids;
+        protected int numKids;
 
-        public InternalNode(BPlusTree<K, V> tree, InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, List<K> keys, List<Node<K, V>> kids) {
-            super(tree, parent, left, right, keys);
+        public InternalNode(BPlusTree<K, V> tree, InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, K[] keys, int numKeys, Node<K, V>[] kids, int numKids) {
+            super(tree, parent, left, right, keys, numKeys);
             this.kids = kids;
+            this.numKids = numKids;
         }
 
         @Override
         protected boolean isOverflown() {
-            return kids.size() > tree.maxNodeKids;
+            return numKids > tree.maxNodeKids;
         }
 
         @Override
         protected boolean isFull() {
-            return kids.size() == tree.maxNodeKids;
+            return numKids == tree.maxNodeKids;
         }
 
         @Override
         protected boolean isUnderflown() {
-            return kids.size() < tree.minNodeKids;
+            return numKids < tree.minNodeKids;
         }
 
         public Node<K, V> findKid(K key) {
-            int index = Collections.binarySearch(keys, key);
+            int index = Arrays.binarySearch(keys, 0, numKeys, key);
             if (index < 0)
-                return kids.get(-index - 1);
+                return kids[-index - 1];
 
-            return kids.get(index);
+            return kids[index];
+        }
+
+        protected Node<K, V> lastKid() {
+            return kids[numKids - 1];
         }
 
         protected void addKid(Node<K, V> kid) {
-            this.kids.add(kid);
+            if (numKids == kids.length)
+                kids = Arrays.copyOf(kids, numKids << 1);
+
+            kid.parent = this;
+            kid.slot = numKids;
+            kids[numKids++] = kid;
+        }
+
+        protected void addKey(K key) {
+            if (numKeys == keys.length)
+                keys = Arrays.copyOf(keys, numKeys << 1);
+
+            keys[numKeys++] = key;
+        }
+
+        protected void insertKid(int leftKidSlot, K separator, Node<K, V> kid) {
+            if (numKids == kids.length) {
+                kids = Arrays.copyOf(kids, numKids << 1);
+                keys = Arrays.copyOf(keys, numKids << 1);
+            }
+
+            int kidSlot = leftKidSlot + 1;
+            System.arraycopy(keys, leftKidSlot, keys, kidSlot, numKeys - leftKidSlot);
+            System.arraycopy(kids, kidSlot, kids, kidSlot + 1, numKids - kidSlot);
+            keys[leftKidSlot] = separator;
+            kids[kidSlot] = kid;
+            kid.parent = this;
+            numKeys++;
+            numKids++;
+            for (int i = kidSlot; i < numKids; i++)
+                kids[i].slot = i;
         }
 
         @Override
@@ -450,36 +635,30 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         @Override
         protected InternalNode<K, V> split() {
             tree.numNodes++;
-            int keySize = keys.size();
+            int keySize = numKeys;
             int midIndex = keySize >>> 1;
             if ((keySize & 1) != 1)
                 midIndex--;
 
-            var leftKids = new ArrayList<>(kids.subList(0, midIndex + 1));
-            var rightKids = new ArrayList<>(kids.subList(midIndex + 1, kids.size()));
-            var leftNode = tree.newInternalNode(parent, left, null, new ArrayList<>(keys.subList(0, midIndex)), leftKids);
-            var rightNode = tree.newInternalNode(parent, null, right, new ArrayList<>(keys.subList(midIndex + 1, keySize)), rightKids);
-            leftNode.right = rightNode;
-            rightNode.left = leftNode;
-            if (left != null)
-                left.right = leftNode;
-            if (right != null)
-                right.left = rightNode;
+            int rightNumKeys = keySize - midIndex - 1;
+            int rightNumKids = numKids - midIndex - 1;
+            var rightNode = tree.newInternalNode(rightNumKids);
+            System.arraycopy(keys, midIndex + 1, rightNode.keys, 0, rightNumKeys);
+            rightNode.numKeys = rightNumKeys;
+            for (int i = 0; i < rightNumKids; i++)
+                rightNode.addKid(kids[midIndex + 1 + i]);
 
-            leftKids.forEach(kid -> kid.parent = leftNode);
-            rightKids.forEach(kid -> kid.parent = rightNode);
-
-            if (parent == null) { // root split
-                var _root = tree.newInternalNode(null, null, null, new ArrayList<>(Collections.singletonList(keys.get(midIndex))), new ArrayList<>(Arrays.asList(leftNode, rightNode)));
-                leftNode.parent = _root;
-                rightNode.parent = _root;
-                tree.root = _root;
-                tree.height++;
-                tree.numNodes++;
-                return _root;
-            }
+            K separator = keys[midIndex];
+            Arrays.fill(keys, midIndex, keySize, null);
+            Arrays.fill(kids, midIndex + 1, numKids, null);
+            numKeys = midIndex;
+            numKids = midIndex + 1;
+            linkRight(rightNode);
+
+            if (parent == null) // root split
+                return newRoot(separator, rightNode);
 
-            return adjustParent(midIndex, leftNode, rightNode);
+            return adjustParent(separator, rightNode);
         }
 
         @Override
@@ -491,73 +670,80 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
             return right != null? right.asInternalNode() : null;
         }
         public List<Node<K, V>> getKids() {
-            return Collections.unmodifiableList(kids);
+            return unmodifiableView(kids, numKids);
         }
     }
 
     public static class Leaf<K extends Comparable<K>, V> extends Node<K, V> {
-        protected List<V> values;
-        public Leaf(BPlusTree<K, V> tree, InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, List<K> keys, List<V> values) {
-            super(tree, parent, left, right, keys);
+        protected V[] values;
+        public Leaf(BPlusTree<K, V> tree, InternalNode<K, V> parent, Node<K, V> left, Node<K, V> right, K[] keys, V[] values, int size) {
+            super(tree, parent, left, right, keys, size);
             this.values = values;
         }
 
         protected Leaf(BPlusTree<K, V> tree) {
-            this(tree, null, null, null, new ArrayList<>(tree.maxLeafEntries), new ArrayList<>(tree.maxLeafEntries));
+            this(tree, null, null, null, newKeysArray(tree.maxLeafEntries + 1), newValuesArray(tree.maxLeafEntries + 1), 0);
         }
 
         @Override
         protected boolean isOverflown() {
-            return values.size() > tree.maxLeafEntries;
+            return numKeys > tree.maxLeafEntries;
         }
 
         @Override
         protected boolean isFull() {
-            return values.size() == tree.maxLeafEntries;
+            return numKeys == tree.maxLeafEntries;
         }
 
         @Override
         protected boolean isUnderflown() {
-            return values.size() < tree.minLeafEntries;
+            return numKeys < tree.minLeafEntries;
         }
 
         protected Leaf<K, V> add(K key, V value) {
-            int index = -Collections.binarySearch(keys, key) - 1;
+            int index = -Arrays.binarySearch(keys, 0, numKeys, key) - 1;
             if (index < 0)
                 throw new RuntimeException("duplicate keys exception: " + key);
 
-            this.keys.add(index, key);
-            this.values.add(index, value);
+            if (numKeys == keys.length) {
+                keys = Arrays.copyOf(keys, numKeys << 1);
+                values = Arrays.copyOf(values, numKeys << 1);
+            }
+            System.arraycopy(keys, index, keys, index + 1, numKeys - index);
+            System.arraycopy(values, index, values, index + 1, numKeys - index);
+            keys[index] = key;
+            values[index] = value;
+            numKeys++;
             return this;
         }
 
         public V search(K key) {
-            int index = Collections.binarySearch(keys, key);
+            int index = Arrays.binarySearch(keys, 0, numKeys, key);
             if (index < 0)
                 return null;
 
-            return values.get(index);
+            return values[index];
         }
 
         public List<V> search(K keyLow, K keyHigh) {
-            int size = size();
-            int indexL = Collections.binarySearch(keys, keyLow);
+            int size = numKeys;
+            int indexL = Arrays.binarySearch(keys, 0, size, keyLow);
             if (indexL < 0)
                 indexL = -indexL - 1;
             if (indexL >= size)
                 return Collections.emptyList();
 
-            int indexR = Collections.binarySearch(keys.subList(indexL, size), keyHigh);
+            int indexR = Arrays.binarySearch(keys, indexL, size, keyHigh);
 
-            if (indexR == -1)
+            if (indexR == -indexL - 1)
                 return Collections.emptyList();
 
             if (indexR < 0)
-                indexR = -indexR - 1 + indexL;
+                indexR = -indexR - 1;
             else
-                indexR += indexL + 1;
+                indexR++;
 
-            return values.subList(indexL, indexR);
+            return unmodifiableView(values, size).subList(indexL, indexR);
         }
 
         @Override
@@ -573,28 +759,26 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
         @Override
         protected InternalNode<K, V> split() {
             tree.numNodes++;
-            int keySize = keys.size();
+            int keySize = numKeys;
             int midIndex = keySize >>> 1;
-            var leftLeaf = tree.newLeaf(parent, left, null, new ArrayList<>(keys.subList(0, midIndex)), new ArrayList<>(values.subList(0, midIndex)));
-            var rightLeaf = tree.newLeaf(parent, null, right, new ArrayList<>(keys.subList(midIndex, keySize)), new ArrayList<>(values.subList(midIndex, values.size())));
-            leftLeaf.right = rightLeaf;
-            rightLeaf.left = leftLeaf;
-            if (left != null)
-                left.right = leftLeaf;
-            if (right != null)
-                right.left = rightLeaf;
-
-            if (parent == null) { // root is Leaf
-                var _root = tree.newInternalNode(null, null, null, new ArrayList<>(leftLeaf.keys.subList(midIndex - 1, midIndex)), new ArrayList<>(Arrays.asList(leftLeaf, rightLeaf)));
-                leftLeaf.parent = _root;
-                rightLeaf.parent = _root;
-                tree.root = _root;
-                tree.height++;
-                tree.numNodes++;
-                return _root;
-            }
+            int rightSize = keySize - midIndex;
+            int capacity = Math.max(rightSize, tree.maxLeafEntries + 1);
+            K[] rightKeys = newKeysArray(capacity);
+            V[] rightValues = newValuesArray(capacity);
+            System.arraycopy(keys, midIndex, rightKeys, 0, rightSize);
+            System.arraycopy(values, midIndex, rightValues, 0, rightSize);
+            Arrays.fill(keys, midIndex, keySize, null);
+            Arrays.fill(values, midIndex, keySize, null);
+            numKeys = midIndex;
+
+            var rightLeaf = new Leaf<>(tree, null, null, null, rightKeys, rightValues, rightSize);
+            linkRight(rightLeaf);
+
+            K separator = keys[midIndex - 1];
+            if (parent == null) // root is Leaf
+                return newRoot(separator, rightLeaf);
 
-            return adjustParent(midIndex - 1, leftLeaf, rightLeaf);
+            return adjustParent(separator, rightLeaf);
         }
 
         @Override
@@ -602,7 +786,7 @@ public class BPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V>,
             return true;
         }
         public List<V> getValues() {
-            return Collections.unmodifiableList(values);
+            return Collections.unmodifiableList(copyOf(values, numKeys));
         }
     }
 }
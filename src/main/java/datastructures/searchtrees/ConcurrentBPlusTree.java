@@ -0,0 +1,344 @@
+package datastructures.searchtrees;
+
+import utils.FuncUtils;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * A B+-tree supporting concurrent inserts, point searches and range scans based on the B-link tree of Lehman and Yao.
+ * Every node has a high key, i.e., the largest key that may be stored in its subtree, and a link to its right sibling.
+ * A thread that finds a key beyond the high key of a node moves right, so splits never have to latch more than a node and its parent or right sibling,
+ * and readers hold at most one read latch at a time.
+ * Latches are always acquired bottom-up and from left to right, which rules out deadlocks.
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class ConcurrentBPlusTree<K extends Comparable<K>, V> implements BPTreeQuery<K, V> {
+    private volatile Node<K, V> root;
+    private final Object rootLock;
+    private final AtomicInteger size;
+    private final AtomicInteger height;
+    private final AtomicInteger numNodes;
+
+    private final int minNodeKids;
+    private final int minLeafEntries;
+    private final int maxNodeKids;
+    private final int maxLeafEntries;
+
+    public ConcurrentBPlusTree(int b, int c) {
+        if (c < 1 || b < 2)
+            throw new RuntimeException("invalid parameters");
+        this.minNodeKids = b;
+        this.minLeafEntries = c;
+        this.maxNodeKids = 2 * b - 1;
+        this.maxLeafEntries = 2 * c - 1;
+        this.rootLock = new Object();
+        this.root = newLeaf();
+        this.size = new AtomicInteger(0);
+        this.height = new AtomicInteger(1);
+        this.numNodes = new AtomicInteger(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> newLeaf() {
+        return new Node<>(0, (K[]) new Comparable<?>[maxLeafEntries + 1], new Object[maxLeafEntries + 1], null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> newInternalNode(int level) {
+        return new Node<>(level, (K[]) new Comparable<?>[maxNodeKids], null, (Node<K, V>[]) new Node<?, ?>[maxNodeKids + 1]);
+    }
+
+    /**
+     * Inserts a key-value pair. This method is thread-safe.
+     * @param key the key.
+     * @param value the value.
+     */
+    public void insert(K key, V value) {
+        Deque<Node<K, V>> path = new ArrayDeque<>();
+        Node<K, V> n = root;
+        while (!n.isLeaf()) {
+            long stamp = n.lock.readLock();
+            Node<K, V> next;
+            try {
+                if (n.isBeyond(key)) {
+                    next = n.right;
+                }
+                else {
+                    next = n.findKid(key);
+                    path.push(n);
+                }
+            }
+            finally {
+                n.lock.unlockRead(stamp);
+            }
+            n = next;
+        }
+
+        n = lockForWrite(n, key);
+        try {
+            n.addToLeaf(key, value);
+        }
+        catch (RuntimeException e) {
+            n.lock.tryUnlockWrite();
+            throw e;
+        }
+        size.incrementAndGet();
+
+        while (n.isOverflown(this)) {
+            Node<K, V> rightNode = n.split(this);
+            numNodes.incrementAndGet();
+            K separator = n.highKey;
+            Node<K, V> parent = path.poll();
+            if (parent == null) {
+                synchronized (rootLock) {
+                    if (root == n) {
+                        Node<K, V> newRoot = newInternalNode(n.level + 1);
+                        newRoot.kids[0] = n;
+                        newRoot.kids[1] = rightNode;
+                        newRoot.keys[0] = separator;
+                        newRoot.numKeys = 1;
+                        root = newRoot;
+                        height.incrementAndGet();
+                        numNodes.incrementAndGet();
+                        n.lock.tryUnlockWrite();
+                        return;
+                    }
+                }
+                // the root was split concurrently, so the parent is found from the new root
+                parent = findNodeAtLevel(n.level + 1, separator);
+            }
+
+            parent = lockForWrite(parent, separator);
+            n.lock.tryUnlockWrite();
+            parent.insertKid(separator, rightNode);
+            n = parent;
+        }
+        n.lock.tryUnlockWrite();
+    }
+
+    // write latches n and moves right, latch coupled, until n may contain key
+    private Node<K, V> lockForWrite(Node<K, V> n, K key) {
+        n.lock.writeLock();
+        while (n.isBeyond(key)) {
+            Node<K, V> right = n.right;
+            right.lock.writeLock();
+            n.lock.tryUnlockWrite();
+            n = right;
+        }
+        return n;
+    }
+
+    private Node<K, V> findNodeAtLevel(int level, K key) {
+        Node<K, V> n = root;
+        while (n.level > level) {
+            long stamp = n.lock.readLock();
+            Node<K, V> next;
+            try {
+                next = n.isBeyond(key) ? n.right : n.findKid(key);
+            }
+            finally {
+                n.lock.unlockRead(stamp);
+            }
+            n = next;
+        }
+        return n;
+    }
+
+    private Node<K, V> findLeaf(K key) {
+        return findNodeAtLevel(0, key);
+    }
+
+    @Override
+    public V search(K key) {
+        Node<K, V> n = findLeaf(key);
+        while (true) {
+            long stamp = n.lock.readLock();
+            Node<K, V> next;
+            try {
+                if (!n.isBeyond(key)) {
+                    int index = Arrays.binarySearch(n.keys, 0, n.numKeys, key);
+                    return index < 0 ? null : n.value(index);
+                }
+                next = n.right;
+            }
+            finally {
+                n.lock.unlockRead(stamp);
+            }
+            n = next;
+        }
+    }
+
+    /**
+     * Returns the values of the keys in [low, high]. The scan reads one leaf at a time, so it reflects concurrent inserts into leaves it has not reached yet.
+     * @param low the lower bound.
+     * @param high the upper bound.
+     * @return the stream of values.
+     */
+    @Override
+    public Stream<V> search(K low, K high) {
+        Node<K, V> first = findLeaf(low);
+        Iterator<List<V>> it = new Iterator<>() {
+            Node<K, V> leaf = first;
+
+            @Override
+            public boolean hasNext() {
+                return leaf != null;
+            }
+
+            @Override
+            public List<V> next() {
+                if (leaf == null)
+                    throw new NoSuchElementException("iterator exhausted");
+
+                Node<K, V> n = leaf;
+                long stamp = n.lock.readLock();
+                try {
+                    int from = Arrays.binarySearch(n.keys, 0, n.numKeys, low);
+                    from = from < 0 ? -from - 1 : from;
+                    int to = Arrays.binarySearch(n.keys, 0, n.numKeys, high);
+                    to = to < 0 ? -to - 1 : to + 1;
+                    leaf = n.highKey != null && n.highKey.compareTo(high) < 0 ? n.right : null;
+                    List<V> result = new ArrayList<>(Math.max(0, to - from));
+                    for (int i = from; i < to; i++)
+                        result.add(n.value(i));
+
+                    return result;
+                }
+                finally {
+                    n.lock.unlockRead(stamp);
+                }
+            }
+        };
+
+        return FuncUtils.stream(() -> it).flatMap(List::stream);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getHeight() {
+        return height.get();
+    }
+
+    public int getNumNodes() {
+        return numNodes.get();
+    }
+
+    public int getMinNodeKids() {
+        return minNodeKids;
+    }
+    public int getMinLeafEntries() {
+        return minLeafEntries;
+    }
+    public int getMaxNodeKids() {
+        return maxNodeKids;
+    }
+    public int getMaxLeafEntries() {
+        return maxLeafEntries;
+    }
+
+    private static final class Node<K extends Comparable<K>, V> {
+        private final StampedLock lock;
+        private final int level; // 0 for leaves
+        private final K[] keys;
+        private final Object[] values;
+        private final Node<K, V>[] kids;
+        private int numKeys;
+        private K highKey; // null for the rightmost node of a level
+        private Node<K, V> right;
+
+        private Node(int level, K[] keys, Object[] values, Node<K, V>[] kids) {
+            this.lock = new StampedLock();
+            this.level = level;
+            this.keys = keys;
+            this.values = values;
+            this.kids = kids;
+        }
+
+        private boolean isLeaf() {
+            return level == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V value(int index) {
+            return (V) values[index];
+        }
+
+        private boolean isBeyond(K key) {
+            return highKey != null && key.compareTo(highKey) > 0;
+        }
+
+        private boolean isOverflown(ConcurrentBPlusTree<K, V> tree) {
+            return isLeaf() ? numKeys > tree.maxLeafEntries : numKeys + 1 > tree.maxNodeKids;
+        }
+
+        private Node<K, V> findKid(K key) {
+            int index = Arrays.binarySearch(keys, 0, numKeys, key);
+            return kids[index < 0 ? -index - 1 : index];
+        }
+
+        private void addToLeaf(K key, V value) {
+            int index = -Arrays.binarySearch(keys, 0, numKeys, key) - 1;
+            if (index < 0)
+                throw new RuntimeException("duplicate keys exception: " + key);
+
+            System.arraycopy(keys, index, keys, index + 1, numKeys - index);
+            System.arraycopy(values, index, values, index + 1, numKeys - index);
+            keys[index] = key;
+            values[index] = value;
+            numKeys++;
+        }
+
+        private void insertKid(K separator, Node<K, V> kid) {
+            int index = -Arrays.binarySearch(keys, 0, numKeys, separator) - 1;
+            System.arraycopy(keys, index, keys, index + 1, numKeys - index);
+            System.arraycopy(kids, index + 1, kids, index + 2, numKeys - index);
+            keys[index] = separator;
+            kids[index + 1] = kid;
+            numKeys++;
+        }
+
+        // moves the upper half of this write latched node to a new right sibling and returns it
+        private Node<K, V> split(ConcurrentBPlusTree<K, V> tree) {
+            Node<K, V> rightNode;
+            K separator;
+            if (isLeaf()) {
+                int midIndex = numKeys >>> 1;
+                int rightSize = numKeys - midIndex;
+                rightNode = tree.newLeaf();
+                System.arraycopy(keys, midIndex, rightNode.keys, 0, rightSize);
+                System.arraycopy(values, midIndex, rightNode.values, 0, rightSize);
+                Arrays.fill(keys, midIndex, numKeys, null);
+                Arrays.fill(values, midIndex, numKeys, null);
+                rightNode.numKeys = rightSize;
+                numKeys = midIndex;
+                separator = keys[midIndex - 1];
+            }
+            else {
+                int midIndex = numKeys >>> 1;
+                if ((numKeys & 1) != 1)
+                    midIndex--;
+
+                int rightNumKeys = numKeys - midIndex - 1;
+                rightNode = tree.newInternalNode(level);
+                System.arraycopy(keys, midIndex + 1, rightNode.keys, 0, rightNumKeys);
+                System.arraycopy(kids, midIndex + 1, rightNode.kids, 0, rightNumKeys + 1);
+                separator = keys[midIndex];
+                Arrays.fill(keys, midIndex, numKeys, null);
+                Arrays.fill(kids, midIndex + 1, numKeys + 1, null);
+                rightNode.numKeys = rightNumKeys;
+                numKeys = midIndex;
+            }
+
+            rightNode.highKey = highKey;
+            rightNode.right = right;
+            highKey = separator;
+            right = rightNode;
+            return rightNode;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package datastructures.searchtrees;
+
+import utils.FuncUtils;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class LongBPlusTree {
+    private Node root;
+    private int size;
+    private int height;
+    private int numNodes;
+
+    private final int minNodeKids;
+    private final int minLeafEntries;
+    private final int maxNodeKids;
+    private final int maxLeafEntries;
+
+    public LongBPlusTree(int b, int c) {
+        if (c < 1 || b < 2)
+            throw new RuntimeException("invalid parameters");
+        this.minNodeKids = b;
+        this.minLeafEntries = c;
+        this.maxNodeKids = 2 * b - 1;
+        this.maxLeafEntries = 2 * c - 1;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    public void insert(long key, long value) {
+        Leaf leaf = findLeaf(key);
+        if (leaf == null) {
+            this.root = newLeaf(new long[maxLeafEntries + 1], new long[maxLeafEntries + 1], 0).add(key, value);
+            height++;
+            numNodes++;
+        }
+        else {
+            leaf.add(key, value);
+            Node n = leaf;
+            while (n.isOverflown())
+                n = n.split();
+        }
+        size++;
+    }
+
+    private Leaf newLeaf(long[] keys, long[] values, int size) {
+        return new Leaf(this, keys, values, size);
+    }
+
+    private InternalNode newInternalNode(int numKids) {
+        int capacity = Math.max(numKids, maxNodeKids + 1);
+        return new InternalNode(this, new long[capacity - 1], new Node[capacity]);
+    }
+
+    public static LongBPlusTree bulkLoad(long[] sortedKeys, long[] values, int b, int c) {
+        return bulkLoad(sortedKeys, values, b, c, false);
+    }
+
+    public static LongBPlusTree bulkLoadParallel(long[] sortedKeys, long[] values, int b, int c) {
+        return bulkLoad(sortedKeys, values, b, c, true);
+    }
+
+    /**
+     * Bulk loads a tree from keys sorted in ascending order and their values. The resulting tree has the same structure as BPlusTree.bulkLoad for the same entries.
+     * @param sortedKeys the keys sorted in ascending order.
+     * @param values the values, where values[i] belongs to sortedKeys[i].
+     * @param b the minimum number of kids of an internal node.
+     * @param c the minimum number of entries of a leaf.
+     * @param parallel true to build the nodes of each level in parallel.
+     * @return the loaded tree.
+     */
+    public static LongBPlusTree bulkLoad(long[] sortedKeys, long[] values, int b, int c, boolean parallel) {
+        if (sortedKeys.length != values.length)
+            throw new RuntimeException("keys.length != values.length");
+
+        LongBPlusTree tree = new LongBPlusTree(b, c);
+        int size = sortedKeys.length;
+        if (size == 0)
+            return tree;
+
+        int leafChunkSize = tree.maxLeafEntries;
+        int numLeaves = Math.max(1, size / leafChunkSize);
+        Node[] leaves = new Node[numLeaves];
+        range(numLeaves, parallel).forEach(i -> {
+            int from = i * leafChunkSize;
+            int to = i == numLeaves - 1 ? size : from + leafChunkSize;
+            int capacity = Math.max(to - from, tree.maxLeafEntries + 1);
+            long[] keys = new long[capacity];
+            long[] vals = new long[capacity];
+            System.arraycopy(sortedKeys, from, keys, 0, to - from);
+            System.arraycopy(values, from, vals, 0, to - from);
+            leaves[i] = tree.newLeaf(keys, vals, to - from);
+        });
+
+        Node[] nodes = leaves;
+        connectNodes(nodes);
+        int height = 1;
+        int numNodes = nodes.length;
+        Set<Node> potentialOverflows = new LinkedHashSet<>();
+        potentialOverflows.add(nodes[nodes.length - 1]);
+
+        int nodeChunkSize = tree.maxNodeKids;
+        while (nodes.length > 1) {
+            Node[] kids = nodes;
+            int numParents = Math.max(1, kids.length / nodeChunkSize);
+            Node[] parents = new Node[numParents];
+            range(numParents, parallel).forEach(i -> {
+                int from = i * nodeChunkSize;
+                int to = i == numParents - 1 ? kids.length : from + nodeChunkSize;
+                InternalNode parent = tree.newInternalNode(to - from);
+                for (int j = from; j < to; j++) {
+                    parent.addKid(kids[j]);
+                    if (j < to - 1)
+                        parent.addKey(subtreeMaxKey(kids[j]));
+                }
+                parents[i] = parent;
+            });
+
+            nodes = parents;
+            potentialOverflows.add(nodes[nodes.length - 1]);
+            height++;
+            numNodes += nodes.length;
+            connectNodes(nodes);
+        }
+
+        for (Node n : potentialOverflows) {
+            while (n.isOverflown()) {
+                n = n.split();
+                if (n == tree.root)
+                    height++;
+            }
+        }
+
+        if (tree.root == null)
+            tree.root = nodes[0];
+        tree.size = size;
+        tree.height = height;
+        tree.numNodes += numNodes;
+        return tree;
+    }
+
+    private static IntStream range(int n, boolean parallel) {
+        IntStream range = IntStream.range(0, n);
+        return parallel ? range.parallel() : range;
+    }
+
+    private static void connectNodes(Node[] nodes) {
+        for (int j = 1; j < nodes.length; j++) {
+            nodes[j - 1].right = nodes[j];
+            nodes[j].left = nodes[j - 1];
+        }
+    }
+
+    private static long subtreeMaxKey(Node node) {
+        while (!node.isLeaf())
+            node = node.asInternalNode().kids[node.asInternalNode().numKids - 1];
+
+        return node.keys[node.numKeys - 1];
+    }
+
+    public int getMinNodeKids() {
+        return minNodeKids;
+    }
+    public int getMinLeafEntries() {
+        return minLeafEntries;
+    }
+    public int getMaxNodeKids() {
+        return maxNodeKids;
+    }
+    public int getMaxLeafEntries() {
+        return maxLeafEntries;
+    }
+
+    private Leaf findLeaf(long key) {
+        if (root == null)
+            return null;
+
+        Node n = root;
+        while (!n.isLeaf())
+            n = n.asInternalNode().findKid(key);
+
+        return n.asLeafNode();
+    }
+
+    public boolean containsKey(long key) {
+        Leaf leaf = findLeaf(key);
+        return leaf != null && leaf.indexOf(key) >= 0;
+    }
+
+    public OptionalLong search(long key) {
+        Leaf leaf = findLeaf(key);
+        return leaf != null ? leaf.search(key) : OptionalLong.empty();
+    }
+
+    public LongStream search(long low, long high) {
+        Leaf first = findLeaf(low);
+        if (first == null)
+            return LongStream.empty();
+
+        return FuncUtils.stream(() -> new Iterator<LongStream>() {
+            Leaf leaf = first;
+
+            @Override
+            public boolean hasNext() {
+                return leaf != null;
+            }
+
+            @Override
+            public LongStream next() {
+                if (leaf == null)
+                    throw new NoSuchElementException("iterator exhausted");
+
+                Leaf current = leaf;
+                int from = current.lowerBound(low);
+                int to = current.upperBound(high);
+                leaf = to == current.numKeys ? current.getRight() : null;
+                return from < to ? Arrays.stream(current.values, from, to) : LongStream.empty();
+            }
+        }).flatMapToLong(s -> s);
+    }
+
+    public Iterator<List<Node>> bottomUpLevelIterator() {
+        if (root == null)
+            return Collections.emptyIterator();
+
+        Node n = root;
+        while (!n.isLeaf())
+            n = n.asInternalNode().kids[0];
+
+        final Node fn = n;
+        return new Iterator<>() {
+            Node node = fn;
+
+            @Override
+            public boolean hasNext() {
+                return node != null;
+            }
+
+            @Override
+            public List<Node> next() {
+                List<Node> levelNodes = new ArrayList<>();
+                Node n0 = node;
+                while (node != null) {
+                    levelNodes.add(node);
+                    node = node.right;
+                }
+                node = n0.parent;
+                return levelNodes;
+            }
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    public static abstract class Node {
+        protected final LongBPlusTree tree;
+        protected InternalNode parent;
+        protected Node left;
+        protected Node right;
+        protected long[] keys;
+        protected int numKeys;
+        protected int slot; // the index of this node in parent.kids
+
+        protected Node(LongBPlusTree tree, long[] keys, int numKeys) {
+            this.tree = tree;
+            this.keys = keys;
+            this.numKeys = numKeys;
+        }
+        protected abstract boolean isOverflown();
+        protected abstract InternalNode split();
+        public abstract boolean isLeaf();
+
+        public int size() {
+            return numKeys;
+        }
+        public final InternalNode asInternalNode() {
+            return (InternalNode) this;
+        }
+
+        public final Leaf asLeafNode() {
+            return (Leaf) this;
+        }
+
+        public boolean isAboveLeaf() {
+            return !isLeaf() && asInternalNode().kids[0].isLeaf();
+        }
+
+        protected InternalNode adjustParent(long separator, Node rightNode) {
+            if (parent == null) {
+                var _root = tree.newInternalNode(2);
+                _root.addKid(this);
+                _root.addKid(rightNode);
+                _root.addKey(separator);
+                tree.root = _root;
+                tree.height++;
+                tree.numNodes++;
+                return _root;
+            }
+
+            parent.insertKid(slot, separator, rightNode);
+            return parent;
+        }
+
+        protected void linkRight(Node rightNode) {
+            rightNode.left = this;
+            rightNode.right = right;
+            if (right != null)
+                right.left = rightNode;
+            right = rightNode;
+        }
+
+        public InternalNode getParent() {
+            return parent;
+        }
+        public Node getLeft() {
+            return left;
+        }
+        public Node getRight() {
+            return right;
+        }
+
+        /**
+         * Returns a copy of the keys of this node.
+         * @return the keys.
+         */
+        public long[] getKeys() {
+            return Arrays.copyOf(keys, numKeys);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(getKeys());
+        }
+    }
+
+    public static class InternalNode extends Node {
+        protected Node[] kids;
+        protected int numKids;
+
+        protected InternalNode(LongBPlusTree tree, long[] keys, Node[] kids) {
+            super(tree, keys, 0);
+            this.kids = kids;
+        }
+
+        @Override
+        protected boolean isOverflown() {
+            return numKids > tree.maxNodeKids;
+        }
+
+        public Node findKid(long key) {
+            int index = Arrays.binarySearch(keys, 0, numKeys, key);
+            if (index < 0)
+                return kids[-index - 1];
+
+            return kids[index];
+        }
+
+        protected void addKid(Node kid) {
+            if (numKids == kids.length)
+                kids = Arrays.copyOf(kids, numKids << 1);
+
+            kid.parent = this;
+            kid.slot = numKids;
+            kids[numKids++] = kid;
+        }
+
+        protected void addKey(long key) {
+            if (numKeys == keys.length)
+                keys = Arrays.copyOf(keys, numKeys << 1);
+
+            keys[numKeys++] = key;
+        }
+
+        protected void insertKid(int leftKidSlot, long separator, Node kid) {
+            if (numKids == kids.length) {
+                kids = Arrays.copyOf(kids, numKids << 1);
+                keys = Arrays.copyOf(keys, numKids << 1);
+            }
+
+            int kidSlot = leftKidSlot + 1;
+            System.arraycopy(keys, leftKidSlot, keys, kidSlot, numKeys - leftKidSlot);
+            System.arraycopy(kids, kidSlot, kids, kidSlot + 1, numKids - kidSlot);
+            keys[leftKidSlot] = separator;
+            kids[kidSlot] = kid;
+            kid.parent = this;
+            numKeys++;
+            numKids++;
+            for (int i = kidSlot; i < numKids; i++)
+                kids[i].slot = i;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return false;
+        }
+
+        @Override
+        protected InternalNode split() {
+            tree.numNodes++;
+            int keySize = numKeys;
+            int midIndex = keySize >>> 1;
+            if ((keySize & 1) != 1)
+                midIndex--;
+
+            int rightNumKeys = keySize - midIndex - 1;
+            int rightNumKids = numKids - midIndex - 1;
+            var rightNode = tree.newInternalNode(rightNumKids);
+            System.arraycopy(keys, midIndex + 1, rightNode.keys, 0, rightNumKeys);
+            rightNode.numKeys = rightNumKeys;
+            for (int i = 0; i < rightNumKids; i++)
+                rightNode.addKid(kids[midIndex + 1 + i]);
+
+            long separator = keys[midIndex];
+            Arrays.fill(kids, midIndex + 1, numKids, null);
+            numKeys = midIndex;
+            numKids = midIndex + 1;
+            linkRight(rightNode);
+            return adjustParent(separator, rightNode);
+        }
+
+        @Override
+        public InternalNode getLeft() {
+            return left != null? left.asInternalNode() : null;
+        }
+        @Override
+        public InternalNode getRight() {
+            return right != null? right.asInternalNode() : null;
+        }
+        public List<Node> getKids() {
+            return Collections.unmodifiableList(Arrays.asList(kids).subList(0, numKids));
+        }
+    }
+
+    public static class Leaf extends Node {
+        protected long[] values;
+
+        protected Leaf(LongBPlusTree tree, long[] keys, long[] values, int size) {
+            super(tree, keys, size);
+            this.values = values;
+        }
+
+        @Override
+        protected boolean isOverflown() {
+            return numKeys > tree.maxLeafEntries;
+        }
+
+        protected Leaf add(long key, long value) {
+            int index = -Arrays.binarySearch(keys, 0, numKeys, key) - 1;
+            if (index < 0)
+                throw new RuntimeException("duplicate keys exception: " + key);
+
+            if (numKeys == keys.length) {
+                keys = Arrays.copyOf(keys, numKeys << 1);
+                values = Arrays.copyOf(values, numKeys << 1);
+            }
+            System.arraycopy(keys, index, keys, index + 1, numKeys - index);
+            System.arraycopy(values, index, values, index + 1, numKeys - index);
+            keys[index] = key;
+            values[index] = value;
+            numKeys++;
+            return this;
+        }
+
+        protected int indexOf(long key) {
+            return Arrays.binarySearch(keys, 0, numKeys, key);
+        }
+
+        // the index of the first key >= low
+        protected int lowerBound(long low) {
+            int index = indexOf(low);
+            return index < 0 ? -index - 1 : index;
+        }
+
+        // the index after the last key <= high
+        protected int upperBound(long high) {
+            int index = indexOf(high);
+            return index < 0 ? -index - 1 : index + 1;
+        }
+
+        public OptionalLong search(long key) {
+            int index = indexOf(key);
+            if (index < 0)
+                return OptionalLong.empty();
+
+            return OptionalLong.of(values[index]);
+        }
+
+        @Override
+        public Leaf getLeft() {
+            return left == null ? null : left.asLeafNode();
+        }
+
+        @Override
+        public Leaf getRight() {
+            return right == null ? null : right.asLeafNode();
+        }
+
+        @Override
+        protected InternalNode split() {
+            tree.numNodes++;
+            int keySize = numKeys;
+            int midIndex = keySize >>> 1;
+            int rightSize = keySize - midIndex;
+            int capacity = Math.max(rightSize, tree.maxLeafEntries + 1);
+            long[] rightKeys = new long[capacity];
+            long[] rightValues = new long[capacity];
+            System.arraycopy(keys, midIndex, rightKeys, 0, rightSize);
+            System.arraycopy(values, midIndex, rightValues, 0, rightSize);
+            numKeys = midIndex;
+
+            var rightLeaf = tree.newLeaf(rightKeys, rightValues, rightSize);
+            linkRight(rightLeaf);
+            return adjustParent(keys[midIndex - 1], rightLeaf);
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return true;
+        }
+
+        /**
+         * Returns a copy of the values of this leaf.
+         * @return the values.
+         */
+        public long[] getValues() {
+            return Arrays.copyOf(values, numKeys);
+        }
+    }
+}
@@ -80,19 +80,39 @@ public class PayloadDistanceCoder implements Coder<AddressedDNA, AddressedDNA> {
 
     @Override
     public AddressedDNA encode(AddressedDNA addressedDNA) {
+        ScoredAddressedDNA encoded = encodeUncommitted(addressedDNA);
+        commit(encoded);
+        return encoded;
+    }
+
+    /**
+     * Inserts an oligo encoded by encodeUncommitted(...) into the LSH, as encode(...) does.
+     * @param encoded the encoded oligo.
+     */
+    public void commit(ScoredAddressedDNA encoded) {
+        if (payloadPermutations <= 0)
+            lsh.insert(encoded.oligo);
+        else
+            insertIntoLSH(encoded.oligo);
+    }
+
+    /**
+     * Encodes like encode(...), but does not insert the encoded oligo into the LSH, e.g., for a trial that may be discarded. Use commit(...) to keep it.
+     * @param addressedDNA the addressed payload.
+     * @return the encoded and scored oligo.
+     */
+    public ScoredAddressedDNA encodeUncommitted(AddressedDNA addressedDNA) {
         if (payloadPermutations <= 0) {
             BaseSequence payload = addressedDNA.payload();
             BaseSequence paddedPayload = payloadEccCoder.encode(BaseSequence.join(GCFiller.getTrimmedFiller(payload, permutationOverhead), payload));
-            ScoredAddressedDNA encoded = new ScoredAddressedDNA(addressedDNA.address(), paddedPayload);
-            lsh.insert(encoded.oligo);
-            return encoded;
+            return new ScoredAddressedDNA(addressedDNA.address(), paddedPayload);
         }
 
         var payload = addressedDNA.payload();
         var address = addressedDNA.address();
         long seed = payload.seed();
         int payloadLength = payload.length();
-        var encoded = FuncUtils.stream(IntStream.range(0, payloadPermutations), parallel)
+        return FuncUtils.stream(IntStream.range(0, payloadPermutations), parallel)
                 .mapToObj(i -> {
                     BaseSequence payloadPermuted = payload.permute(FuncUtils.getUniformPermutation(seed + i, payloadLength));
                     BaseSequence resultPayload = DNAPacker.pack(i, lb);
@@ -102,9 +122,6 @@ public class PayloadDistanceCoder implements Coder<AddressedDNA, AddressedDNA> {
                 .peek(jad -> jad.score = score(jad.oligo))
                 .max(Comparator.comparing(ad -> ad.score))
                 .orElseThrow();
-
-        insertIntoLSH(encoded.oligo);
-        return encoded;
     }
 
     public float score(BaseSequence seq) {
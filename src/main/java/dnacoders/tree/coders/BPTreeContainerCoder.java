@@ -2,11 +2,10 @@ package dnacoders.tree.coders;
 
 import core.Base;
 import core.BaseSequence;
-import datastructures.container.BlockingContainer;
-import datastructures.container.Container;
 import datastructures.container.DNAContainer;
 import datastructures.reference.DNAPointer;
 import datastructures.searchtrees.BPlusTree;
+import datastructures.searchtrees.LongBPlusTree;
 import dnacoders.tree.encodednodestorage.EncodedNodeContainerStorage;
 import dnacoders.tree.wrappers.node.DecodedInternalNodeAboveLeaf;
 import dnacoders.tree.wrappers.node.DecodedLeafNode;
@@ -19,8 +18,7 @@ import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -29,6 +27,7 @@ public class BPTreeContainerCoder<K extends Comparable<K>, V> implements BPTreeA
     public static final Base LEAF_MARKER_BASE = Base.G;
     public static final Base INTERNAL_NODE_HAS_RIGHT_MARKER = Base.C;
     public static final Base INTERNAL_NODE_HAS_NO_RIGHT_MARKER = Base.T;
+    private static final long NO_RIGHT_ID = -1L;
 
     private final DNAContainer container;
     private final Coder<List<K>, BaseSequence> keyCoder;
@@ -69,109 +68,100 @@ public class BPTreeContainerCoder<K extends Comparable<K>, V> implements BPTreeA
         ArrayBlockingQueue<Long> queue = new ArrayBlockingQueue<>(numIds);
         queue.addAll(ids);
 
-        Iterator<List<BPlusTree.Node<K, V>>> it = tree.bottomUpLevelIterator();
-        List<BPlusTree.Node<K, V>> leaves = it.next();
-
-        Container<BPlusTree.Node<K, V>, Future<EncodedNode<DNAPointer.ContainerDNAPointer>>> map = new BlockingContainer<>(new Container.MapContainer<>());
-
-        ListIterator<BPlusTree.Node<K, V>> leavesIt = leaves.listIterator(leaves.size());
-        BPlusTree.Node<K, V> right = leavesIt.previous();
-        BPlusTree.Node<K, V> left = leavesIt.previous();
-        BPlusTree.InternalNode<K, V> parent = right.getParent();
-
-        Future<EncodedNode<DNAPointer.ContainerDNAPointer>> encodedRightLeaf = pool.submit(() -> encodeNode(FuncUtils.safeCall(queue::poll), right, null, null));
-        LinkedList<Future<EncodedNode<DNAPointer.ContainerDNAPointer>>> encodedLeaves = new LinkedList<>();
-        encodedLeaves.add(encodedRightLeaf);
-        Future<EncodedNode<DNAPointer.ContainerDNAPointer>> encodedRightParent = null;
-        do {
-            if (left.getParent() != parent) {
-                BPlusTree.InternalNode<K, V> finalParent = parent;
-                Future<EncodedNode<DNAPointer.ContainerDNAPointer>> finalEncodedRightParent = encodedRightParent;
-                LinkedList<Future<EncodedNode<DNAPointer.ContainerDNAPointer>>> finalEncodedLeaves = encodedLeaves;
-                Future<EncodedNode<DNAPointer.ContainerDNAPointer>> encodedParent = pool.submit(
-                        () -> encodeNode(
-                                FuncUtils.safeCall(queue::poll),
-                                finalParent,
-                                finalEncodedRightParent != null ? finalEncodedRightParent.get().sketch().id() : null,
-                                finalEncodedLeaves.stream().map(f -> FuncUtils.safeCall(f::get)).map(en -> en.sketch().id()).toList()
-                        )
-                );
-                BPlusTree.InternalNode<K, V> finalParent3 = parent;
-                pool.submit(() -> map.put(finalParent3, encodedParent));
-                encodedLeaves = new LinkedList<>();
-                parent = left.getParent();
-                encodedRightParent = encodedParent;
-            }
-
-            BPlusTree.Node<K, V> finalLeft = left;
-
-            encodedRightLeaf = pool.submit(() -> encodeNode(FuncUtils.safeCall(queue::poll), finalLeft, null, null));
-            encodedLeaves.addFirst(encodedRightLeaf);
-            left = left.getLeft();
-            if (left == null) {
-                Future<EncodedNode<DNAPointer.ContainerDNAPointer>> finalEncodedRightParent1 = encodedRightParent;
-                BPlusTree.InternalNode<K, V> finalParent1 = parent;
-                LinkedList<Future<EncodedNode<DNAPointer.ContainerDNAPointer>>> finalEncodedLeaves1 = encodedLeaves;
-                Future<EncodedNode<DNAPointer.ContainerDNAPointer>> encodedParent = pool.submit(() -> encodeNode(FuncUtils.safeCall(queue::poll), finalParent1, finalEncodedRightParent1 != null ? finalEncodedRightParent1.get().sketch().id() : null, finalEncodedLeaves1.stream().map(f -> FuncUtils.safeCall(f::get)).map(en -> en.sketch().id()).toList()));
-                pool.submit(() -> map.put(finalParent1, encodedParent));
-                break;
-            }
-        } while (true);
-
-
-        parent = leaves.get(0).getParent();
-        Set<BPlusTree.InternalNode<K, V>> nodeGroups;
-        while (parent.getParent() != null) {
-            nodeGroups = Stream.iterate(parent, Objects::nonNull, BPlusTree.InternalNode::getRight).map(BPlusTree.Node::getParent).collect(Collectors.toSet());
-            nodeGroups.forEach(p -> {
-                Future<EncodedNode<DNAPointer.ContainerDNAPointer>> encodedParent = pool.submit(
-                        () -> {
-                            var r = encodeNode(
-                                    FuncUtils.safeCall(queue::poll),
-                                    p,
-                                    null,
-                                    p.getKids().stream().map(map::get).map(f -> FuncUtils.safeCall(f::get)).map(en -> en.sketch().id()).toList()
-                            );
-                            p.getKids().forEach(map::remove);
-                            return r;
-                        }
-                );
-                pool.submit(() -> map.put(p, encodedParent));
-            });
-
-            parent = parent.getParent();
-            if (parent == null)
-                break;
-
-           // nodeGroups.forEach(node -> pool.submit(() -> node.getKids().forEach(map::remove)));
+        EncodedNode<DNAPointer.ContainerDNAPointer> root;
+        try {
+            root = ChainedBPTreeEncoder.<K, V, EncodedNode<DNAPointer.ContainerDNAPointer>>encode(tree, pool, (node, encodedRight, encodedKids) -> encodeNode(
+                    queue.poll(),
+                    node,
+                    encodedRight != null ? encodedRight.sketch().id() : null,
+                    encodedKids != null ? encodedKids.stream().map(en -> en.sketch().id()).toList() : null
+            ));
         }
-        pool.close();
-        return new LNALContainerEncodedTree<>(new EncodedNodeContainerStorage(container, map.get(tree.getRoot()).resultNow().sketch().id(), ids), this::decodedNode);
+        finally {
+            pool.close();
+        }
+        return new LNALContainerEncodedTree<>(new EncodedNodeContainerStorage(container, root.sketch().id(), ids), this::decodedNode);
+    }
+
+    /**
+     * Encodes a tree with primitive long keys and values. Every node gets its id up front, so all nodes are encoded independently in parallel,
+     * and the keys and values are encoded with the given primitive coders without boxing them.
+     * To decode the returned tree, this coder's key and value coders must decode the same format, e.g., LongArrayCoder.boxed().
+     * @param tree the tree.
+     * @param longKeyCoder the coder for the keys of a node.
+     * @param longValueCoder the coder for the values of a leaf.
+     * @return the encoded tree.
+     */
+    public LNALContainerEncodedTree<K, V> encode(LongBPlusTree tree, Coder<long[], BaseSequence> longKeyCoder, Coder<long[], BaseSequence> longValueCoder) {
+        if (tree == null || tree.size() <= 0)
+            return new LNALContainerEncodedTree<>(new EncodedNodeContainerStorage(container, -1L, Collections.singleton(-1L)), this::decodedNode);
+
+        List<List<LongBPlusTree.Node>> levels = new ArrayList<>(tree.getHeight());
+        tree.bottomUpLevelIterator().forEachRemaining(levels::add);
+        int[] levelsOffsets = new int[levels.size() + 1];
+        for (int l = 0; l < levels.size(); l++)
+            levelsOffsets[l + 1] = levelsOffsets[l] + levels.get(l).size();
+
+        long[] ids = container.registerIds(levelsOffsets[levels.size()]);
+        List<LongBPlusTree.Node> leaves = levels.getFirst();
+        IntStream.range(0, leaves.size()).parallel().forEach(i -> {
+            LongBPlusTree.Leaf leaf = leaves.get(i).asLeafNode();
+            encodeLeaf(ids[i], longKeyCoder.encode(leaf.getKeys()), longValueCoder.encode(leaf.getValues()));
+        });
+
+        for (int l = 1; l < levels.size(); l++) {
+            List<LongBPlusTree.Node> nodes = levels.get(l);
+            int offset = levelsOffsets[l];
+            boolean aboveLeaves = l == 1;
+            int[] kidsOffsets = new int[nodes.size() + 1];
+            kidsOffsets[0] = levelsOffsets[l - 1];
+            for (int i = 0; i < nodes.size(); i++)
+                kidsOffsets[i + 1] = kidsOffsets[i] + nodes.get(i).asInternalNode().getKids().size();
+
+            IntStream.range(0, nodes.size()).parallel().forEach(i -> encodeInternalNode(
+                    ids[offset + i],
+                    longKeyCoder.encode(nodes.get(i).getKeys()),
+                    aboveLeaves && i < nodes.size() - 1 ? ids[offset + i + 1] : NO_RIGHT_ID,
+                    Arrays.copyOfRange(ids, kidsOffsets[i], kidsOffsets[i + 1])
+            ));
+        }
+
+        return new LNALContainerEncodedTree<>(new EncodedNodeContainerStorage(container, ids[ids.length - 1], LongStream.of(ids).boxed().toList()), this::decodedNode);
     }
 
     public EncodedNode<DNAPointer.ContainerDNAPointer> encodeNode(long id, BPlusTree.Node<K, V> node, Long rightId, List<Long> kidIds) {
-        BaseSequence encoded = new BaseSequence();
         BaseSequence encodedKeys = keyCoder.encode(node.getKeys());
-        if (kidIds == null) {
-            encoded.append(LEAF_MARKER_BASE);
-            DNAPacker.packUnsigned(encoded, encodedKeys.length());
-            encoded.append(encodedKeys);
-            BaseSequence encodedValues = valueCoder.encode(node.asLeafNode().getValues());
-            encoded.append(encodedValues);
-            container.put(id, encoded);
-            var oligos = container.getOligos(id);
-            return new EncodedNode<>(true, Arrays.stream(oligos).map(AddressedDNA::payload).toArray(BaseSequence[]::new), new DNAPointer.ContainerDNAPointer(id, container), Arrays.stream(oligos).map(AddressedDNA::join).toArray(BaseSequence[]::new));
-        }
-        if (rightId != null) {
+        if (kidIds == null)
+            return encodeLeaf(id, encodedKeys, valueCoder.encode(node.asLeafNode().getValues()));
+
+        return encodeInternalNode(id, encodedKeys, rightId != null ? rightId : NO_RIGHT_ID, kidIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private EncodedNode<DNAPointer.ContainerDNAPointer> encodeLeaf(long id, BaseSequence encodedKeys, BaseSequence encodedValues) {
+        BaseSequence encoded = new BaseSequence();
+        encoded.append(LEAF_MARKER_BASE);
+        DNAPacker.packUnsigned(encoded, encodedKeys.length());
+        encoded.append(encodedKeys);
+        encoded.append(encodedValues);
+        container.put(id, encoded);
+        var oligos = container.getOligos(id);
+        return new EncodedNode<>(true, Arrays.stream(oligos).map(AddressedDNA::payload).toArray(BaseSequence[]::new), new DNAPointer.ContainerDNAPointer(id, container), Arrays.stream(oligos).map(AddressedDNA::join).toArray(BaseSequence[]::new));
+    }
+
+    private EncodedNode<DNAPointer.ContainerDNAPointer> encodeInternalNode(long id, BaseSequence encodedKeys, long rightId, long[] kidIds) {
+        BaseSequence encoded = new BaseSequence();
+        if (rightId != NO_RIGHT_ID) {
             encoded.append(INTERNAL_NODE_HAS_RIGHT_MARKER);
-            DNAPacker.packUnsigned(encoded, rightId);
+            DNAPacker.packUnsignedLong(encoded, rightId);
         }
         else {
             encoded.append(INTERNAL_NODE_HAS_NO_RIGHT_MARKER);
         }
 
-        DNAPacker.packUnsigned(encoded, kidIds.size());
-        DNAPacker.packUnsigned(encoded, kidIds);
+        DNAPacker.packUnsigned(encoded, kidIds.length);
+        for (long kidId : kidIds)
+            DNAPacker.packUnsignedLong(encoded, kidId);
+
         encoded.append(encodedKeys);
         container.put(id, encoded);
         var oligos = container.getOligos(id);
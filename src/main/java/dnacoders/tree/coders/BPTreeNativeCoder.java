@@ -4,10 +4,10 @@ import core.Base;
 import core.BaseSequence;
 import core.dnarules.BasicDNARules;
 import core.dnarules.DNARule;
-import datastructures.container.BlockingContainer;
-import datastructures.container.Container;
+import datastructures.KVEntry;
 import datastructures.reference.DNAPointer;
 import datastructures.searchtrees.BPlusTree;
+import datastructures.searchtrees.LongBPlusTree;
 import dnacoders.BasicSegmentationCoder;
 import dnacoders.PayloadDistanceCoder;
 import dnacoders.headercoders.BasicDNAPadder;
@@ -23,9 +23,15 @@ import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer> implements BPTreeAsymmetricCoder<K, V, S, BaseSequence[]> {
@@ -60,11 +66,18 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
 
     private final int seedTrials;
     private final float targetScore;
+    private final int trialParallelism;
+    private final long trialBudgetMillis;
 
     private final Coder<List<K>, BaseSequence> keyCoder;
     private final Coder<List<V>, BaseSequence> valueCoder;
     private final Coder<BaseSequence, BaseSequence[]> segmentationCoder;
     private final Coder<AddressedDNA[], AddressedDNA[]> distanceCoder;
+    private final PayloadDistanceCoder payloadDistanceCoder;
+
+    private final LongAdder encodedNodes = new LongAdder();
+    private final LongAdder nodeTrials = new LongAdder();
+    private final LongAdder nodeNanos = new LongAdder();
 
 
     private BPTreeNativeCoder(
@@ -83,6 +96,8 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
             Coder<List<V>, BaseSequence> valueCoder,
             int seedTrials,
             float targetScore,
+            int trialParallelism,
+            long trialBudgetMillis,
             IDNASketcher<S> sketcher,
             boolean isParallel,
             int numGcCorrections,
@@ -105,13 +120,15 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
         this.sketcher = sketcher;
         this.seedTrials = seedTrials;
         this.targetScore = targetScore;
+        this.trialParallelism = trialParallelism;
+        this.trialBudgetMillis = trialBudgetMillis;
         this.isParallel = isParallel;
         this.sketchCoder = sketcher.coder();
         this.numGcCorrections = numGcCorrections;
         this.partitionedPayload = partitionedPayload;
         this.partitionedPayloadSize = partitionedPayloadSize;
 
-        PayloadDistanceCoder payloadDistanceCoder = new PayloadDistanceCoder(false, partitionedPayload, partitionedPayloadSize, lsh, errorRule, payloadPermutations, errorWeight, distWeight);
+        this.payloadDistanceCoder = new PayloadDistanceCoder(false, partitionedPayload, partitionedPayloadSize, lsh, errorRule, payloadPermutations, errorWeight, distWeight);
 
         this.segmentationCoder = new BasicSegmentationCoder(
                 payloadSize - payloadDistanceCoder.permutationOverhead(),
@@ -209,175 +226,371 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
         }
 
 
-        Iterator<List<BPlusTree.Node<K, V>>> it = tree.bottomUpLevelIterator();
-        List<BPlusTree.Node<K, V>> leaves = it.next();
+        EncodedNode<S> root;
+        try {
+            root = ChainedBPTreeEncoder.encode(tree, pool, (node, encodedRight, encodedKids) -> encodeNode(node, encodedRight, encodedKids, nodesQueue));
+        }
+        finally {
+            pool.close();
+        }
 
-        Container<BPlusTree.Node<K, V>, Future<EncodedNode<S>>> map = new BlockingContainer<>(new Container.MapContainer<>());
+        return new LNALNativeEncodedTree<>(this::decodeNode, new EncodedNodeNativeMapStorage<>(nodesQueue.stream().toList(), root, isParallel));
+    }
 
-        ListIterator<BPlusTree.Node<K, V>> leavesIt = leaves.listIterator(leaves.size());
-        BPlusTree.Node<K, V> right = leavesIt.previous();
-        BPlusTree.Node<K, V> left = leavesIt.previous();
-        BPlusTree.InternalNode<K, V> parent = right.getParent();
+    public Stream<DecodedNode<K, S>> decodeOligoStream(Stream<BaseSequence[]> oligos) {
+        int addrSize = getAddressSize();
+        return oligos.map(as -> Arrays.stream(as).map(s -> new AddressedDNA(s.window(0, addrSize), s.window(addrSize))).toArray(AddressedDNA[]::new)).map(this::decodeOligos);
+    }
 
-        Future<EncodedNode<S>> encodedRightLeaf = pool.submit(() -> encodeNode(right, null, null, nodesQueue));
-        LinkedList<Future<EncodedNode<S>>> encodedLeaves = new LinkedList<>();
-        encodedLeaves.add(encodedRightLeaf);
-        Future<EncodedNode<S>> encodedRightParent = null;
-        do {
-            if (left.getParent() != parent) {
-                BPlusTree.InternalNode<K, V> finalParent = parent;
-                Future<EncodedNode<S>> finalEncodedRightParent = encodedRightParent;
-                LinkedList<Future<EncodedNode<S>>> finalEncodedLeaves = encodedLeaves;
-                Future<EncodedNode<S>> encodedParent = pool.submit(
-                        () -> encodeNode(
-                                finalParent,
-                                finalEncodedRightParent != null ? finalEncodedRightParent.get() : null,
-                                finalEncodedLeaves.stream().map(f -> FuncUtils.safeCall(f::get)).toList(),
-                                nodesQueue
-                        )
-                );
-                BPlusTree.InternalNode<K, V> finalParent3 = parent;
-                pool.submit(() -> map.put(finalParent3, encodedParent));
-                encodedLeaves = new LinkedList<>();
-                parent = left.getParent();
-                encodedRightParent = encodedParent;
-            }
+    @Override
+    public Stream<DecodedNode<K, S>> decode(EncodedBPTree<K, V, BaseSequence[], S> encodedTree) {
+        return encodedTree.getEncodedNodeStorage().stream().map(this::decodeNode);
+    }
 
-            BPlusTree.Node<K, V> finalLeft = left;
+    /**
+     * Encodes a tree from a stream of entries sorted by key without building a BPlusTree first. The leaves are encoded in batches while the stream is consumed,
+     * and each upper level is built only from the encoded sketches and maximum keys of the level below it.
+     * @param sortedStream the stream of entries sorted by key in ascending order.
+     * @param b the minimum number of kids of an internal node, as in BPlusTree.
+     * @param c the minimum number of entries of a leaf, as in BPlusTree.
+     * @return the encoded tree.
+     */
+    public LNALNativeEncodedTree<K, V, S> encodeSorted(Stream<KVEntry<K, V>> sortedStream, int b, int c) {
+        Queue<EncodedNode<S>> nodesQueue = new ConcurrentLinkedQueue<>();
+        EncodedNode<S> root = encodeSorted(sortedStream, b, c, Builder.DEFAULT_STREAMING_BATCH_SIZE, nodesQueue::add);
+        return new LNALNativeEncodedTree<>(this::decodeNode, new EncodedNodeNativeMapStorage<>(new ArrayList<>(nodesQueue), root, isParallel));
+    }
 
-            encodedRightLeaf = pool.submit(() -> encodeNode(finalLeft, null, null, nodesQueue));
-            encodedLeaves.addFirst(encodedRightLeaf);
-            left = left.getLeft();
-            if (left == null) {
-                Future<EncodedNode<S>> finalEncodedRightParent1 = encodedRightParent;
-                BPlusTree.InternalNode<K, V> finalParent1 = parent;
-                LinkedList<Future<EncodedNode<S>>> finalEncodedLeaves1 = encodedLeaves;
-                Future<EncodedNode<S>> encodedParent = pool.submit(() -> encodeNode(finalParent1, finalEncodedRightParent1 != null ? finalEncodedRightParent1.get() : null, finalEncodedLeaves1.stream().map(f -> FuncUtils.safeCall(f::get)).toList(), nodesQueue));
-                pool.submit(() -> map.put(finalParent1, encodedParent));
-                break;
+    /**
+     * Encodes a tree from a stream of entries sorted by key and emits every encoded node to the given sink instead of keeping it.
+     * At most batchSize leaves are held in memory at once, and only the encoded sketch and the maximum key is retained per node of the level being built.
+     * @param sortedStream the stream of entries sorted by key in ascending order.
+     * @param b the minimum number of kids of an internal node, as in BPlusTree.
+     * @param c the minimum number of entries of a leaf, as in BPlusTree.
+     * @param batchSize the number of leaves encoded per batch.
+     * @param sink the consumer of encoded nodes. Must be thread-safe if this coder is parallel.
+     * @return the encoded root node, or null if the stream is empty.
+     */
+    public EncodedNode<S> encodeSorted(Stream<KVEntry<K, V>> sortedStream, int b, int c, int batchSize, Consumer<EncodedNode<S>> sink) {
+        if (b < 2 || c < 1 || batchSize < 1)
+            throw new RuntimeException("invalid parameters");
+
+        int maxLeafEntries = 2 * c - 1;
+        int maxNodeKids = 2 * b - 1;
+        List<LevelEntry<K>> level = new ArrayList<>();
+        List<List<KVEntry<K, V>>> batch = new ArrayList<>(batchSize);
+        Iterator<KVEntry<K, V>> it = sortedStream.iterator();
+        List<KVEntry<K, V>> pending = nextChunk(it, maxLeafEntries);
+        while (!pending.isEmpty()) {
+            List<KVEntry<K, V>> next = nextChunk(it, maxLeafEntries);
+            if (!next.isEmpty() && next.size() < c) {
+                int total = pending.size() + next.size();
+                List<KVEntry<K, V>> merged = new ArrayList<>(total);
+                merged.addAll(pending);
+                merged.addAll(next);
+                pending = merged.subList(0, total / 2);
+                next = merged.subList(total / 2, total);
             }
-        } while (true);
+            if (level.isEmpty() && batch.isEmpty() && next.isEmpty())
+                return encodeLeafChunk(pending, sink);
 
+            batch.add(pending);
+            if (batch.size() >= batchSize || next.isEmpty()) {
+                level.addAll(encodeLeavesBatch(batch, sink));
+                batch = new ArrayList<>(batchSize);
+            }
+            pending = next;
+        }
 
-        parent = leaves.get(0).getParent();
-        Set<BPlusTree.InternalNode<K, V>> nodeGroups;
-        while (parent.getParent() != null) {
-            nodeGroups = Stream.iterate(parent, Objects::nonNull, BPlusTree.InternalNode::getRight).map(BPlusTree.Node::getParent).collect(Collectors.toSet());
-            nodeGroups.forEach(p -> {
-                Future<EncodedNode<S>> encodedParent = pool.submit(
-                        () -> {
-                            var r = encodeNode(
-                                    p,
-                                    null,
-                                    p.getKids().stream().map(map::get).map(f -> FuncUtils.safeCall(f::get)).toList(),
-                                    nodesQueue
-                            );
-                            p.getKids().forEach(map::remove);
-                            return r;
-                        }
-                );
-                pool.submit(() -> map.put(p, encodedParent));
-            });
+        if (level.isEmpty())
+            return null;
+
+        // the levels only hold the maximum keys and encoded sketches, and the last level encoded is the root
+        EncodedNode<S> root = null;
+        boolean aboveLeaves = true;
+        while (level.size() > 1) {
+            List<LevelEntry<K>> nextLevel = new ArrayList<>();
+            root = encodeLevel(groupLevel(level, b, maxNodeKids), nextLevel, aboveLeaves, sink);
+            level = nextLevel;
+            aboveLeaves = false;
+        }
 
-            parent = parent.getParent();
-            if (parent == null)
-                break;
+        return root;
+    }
 
-            //nodeGroups.forEach(node -> pool.submit(() -> node.getKids().forEach(map::remove)));
+    private static <T> List<T> nextChunk(Iterator<T> it, int chunkSize) {
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && it.hasNext())
+            chunk.add(it.next());
+
+        return chunk;
+    }
+
+    private List<LevelEntry<K>> encodeLeavesBatch(List<List<KVEntry<K, V>>> batch, Consumer<EncodedNode<S>> sink) {
+        return FuncUtils.stream(batch.stream(), isParallel)
+                .map(chunk -> new LevelEntry<K>(chunk.getLast().key(), sketchCoder.encode(encodeLeafChunk(chunk, sink).sketch())))
+                .toList();
+    }
+
+    private EncodedNode<S> encodeLeafChunk(List<KVEntry<K, V>> chunk, Consumer<EncodedNode<S>> sink) {
+        List<K> keys = chunk.stream().map(KVEntry::key).toList();
+        List<V> values = chunk.stream().map(KVEntry::value).toList();
+        return encodeLeaf(keyCoder.encode(keys), valueCoder.encode(values), sink);
+    }
+
+    private static <T> List<List<T>> groupLevel(List<T> level, int minKids, int maxKids) {
+        int size = level.size();
+        List<List<T>> groups = new ArrayList<>(size / maxKids + 1);
+        for (int i = 0; i < size; i += maxKids)
+            groups.add(level.subList(i, Math.min(size, i + maxKids)));
+
+        int numGroups = groups.size();
+        if (numGroups > 1 && groups.getLast().size() < minKids) {
+            int start = (numGroups - 2) * maxKids;
+            int mid = start + (size - start) / 2;
+            groups.set(numGroups - 2, level.subList(start, mid));
+            groups.set(numGroups - 1, level.subList(mid, size));
         }
-        pool.close();
+        return groups;
+    }
+
+    // adds the entries of the encoded nodes to nextLevel, and returns the root if the level consists of a single node, or null otherwise
+    private EncodedNode<S> encodeLevel(List<List<LevelEntry<K>>> groups, List<LevelEntry<K>> nextLevel, boolean aboveLeaves, Consumer<EncodedNode<S>> sink) {
+        BaseSequence[] encodedSketches = new BaseSequence[groups.size()];
+        EncodedNode<S> root = encodeInternalLevel(
+                groups.size(),
+                i -> {
+                    List<LevelEntry<K>> kids = groups.get(i);
+                    return keyCoder.encode(kids.subList(0, kids.size() - 1).stream().map(LevelEntry::maxKey).toList());
+                },
+                i -> groups.get(i).stream().map(LevelEntry::encodedSketch).toList(),
+                encodedSketches,
+                aboveLeaves,
+                sink
+        );
+
+        for (int i = 0; i < encodedSketches.length; i++)
+            nextLevel.add(new LevelEntry<>(groups.get(i).getLast().maxKey(), encodedSketches[i]));
 
-        List<EncodedNode<S>> nodes = nodesQueue.stream().toList();
-        return new LNALNativeEncodedTree<>(this::decodeNode, new EncodedNodeNativeMapStorage<>(nodes, nodes.getLast(), isParallel));
+        return root;
     }
 
-    public Stream<DecodedNode<K, S>> decodeOligoStream(Stream<BaseSequence[]> oligos) {
-        int addrSize = getAddressSize();
-        return oligos.map(as -> Arrays.stream(as).map(s -> new AddressedDNA(s.window(0, addrSize), s.window(addrSize))).toArray(AddressedDNA[]::new)).map(this::decodeOligos);
+    // emits the encoded nodes of a level to the sink and fills encodedSketches, so only the sketches of the level are retained. Returns the root if the level consists of a single node, or null otherwise
+    private EncodedNode<S> encodeInternalLevel(int numNodes, IntFunction<BaseSequence> encodedKeys, IntFunction<List<BaseSequence>> encodedKidsSketches, BaseSequence[] encodedSketches, boolean aboveLeaves, Consumer<EncodedNode<S>> sink) {
+        if (numNodes == 1) {
+            EncodedNode<S> root = encodeInternalNode(encodedKeys.apply(0), null, encodedKidsSketches.apply(0), sink);
+            encodedSketches[0] = sketchCoder.encode(root.sketch());
+            return root;
+        }
+
+        if (!aboveLeaves) {
+            IntStream range = IntStream.range(0, numNodes);
+            (isParallel ? range.parallel() : range).forEach(i -> encodedSketches[i] = sketchCoder.encode(encodeInternalNode(encodedKeys.apply(i), null, encodedKidsSketches.apply(i), sink).sketch()));
+            return null;
+        }
+
+        // nodes above the leaves point to their right sibling, so they are encoded from right to left
+        BaseSequence encodedRightSketch = null;
+        for (int i = numNodes - 1; i >= 0; i--) {
+            encodedSketches[i] = sketchCoder.encode(encodeInternalNode(encodedKeys.apply(i), encodedRightSketch, encodedKidsSketches.apply(i), sink).sketch());
+            encodedRightSketch = encodedSketches[i];
+        }
+        return null;
     }
 
-    @Override
-    public Stream<DecodedNode<K, S>> decode(EncodedBPTree<K, V, BaseSequence[], S> encodedTree) {
-        return encodedTree.getEncodedNodeStorage().stream().map(this::decodeNode);
+    /**
+     * Encodes a tree with primitive long keys and values. The keys and values are encoded with the given primitive coders, so they are not boxed while encoding.
+     * To decode the returned tree, this coder's key and value coders must decode the same format, e.g., LongArrayCoder.boxed().
+     * @param tree the tree.
+     * @param longKeyCoder the coder for the keys of a node.
+     * @param longValueCoder the coder for the values of a leaf.
+     * @return the encoded tree.
+     */
+    public LNALNativeEncodedTree<K, V, S> encode(LongBPlusTree tree, Coder<long[], BaseSequence> longKeyCoder, Coder<long[], BaseSequence> longValueCoder) {
+        if (tree == null || tree.size() <= 0)
+            return new LNALNativeEncodedTree<>(this::decodeNode, new EncodedNodeNativeMapStorage<>(Collections.emptyList(), null, isParallel));
+
+        Queue<EncodedNode<S>> nodesQueue = new ConcurrentLinkedQueue<>();
+        Iterator<List<LongBPlusTree.Node>> it = tree.bottomUpLevelIterator();
+        List<LongBPlusTree.Node> leaves = it.next();
+        // a single leaf is the root, otherwise only the sketches of the leaves are retained
+        if (!it.hasNext()) {
+            EncodedNode<S> root = encodeLongLeaf(leaves.getFirst().asLeafNode(), longKeyCoder, longValueCoder, nodesQueue::add);
+            return new LNALNativeEncodedTree<>(this::decodeNode, new EncodedNodeNativeMapStorage<>(new ArrayList<>(nodesQueue), root, isParallel));
+        }
+
+        BaseSequence[] leavesSketches = new BaseSequence[leaves.size()];
+        IntStream range = IntStream.range(0, leaves.size());
+        (isParallel ? range.parallel() : range).forEach(i -> leavesSketches[i] = sketchCoder.encode(encodeLongLeaf(leaves.get(i).asLeafNode(), longKeyCoder, longValueCoder, nodesQueue::add).sketch()));
+
+        EncodedNode<S> root = null;
+        BaseSequence[] encodedSketches = leavesSketches;
+
+        boolean aboveLeaves = true;
+        while (it.hasNext()) {
+            List<LongBPlusTree.Node> nodes = it.next();
+            int[] kidsOffsets = new int[nodes.size() + 1];
+            for (int i = 0; i < nodes.size(); i++)
+                kidsOffsets[i + 1] = kidsOffsets[i] + nodes.get(i).asInternalNode().getKids().size();
+
+            List<BaseSequence> kidsSketches = Arrays.asList(encodedSketches);
+            encodedSketches = new BaseSequence[nodes.size()];
+            root = encodeInternalLevel(
+                    nodes.size(),
+                    i -> longKeyCoder.encode(nodes.get(i).getKeys()),
+                    i -> kidsSketches.subList(kidsOffsets[i], kidsOffsets[i + 1]),
+                    encodedSketches,
+                    aboveLeaves,
+                    nodesQueue::add
+            );
+            aboveLeaves = false;
+        }
+
+        return new LNALNativeEncodedTree<>(this::decodeNode, new EncodedNodeNativeMapStorage<>(new ArrayList<>(nodesQueue), root, isParallel));
+    }
+
+    private EncodedNode<S> encodeLongLeaf(LongBPlusTree.Leaf leaf, Coder<long[], BaseSequence> longKeyCoder, Coder<long[], BaseSequence> longValueCoder, Consumer<EncodedNode<S>> sink) {
+        return encodeLeaf(longKeyCoder.encode(leaf.getKeys()), longValueCoder.encode(leaf.getValues()), sink);
     }
 
     public EncodedNode<S> encodeNode(BPlusTree.Node<K, V> node, EncodedNode<S> rightNode, List<EncodedNode<S>> encodedKids, Collection<EncodedNode<S>> nodesCollection) {
-        List<K> keys = node.getKeys();
-        BaseSequence seq = new BaseSequence();
+        if (node.isLeaf())
+            return encodeLeaf(keyCoder.encode(node.getKeys()), valueCoder.encode(node.asLeafNode().getValues()), nodesCollection::add);
+
+        return encodeInternalNode(
+                keyCoder.encode(node.getKeys()),
+                rightNode != null ? sketchCoder.encode(rightNode.sketch()) : null,
+                encodedKids.stream().map(en -> sketchCoder.encode(en.sketch())).toList(),
+                nodesCollection::add
+        );
+    }
 
-        BaseSequence encodedKeys = keyCoder.encode(keys);
+    private static BaseSequence withKeysPrefix(BaseSequence encodedKeys) {
+        BaseSequence seq = new BaseSequence();
         DNAPacker.packUnsigned(seq, encodedKeys.length() - 1);
         seq.append(encodedKeys);
+        return seq;
+    }
 
-        if (node.isLeaf()) {
-            seq.append(leafMarker);
-            seq.append(valueCoder.encode(node.asLeafNode().getValues()));
-            return finalizeAsEncodedNode(seq, true, nodesCollection);
-        }
+    private EncodedNode<S> encodeLeaf(BaseSequence encodedKeys, BaseSequence encodedValues, Consumer<EncodedNode<S>> sink) {
+        BaseSequence seq = withKeysPrefix(encodedKeys);
+        seq.append(leafMarker);
+        seq.append(encodedValues);
+        return finalizeAsEncodedNode(seq, true, sink);
+    }
 
-        if (rightNode != null) {
+    private EncodedNode<S> encodeInternalNode(BaseSequence encodedKeys, BaseSequence encodedRightSketch, List<BaseSequence> encodedKidsSketches, Consumer<EncodedNode<S>> sink) {
+        BaseSequence seq = withKeysPrefix(encodedKeys);
+        if (encodedRightSketch != null) {
             seq.append(internalNodeWithRightMarker);
-            seq.append(sketchCoder.encode(rightNode.sketch()));
+            seq.append(encodedRightSketch);
         }
         else {
             seq.append(internalNodeWithoutRightMarker);
         }
 
-        for (EncodedNode<S> encodedKid : encodedKids)
-            seq.append(sketchCoder.encode(encodedKid.sketch()));
+        for (BaseSequence encodedKidSketch : encodedKidsSketches)
+            seq.append(encodedKidSketch);
 
-        return finalizeAsEncodedNode(seq, false, nodesCollection);
+        return finalizeAsEncodedNode(seq, false, sink);
     }
 
     private EncodedNodeTrial asEncodedNodeTrial(BaseSequence[] payloads, boolean isLeaf) {
         S sketch = sketcher.createSketch(payloads.length, toleranceFunctionLeaves.apply(payloads.length));
-        BaseSequence[] addresses = sketch.addresses();
-        AddressedDNA[] oligos = distanceCoder.encode(FuncUtils.zip(Arrays.stream(addresses), Arrays.stream(payloads), AddressedDNA::new).toArray(AddressedDNA[]::new));
-        return new EncodedNodeTrial(
-                oligos,
-                () -> new EncodedNode<>(
-                        isLeaf,
-                        Arrays.stream(oligos).map(AddressedDNA::payload).toArray(BaseSequence[]::new),
-                        sketch,
-                        Arrays.stream(oligos).map(AddressedDNA::join).toArray(BaseSequence[]::new)
-                )
-        );
+        AddressedDNA[] oligos = distanceCoder.encode(addressed(sketch, payloads));
+        return new EncodedNodeTrial(sketch, oligos, isLeaf);
     }
 
-    private EncodedNode<S> finalizeAsEncodedNode(BaseSequence seq, boolean isLeaf, Collection<EncodedNode<S>> nodesCollection) {
+    // a trial of several concurrent trials. Neither its addresses nor its oligos are inserted into the LSHs before it wins, and it is dropped early once another trial has won
+    private EncodedNodeTrial asUncommittedEncodedNodeTrial(BaseSequence[] payloads, boolean isLeaf, AtomicBoolean won) {
+        S sketch = sketcher.createUncommittedSketch(payloads.length, toleranceFunctionLeaves.apply(payloads.length));
+        if (won.get())
+            return null;
+
+        AddressedDNA[] oligos = FuncUtils.stream(Arrays.stream(addressed(sketch, payloads)), isParallel)
+                .map(payloadDistanceCoder::encodeUncommitted)
+                .toArray(AddressedDNA[]::new);
+
+        return new EncodedNodeTrial(sketch, oligos, isLeaf);
+    }
+
+    private AddressedDNA[] addressed(S sketch, BaseSequence[] payloads) {
+        return FuncUtils.zip(Arrays.stream(sketch.addresses()), Arrays.stream(payloads), AddressedDNA::new).toArray(AddressedDNA[]::new);
+    }
+
+    private EncodedNode<S> finalizeAsEncodedNode(BaseSequence seq, boolean isLeaf, Consumer<EncodedNode<S>> sink) {
+        long t = System.nanoTime();
         BaseSequence[] payloads = segmentationCoder.encode(seq);
         if (seedTrials == 1) {
             var encodedNode = asEncodedNodeTrial(payloads, isLeaf).getEncodedNode();
-            nodesCollection.add(encodedNode);
+            recordNode(1, t);
+            sink.accept(encodedNode);
             return encodedNode;
         }
 
-        List<EncodedNodeTrial> trials = new ArrayList<>(seedTrials);
-        for (int i = 0; i < seedTrials; i++) {
-            var ent = asEncodedNodeTrial(payloads, isLeaf);
-            if (ent.fulfillsTargetScore()) {
-                var encodedNode = ent.getEncodedNode();
-                nodesCollection.add(encodedNode);
-                return encodedNode;
+        EncodedNodeTrial best = runTrials(payloads, isLeaf, t);
+        best.commit();
+        var encodedNode = best.getEncodedNode();
+        sink.accept(encodedNode);
+        return encodedNode;
+    }
+
+    // runs up to seedTrials trials on trialParallelism workers until one fulfills the target score, the trials are exhausted or the node's time budget is spent.
+    // Every worker runs at least one trial, and the best trial by the sum of its oligos' scores is returned if none fulfills the target score.
+    // The workers are a parallel stream, so they share the common pool with the nodes encoded in parallel, and at most its parallelism of them run at once
+    private EncodedNodeTrial runTrials(BaseSequence[] payloads, boolean isLeaf, long startNanos) {
+        long deadline = trialBudgetMillis == Long.MAX_VALUE ? Long.MAX_VALUE : startNanos + TimeUnit.MILLISECONDS.toNanos(trialBudgetMillis);
+        AtomicBoolean won = new AtomicBoolean(false);
+        AtomicReference<EncodedNodeTrial> winner = new AtomicReference<>();
+        AtomicInteger started = new AtomicInteger(0);
+        Queue<EncodedNodeTrial> trials = new ConcurrentLinkedQueue<>();
+        int workers = Math.min(trialParallelism, seedTrials);
+        IntStream.range(0, workers).parallel().forEach(__ -> {
+            boolean first = true;
+            while (!won.get() && (first || System.nanoTime() < deadline) && started.getAndUpdate(n -> n < seedTrials ? n + 1 : n) < seedTrials) {
+                first = false;
+                var ent = asUncommittedEncodedNodeTrial(payloads, isLeaf, won);
+                if (ent == null)
+                    return;
+
+                if (ent.fulfillsTargetScore()) {
+                    if (won.compareAndSet(false, true))
+                        winner.set(ent);
+
+                    return;
+                }
+                trials.add(ent);
             }
+        });
+
+        recordNode(started.get(), startNanos);
+        if (winner.get() != null)
+            return winner.get();
 
-            trials.add(ent);
+        return trials.stream().max(Comparator.comparingDouble(EncodedNodeTrial::totalScore)).orElseThrow();
+    }
+
+    private void recordNode(int trials, long startNanos) {
+        encodedNodes.increment();
+        nodeTrials.add(trials);
+        nodeNanos.add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * The trial counters of this coder, summed over all encoded nodes.
+     */
+    public record TrialStats(long nodes, long trials, long nanos) {
+        public double trialsPerNode() {
+            return nodes == 0L ? 0d : (double) trials / nodes;
         }
 
-        return trials.stream()
-                .map(ent ->
-                        new Pair<>(
-                                ent,
-                                Arrays.stream(ent.oligos).mapToDouble(o -> ((PayloadDistanceCoder.ScoredAddressedDNA) o).score()).sum()
-                        )
-                )
-                .max(Comparator.comparing(Pair::getT2))
-                .map(p -> {
-                    var result = p.getT1().getEncodedNode();
-                    nodesCollection.add(result);
-                    return result;
-                })
-                .orElseThrow();
+        public double millisPerNode() {
+            return nodes == 0L ? 0d : nanos / 1000_000d / nodes;
+        }
+    }
+
+    public TrialStats trialStats() {
+        return new TrialStats(encodedNodes.sum(), nodeTrials.sum(), nodeNanos.sum());
     }
 
     @Override
@@ -501,17 +714,39 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
         return getAddressSize() + getPayloadSize();
     }
 
+    private record LevelEntry<K>(K maxKey, BaseSequence encodedSketch) {
+
+    }
+
     private class EncodedNodeTrial {
+        private final S sketch;
         private final AddressedDNA[] oligos;
         private final FutureTask<EncodedNode<S>> encodedNodeFuture;
         private final AtomicBoolean isStarted;
 
-        public EncodedNodeTrial(AddressedDNA[] oligos, Callable<EncodedNode<S>> encodedNodeFuture) {
+        public EncodedNodeTrial(S sketch, AddressedDNA[] oligos, boolean isLeaf) {
+            this.sketch = sketch;
             this.oligos = oligos;
-            this.encodedNodeFuture = new FutureTask<>(encodedNodeFuture);
+            this.encodedNodeFuture = new FutureTask<>(() -> new EncodedNode<>(
+                    isLeaf,
+                    Arrays.stream(oligos).map(AddressedDNA::payload).toArray(BaseSequence[]::new),
+                    sketch,
+                    Arrays.stream(oligos).map(AddressedDNA::join).toArray(BaseSequence[]::new)
+            ));
             this.isStarted = new AtomicBoolean(false);
         }
 
+        public double totalScore() {
+            return Arrays.stream(oligos).mapToDouble(o -> ((PayloadDistanceCoder.ScoredAddressedDNA) o).score()).sum();
+        }
+
+        // inserts the addresses and oligos of an uncommitted trial into the LSHs
+        public void commit() {
+            sketcher.commitSketch(sketch);
+            for (AddressedDNA oligo : oligos)
+                payloadDistanceCoder.commit((PayloadDistanceCoder.ScoredAddressedDNA) oligo);
+        }
+
         public boolean fulfillsTargetScore() {
             return !Float.isInfinite(targetScore) && Arrays.stream(oligos).allMatch(o -> ((PayloadDistanceCoder.ScoredAddressedDNA) o).score() >= targetScore);
         }
@@ -532,6 +767,8 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
 
         public static final int DEFAULT_PAYLOAD_PERMUTATIONS = 8;
         public static final int DEFAULT_SEED_TRIALS = 1;
+        public static final int DEFAULT_TRIAL_PARALLELISM = Runtime.getRuntime().availableProcessors();
+        public static final long DEFAULT_TRIAL_BUDGET_MILLIS = Long.MAX_VALUE;
         public static final float DEFAULT_TARGET_SCORE = 1;
         public static final int DEFAULT_NUM_GC_CORRECTIONS = 0;
 
@@ -543,6 +780,7 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
         public static final float DEFAULT_DISTANCE_CODER_DIST_WEIGHT = 1.0f;
 
         public static final boolean DEFAULT_PARALLEL = true;
+        public static final int DEFAULT_STREAMING_BATCH_SIZE = 1024;
 
         public static final DNARule DEFAULT_DISTANCE_CODER_ERROR_RULES = BasicDNARules.INSTANCE;
 
@@ -576,6 +814,8 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
 
         private Integer seedTrials;
         private Float targetScore;
+        private Integer trialParallelism;
+        private Long trialBudgetMillis;
 
         private Integer numGcCorrections;
 
@@ -614,6 +854,8 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
 
             this.seedTrials = FuncUtils.conditionOrElse(t -> t != null && t >= 1, seedTrials, () -> DEFAULT_SEED_TRIALS);
             this.targetScore = FuncUtils.nullEscape(targetScore, () -> DEFAULT_TARGET_SCORE);
+            this.trialParallelism = FuncUtils.conditionOrElse(p -> p != null && p >= 1, trialParallelism, () -> DEFAULT_TRIAL_PARALLELISM);
+            this.trialBudgetMillis = FuncUtils.conditionOrElse(b -> b != null && b >= 0L, trialBudgetMillis, () -> DEFAULT_TRIAL_BUDGET_MILLIS);
 
             this.partitionedPayloadDistanceCoder = FuncUtils.nullEscape(partitionedPayloadDistanceCoder, DEFAULT_PARTITIONED_PAYLOAD_DISTANCE_CODER.apply(payloadSize));
             this.partitionedPayloadSize = FuncUtils.nullEscape(partitionedPayloadSize, DEFAULT_PARTITIONED_PAYLOAD_SIZE);
@@ -640,6 +882,8 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
                     valueCoder,
                     seedTrials,
                     targetScore,
+                    trialParallelism,
+                    trialBudgetMillis,
                     sketcher,
                     isParallel,
                     numGcCorrections,
@@ -720,6 +964,28 @@ public class BPTreeNativeCoder<K extends Comparable<K>, V, S extends DNAPointer>
             return setSeedTrialsAndTargetScore(Integer.MAX_VALUE, targetScore);
         }
 
+        /**
+         * Sets the number of seed trials of a node that run concurrently. The trials run on the common ForkJoinPool, so at most its parallelism plus the calling thread run at once,
+         * and greater values only split the trials among more tasks.
+         * @param trialParallelism the number of concurrent trials.
+         * @return this builder.
+         */
+        public Builder<K, V, S> setTrialParallelism(int trialParallelism) {
+            this.trialParallelism = trialParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the time budget of the seed trials of a node. No new trial is started after the budget is spent, and the best finished trial is taken.
+         * Every concurrent worker finishes at least one trial, so a node is always encoded.
+         * @param trialBudgetMillis the time budget per node in milliseconds.
+         * @return this builder.
+         */
+        public Builder<K, V, S> setTrialBudgetMillis(long trialBudgetMillis) {
+            this.trialBudgetMillis = trialBudgetMillis;
+            return this;
+        }
+
 
         public Builder<K, V, S> setNodeMarkers(Base leafMarker, Base internalNodeWithRightMarker, Base internalNodeWithoutRightMarker) {
             if (EnumSet.of(leafMarker, internalNodeWithRightMarker, internalNodeWithoutRightMarker).size() == 3) {
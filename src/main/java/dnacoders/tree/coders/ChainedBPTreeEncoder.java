@@ -0,0 +1,116 @@
+package dnacoders.tree.coders;
+
+import datastructures.container.BlockingContainer;
+import datastructures.container.Container;
+import datastructures.searchtrees.BPlusTree;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Encodes the nodes of a BPlusTree on a pool. Every node is encoded by a task chained on the encoded nodes it points to, so no thread of the pool waits for another task.
+ * The coders of this package differ only in how a single node is encoded, which is given by a NodeEncoder.
+ */
+final class ChainedBPTreeEncoder {
+
+    private ChainedBPTreeEncoder() {
+    }
+
+    /**
+     * Encodes a single node.
+     * @param <K> the key type.
+     * @param <V> the value type.
+     * @param <E> the type of an encoded node.
+     */
+    @FunctionalInterface
+    interface NodeEncoder<K extends Comparable<K>, V, E> {
+        /**
+         * @param node the node.
+         * @param encodedRight the encoded right sibling of a node above the leaves, or null.
+         * @param encodedKids the encoded kids of an internal node, or null for a leaf.
+         * @return the encoded node.
+         */
+        E encode(BPlusTree.Node<K, V> node, E encodedRight, List<E> encodedKids);
+    }
+
+    /**
+     * Encodes all nodes of a tree whose root is an internal node.
+     * @param tree the tree.
+     * @param pool the pool encoding the nodes.
+     * @param encoder the encoder of a single node.
+     * @return the encoded root.
+     */
+    static <K extends Comparable<K>, V, E> E encode(BPlusTree<K, V> tree, ExecutorService pool, NodeEncoder<K, V, E> encoder) {
+        List<BPlusTree.Node<K, V>> leaves = tree.bottomUpLevelIterator().next();
+        BlockingContainer<BPlusTree.Node<K, V>, E> map = new BlockingContainer<>(new Container.MapContainer<>());
+
+        // nodes above the leaves point to their right sibling, so they are chained from right to left
+        ListIterator<BPlusTree.Node<K, V>> leavesIt = leaves.listIterator(leaves.size());
+        BPlusTree.Node<K, V> right = leavesIt.previous();
+        BPlusTree.Node<K, V> left = leavesIt.previous();
+        BPlusTree.InternalNode<K, V> parent = right.getParent();
+
+        LinkedList<CompletableFuture<E>> encodedLeaves = new LinkedList<>();
+        encodedLeaves.add(CompletableFuture.supplyAsync(() -> encoder.encode(right, null, null), pool));
+        CompletableFuture<E> encodedRightParent = null;
+        do {
+            if (left.getParent() != parent) {
+                encodedRightParent = encodeParentAsync(pool, map, encoder, parent, encodedRightParent, encodedLeaves);
+                encodedLeaves = new LinkedList<>();
+                parent = left.getParent();
+            }
+
+            BPlusTree.Node<K, V> finalLeft = left;
+            encodedLeaves.addFirst(CompletableFuture.supplyAsync(() -> encoder.encode(finalLeft, null, null), pool));
+            left = left.getLeft();
+            if (left == null) {
+                encodeParentAsync(pool, map, encoder, parent, encodedRightParent, encodedLeaves);
+                break;
+            }
+        } while (true);
+
+        parent = leaves.get(0).getParent();
+        while (parent.getParent() != null) {
+            Set<BPlusTree.InternalNode<K, V>> nodeGroups = Stream.iterate(parent, Objects::nonNull, BPlusTree.InternalNode::getRight).map(BPlusTree.Node::getParent).collect(Collectors.toSet());
+            nodeGroups.forEach(p -> {
+                List<CompletableFuture<E>> encodedKids = p.getKids().stream().map(map::getAsync).toList();
+                CompletableFuture.allOf(encodedKids.toArray(CompletableFuture<?>[]::new)).thenApplyAsync(
+                        __ -> {
+                            E encoded = encoder.encode(p, null, encodedKids.stream().map(CompletableFuture::join).toList());
+                            p.getKids().forEach(map::remove);
+                            return encoded;
+                        },
+                        pool
+                ).whenComplete((encoded, t) -> map.complete(p, encoded, t));
+            });
+
+            parent = parent.getParent();
+        }
+
+        return map.get(tree.getRoot());
+    }
+
+    private static <K extends Comparable<K>, V, E> CompletableFuture<E> encodeParentAsync(
+            ExecutorService pool,
+            BlockingContainer<BPlusTree.Node<K, V>, E> map,
+            NodeEncoder<K, V, E> encoder,
+            BPlusTree.InternalNode<K, V> parent,
+            CompletableFuture<E> encodedRightParent,
+            List<CompletableFuture<E>> encodedLeaves) {
+
+        CompletableFuture<?>[] dependencies = Stream.concat(encodedLeaves.stream(), Stream.ofNullable(encodedRightParent)).toArray(CompletableFuture<?>[]::new);
+        CompletableFuture<E> encodedParent = CompletableFuture.allOf(dependencies).thenApplyAsync(
+                __ -> encoder.encode(
+                        parent,
+                        encodedRightParent != null ? encodedRightParent.join() : null,
+                        encodedLeaves.stream().map(CompletableFuture::join).toList()
+                ),
+                pool
+        );
+        encodedParent.whenComplete((encoded, t) -> map.complete(parent, encoded, t));
+        return encodedParent;
+    }
+}
@@ -6,13 +6,17 @@ import datastructures.reference.DNAPointer;
 import dnacoders.tree.coders.BPTreeContainerCoder;
 import dnacoders.tree.wrappers.node.EncodedNode;
 import utils.AddressedDNA;
+import utils.FuncUtils;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class EncodedNodeContainerStorage implements EncodedNodeStorage<Long, DNAPointer.ContainerDNAPointer> {
 
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
     private final DNAContainer container;
     private final long rootId;
     private final Collection<Long> nodeIds;
@@ -23,6 +27,14 @@ public class EncodedNodeContainerStorage implements EncodedNodeStorage<Long, DNA
         this.nodeIds = nodeIds;
     }
 
+    public DNAContainer getContainer() {
+        return container;
+    }
+
+    public Collection<Long> getNodeIds() {
+        return nodeIds;
+    }
+
     @Override
     public EncodedNode<DNAPointer.ContainerDNAPointer> getRoot() {
         var oligos = container.getOligos(rootId);
@@ -51,7 +63,10 @@ public class EncodedNodeContainerStorage implements EncodedNodeStorage<Long, DNA
 
     @Override
     public EncodedNode<DNAPointer.ContainerDNAPointer> findNode(Long id) {
-        var oligos = container.getOligos(id);
+        return toEncodedNode(id, container.getOligos(id));
+    }
+
+    private EncodedNode<DNAPointer.ContainerDNAPointer> toEncodedNode(long id, AddressedDNA[] oligos) {
         if (oligos == null){
             System.out.println("id not found: " + id);
             return null;
@@ -78,6 +93,10 @@ public class EncodedNodeContainerStorage implements EncodedNodeStorage<Long, DNA
 
     @Override
     public Stream<EncodedNode<DNAPointer.ContainerDNAPointer>> stream() {
-        return nodeIds.stream().map(this::findNode);
+        return FuncUtils.chunkConservative(nodeIds.stream(), DEFAULT_BATCH_SIZE).flatMap(batch -> {
+            long[] ids = batch.stream().mapToLong(Long::longValue).toArray();
+            AddressedDNA[][] oligos = container.getOligos(ids);
+            return IntStream.range(0, ids.length).mapToObj(i -> toEncodedNode(ids[i], oligos[i]));
+        });
     }
 }
@@ -0,0 +1,131 @@
+package dnacoders.tree.encodednodestorage;
+
+import core.BaseSequence;
+import datastructures.reference.DNAPointer;
+import dnacoders.tree.coders.BPTreeNativeCoder;
+import dnacoders.tree.wrappers.node.DecodedNode;
+import dnacoders.tree.wrappers.node.EncodedNode;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.FuncUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An EncodedNodeStorage over a pool of raw sequenced reads. Nodes are not stored, but assembled on demand from the consensus of the reads of their addresses,
+ * so a query only clusters the reads of the nodes on its path. Enumerating all nodes traverses the tree from the root.
+ * @param <K> the key type of the tree.
+ */
+public class EncodedNodeReadPoolStorage<K extends Comparable<K>> implements EncodedNodeStorage<BaseSequence[], DNAPointer.NativeDNAPointer> {
+
+    private final ReadClusterIndex index;
+    private final BaseSequence[] rootAddresses;
+    private final Function<EncodedNode<DNAPointer.NativeDNAPointer>, DecodedNode<K, DNAPointer.NativeDNAPointer>> decoder;
+    private final boolean isParallel;
+    private volatile EncodedNode<DNAPointer.NativeDNAPointer> root;
+    private volatile long size;
+
+    public EncodedNodeReadPoolStorage(ReadClusterIndex index, BaseSequence[] rootAddresses, Function<EncodedNode<DNAPointer.NativeDNAPointer>, DecodedNode<K, DNAPointer.NativeDNAPointer>> decoder, boolean isParallel) {
+        this.index = index;
+        this.rootAddresses = rootAddresses;
+        this.decoder = decoder;
+        this.isParallel = isParallel;
+        this.size = -1L;
+    }
+
+    /**
+     * Creates a tree whose queries decode the nodes from a pool of reads.
+     * @param coder the coder the tree was encoded with.
+     * @param index the index of the reads.
+     * @param rootAddresses the addresses of the root, e.g., the addresses of the root sketch of the encoded tree.
+     * @return the tree.
+     */
+    public static <K extends Comparable<K>, V> LNALNativeEncodedTree<K, V, DNAPointer.NativeDNAPointer> treeOf(BPTreeNativeCoder<K, V, DNAPointer.NativeDNAPointer> coder, ReadClusterIndex index, BaseSequence[] rootAddresses) {
+        return new LNALNativeEncodedTree<>(coder::decodeNode, new EncodedNodeReadPoolStorage<>(index, rootAddresses, coder::decodeNode, true));
+    }
+
+    public ReadClusterIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public EncodedNode<DNAPointer.NativeDNAPointer> getRoot() {
+        if (isEmpty())
+            return null;
+
+        var r = root;
+        if (r == null)
+            root = r = findNode(rootAddresses);
+
+        return r;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rootAddresses == null || rootAddresses.length == 0;
+    }
+
+    @Override
+    public boolean isParallel() {
+        return isParallel;
+    }
+
+    @Override
+    public EncodedNode<DNAPointer.NativeDNAPointer> findNode(BaseSequence[] addresses) {
+        BaseSequence[] oligos = index.consensus(addresses);
+        if (oligos == null)
+            throw new RuntimeException("no reads found for some addresses of the node with the first address " + addresses[0]);
+
+        int addrSize = index.getAddressSize();
+        BaseSequence[] payloads = Arrays.stream(oligos).map(o -> o.window(addrSize)).toArray(BaseSequence[]::new);
+        var sketch = new DNAPointer.NativeDNAPointer(-1L, addresses.length, new int[0], addresses);
+        // the leaf flag is not part of the oligos' addresses, so the node is decoded once to find it
+        boolean isLeaf = decoder.apply(new EncodedNode<>(false, payloads, sketch, oligos)).isLeaf();
+        return new EncodedNode<>(isLeaf, payloads, sketch, oligos);
+    }
+
+    // the number of nodes reachable from the root, counted by the first call
+    @Override
+    public long size() {
+        if (size < 0L)
+            size = isEmpty() ? 0L : stream().count();
+
+        return size;
+    }
+
+    @Override
+    public Collection<EncodedNode<DNAPointer.NativeDNAPointer>> collect() {
+        return stream().toList();
+    }
+
+    @Override
+    public Iterator<EncodedNode<DNAPointer.NativeDNAPointer>> iterator() {
+        return stream().iterator();
+    }
+
+    @Override
+    public Stream<EncodedNode<DNAPointer.NativeDNAPointer>> stream() {
+        if (isEmpty())
+            return Stream.empty();
+
+        return FuncUtils.stream(() -> new Iterator<>() {
+            final Deque<EncodedNode<DNAPointer.NativeDNAPointer>> queue = new ArrayDeque<>(List.of(getRoot()));
+
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public EncodedNode<DNAPointer.NativeDNAPointer> next() {
+                var node = queue.poll();
+                var decoded = decoder.apply(node);
+                if (!decoded.isLeaf())
+                    decoded.asDecodedInternalNode().kidsSketches().forEach(kid -> queue.add(findNode(kid.addresses())));
+
+                return node;
+            }
+        });
+    }
+}
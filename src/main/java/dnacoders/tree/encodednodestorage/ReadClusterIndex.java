@@ -0,0 +1,362 @@
+package dnacoders.tree.encodednodestorage;
+
+import core.Base;
+import core.BaseSequence;
+import datastructures.reference.DNAPointer;
+import dnacoders.tree.sketchers.IDNASketcher;
+import utils.FuncUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Indexes unordered, noisy reads by the address prefix they start with, so the reads of an address are found without sorting the pool.
+ * The index is a sorted array of (k-mer, read) pairs built from non-overlapping k-mers of each read's prefix. An address is looked up with all its overlapping k-mers,
+ * so reads with a few substitutions or indels in the address still share k-mers with it. Candidates are verified by the edit distance of their prefix to the address,
+ * and the reads of an address are merged into a consensus oligo by a per-position majority vote.
+ */
+public class ReadClusterIndex {
+
+    public static final int CONSENSUS_ROUNDS = 3;
+
+    private static final Base[] BASES = Base.values();
+
+    private final List<BaseSequence> reads;
+    private final int addressSize;
+    private final int oligoSize;
+    private final int k;
+    private final int minSharedKmers;
+    private final int maxAddressErrors;
+    private final boolean parallel;
+    private final long[] index;
+
+    private ReadClusterIndex(List<BaseSequence> reads, int addressSize, int oligoSize, int k, int minSharedKmers, int maxAddressErrors, boolean parallel) {
+        if (k > 15 || k > addressSize)
+            throw new RuntimeException("k must be <= 15 and <= addressSize");
+
+        this.reads = reads;
+        this.addressSize = addressSize;
+        this.oligoSize = oligoSize;
+        this.k = k;
+        this.minSharedKmers = minSharedKmers;
+        this.maxAddressErrors = maxAddressErrors;
+        this.parallel = parallel;
+        this.index = buildIndex();
+    }
+
+    // each entry packs a k-mer into the upper and the read index into the lower 32 bits
+    private long[] buildIndex() {
+        int[] offsets = new int[reads.size() + 1];
+        for (int i = 0; i < reads.size(); i++)
+            offsets[i + 1] = offsets[i] + Math.min(addressSize, reads.get(i).length()) / k;
+
+        long[] entries = new long[offsets[reads.size()]];
+        FuncUtils.stream(IntStream.range(0, reads.size()), parallel).forEach(i -> {
+            BaseSequence read = reads.get(i);
+            for (int j = 0; j < offsets[i + 1] - offsets[i]; j++)
+                entries[offsets[i] + j] = ((long) kmer(read, j * k) << 32) | i;
+        });
+        if (parallel)
+            Arrays.parallelSort(entries);
+        else
+            Arrays.sort(entries);
+
+        return entries;
+    }
+
+    private int kmer(BaseSequence seq, int from) {
+        int kmer = 0;
+        for (int i = from; i < from + k; i++)
+            kmer = (kmer << 2) | seq.get(i).ordinal();
+
+        return kmer;
+    }
+
+    /**
+     * Finds the reads that start with the given address, allowing up to maxAddressErrors edits.
+     * @param address the address.
+     * @return the indices of the reads in increasing order.
+     */
+    public int[] cluster(BaseSequence address) {
+        Map<Integer, Integer> shared = new HashMap<>();
+        int lastKmerPos = Math.min(addressSize, address.length()) - k;
+        for (int pos = 0; pos <= lastKmerPos; pos++) {
+            long kmer = (long) kmer(address, pos) << 32;
+            int i = lowerBound(kmer);
+            for (; i < index.length && (index[i] & 0xFFFFFFFF00000000L) == kmer; i++)
+                shared.merge((int) index[i], 1, Integer::sum);
+        }
+
+        return shared.entrySet().stream()
+                .filter(e -> e.getValue() >= minSharedKmers)
+                .mapToInt(Map.Entry::getKey)
+                .filter(r -> addressDistance(address, reads.get(r)) <= maxAddressErrors)
+                .sorted()
+                .toArray();
+    }
+
+    private int lowerBound(long key) {
+        int lo = 0;
+        int hi = index.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (index[mid] < key)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    private int addressDistance(BaseSequence address, BaseSequence read) {
+        return address.editDistanceNotNormalized(read.window(0, Math.min(addressSize, read.length())));
+    }
+
+    /**
+     * Builds the consensus oligo of the reads of an address. The address part of the consensus is the given address.
+     * A draft payload is voted per position with the reads aligned at their start and, for reads with indels, the second half of the payload aligned at their end.
+     * The reads are then aligned to the draft with a banded edit distance alignment, and a vote over the aligned bases, deletions and insertions gives the next draft,
+     * until the draft does not change anymore or CONSENSUS_ROUNDS rounds passed.
+     * @param address the address.
+     * @return the consensus oligo, or null if no read of the address was found.
+     */
+    public BaseSequence consensus(BaseSequence address) {
+        int[] cluster = cluster(address);
+        if (cluster.length == 0)
+            return null;
+
+        int half = oligoSize - (oligoSize - addressSize) / 2;
+        int[][] votes = new int[oligoSize][BASES.length];
+        for (int r : cluster) {
+            BaseSequence read = reads.get(r);
+            int len = read.length();
+            for (int i = addressSize; i < oligoSize; i++) {
+                int j = len == oligoSize || i < half ? i : len - (oligoSize - i);
+                if (j >= 0 && j < len)
+                    votes[i][read.get(j).ordinal()]++;
+            }
+        }
+        Base[] draft = new Base[oligoSize];
+        for (int i = 0; i < oligoSize; i++)
+            draft[i] = i < addressSize ? address.get(i) : majority(votes[i]);
+
+        for (int round = 0; round < CONSENSUS_ROUNDS; round++) {
+            Base[] next = realign(cluster, draft);
+            if (Arrays.equals(next, draft))
+                break;
+
+            draft = next;
+        }
+        return new BaseSequence(draft);
+    }
+
+    // votes the payload of a new draft from the reads aligned to the current one. A position is dropped if most reads delete it, and a base is inserted after it if most reads insert one
+    private Base[] realign(int[] cluster, Base[] draft) {
+        int m = draft.length;
+        int[][] votes = new int[m][BASES.length];
+        int[] deletions = new int[m];
+        int[][] insertions = new int[m][BASES.length];
+        int[] numInsertions = new int[m];
+        for (int r : cluster) {
+            BaseSequence read = reads.get(r);
+            int[] aligned = align(read, draft);
+            for (int j = addressSize; j < m; j++) {
+                if (aligned[j] < 0) {
+                    deletions[j]++;
+                    continue;
+                }
+                votes[j][read.get(aligned[j]).ordinal()]++;
+                int next = j + 1;
+                while (next < m && aligned[next] < 0)
+                    next++;
+
+                if (next < m && aligned[next] - aligned[j] > 1) {
+                    numInsertions[j]++;
+                    insertions[j][read.get(aligned[j] + 1).ordinal()]++;
+                }
+            }
+        }
+
+        List<Base> bases = new ArrayList<>(m + 1);
+        bases.addAll(Arrays.asList(draft).subList(0, addressSize));
+        for (int j = addressSize; j < m; j++) {
+            if (deletions[j] <= Arrays.stream(votes[j]).sum())
+                bases.add(majority(votes[j]));
+            if (2 * numInsertions[j] > cluster.length)
+                bases.add(majority(insertions[j]));
+        }
+        return bases.toArray(Base[]::new);
+    }
+
+    private static Base majority(int[] votes) {
+        int best = 0;
+        for (int b = 1; b < votes.length; b++) {
+            if (votes[b] > votes[best])
+                best = b;
+        }
+        return BASES[best];
+    }
+
+    // aligns read to template with unit costs within a band around the diagonal, and returns for each template position the aligned read position, or -1 if it was deleted
+    private int[] align(BaseSequence read, Base[] template) {
+        int n = read.length();
+        int m = template.length;
+        int w = maxAddressErrors + Math.abs(n - m);
+        int width = 2 * w + 1;
+        int inf = Integer.MAX_VALUE / 2;
+        // cost[i][d] is the cost of aligning read[0, i) to template[0, j) with j = i + d - w
+        int[][] cost = new int[n + 1][width];
+        for (int[] row : cost)
+            Arrays.fill(row, inf);
+
+        for (int i = 0; i <= n; i++) {
+            for (int d = 0; d < width; d++) {
+                int j = i + d - w;
+                if (j < 0 || j > m)
+                    continue;
+
+                if (i == 0 || j == 0) {
+                    cost[i][d] = i + j;
+                    continue;
+                }
+                int best = cost[i - 1][d] + (read.get(i - 1) == template[j - 1] ? 0 : 1);
+                if (d + 1 < width)
+                    best = Math.min(best, cost[i - 1][d + 1] + 1);
+                if (d > 0)
+                    best = Math.min(best, cost[i][d - 1] + 1);
+
+                cost[i][d] = best;
+            }
+        }
+
+        int[] aligned = new int[m];
+        Arrays.fill(aligned, -1);
+        int i = n;
+        int j = m;
+        while (i > 0 && j > 0) {
+            int d = j - i + w;
+            if (d < 0 || d >= width)
+                break;
+
+            int c = cost[i][d];
+            if (c == cost[i - 1][d] + (read.get(i - 1) == template[j - 1] ? 0 : 1)) {
+                aligned[j - 1] = i - 1;
+                i--;
+                j--;
+            }
+            else if (d + 1 < width && c == cost[i - 1][d + 1] + 1) {
+                i--;
+            }
+            else {
+                j--;
+            }
+        }
+        return aligned;
+    }
+
+    /**
+     * Builds the consensus oligos of the given addresses, e.g., the addresses of a node.
+     * @param addresses the addresses.
+     * @return the consensus oligos, or null if any address has no reads.
+     */
+    public BaseSequence[] consensus(BaseSequence[] addresses) {
+        BaseSequence[] oligos = FuncUtils.stream(Arrays.stream(addresses), parallel).map(this::consensus).toArray(BaseSequence[]::new);
+        return Arrays.stream(oligos).anyMatch(o -> o == null) ? null : oligos;
+    }
+
+    /**
+     * Builds the consensus oligos of the addresses generated from a sketch.
+     * @param sketcher the sketcher that created the sketch.
+     * @param sketch the sketch.
+     * @return the consensus oligos, or null if any address has no reads.
+     */
+    public <S extends DNAPointer> BaseSequence[] consensus(IDNASketcher<S> sketcher, S sketch) {
+        return consensus(sketcher.generateFromSketch(sketch));
+    }
+
+    public int numReads() {
+        return reads.size();
+    }
+
+    public int numIndexedKmers() {
+        return index.length;
+    }
+
+    public int getAddressSize() {
+        return addressSize;
+    }
+
+    public int getOligoSize() {
+        return oligoSize;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        public static final int DEFAULT_K = 12;
+        public static final int DEFAULT_MIN_SHARED_KMERS = 2;
+        public static final int DEFAULT_MAX_ADDRESS_ERRORS = 8;
+        public static final boolean DEFAULT_PARALLEL = true;
+
+        private List<BaseSequence> reads;
+        private Integer addressSize;
+        private Integer oligoSize;
+        private Integer k;
+        private Integer minSharedKmers;
+        private Integer maxAddressErrors;
+        private Boolean parallel;
+
+        public ReadClusterIndex build() {
+            if (reads == null || addressSize == null || oligoSize == null)
+                throw new RuntimeException("reads, addressSize and oligoSize must be set");
+
+            this.k = FuncUtils.conditionOrElse(x -> x != null && x > 0, k, () -> DEFAULT_K);
+            this.minSharedKmers = FuncUtils.conditionOrElse(x -> x != null && x > 0, minSharedKmers, () -> DEFAULT_MIN_SHARED_KMERS);
+            this.maxAddressErrors = FuncUtils.conditionOrElse(x -> x != null && x >= 0, maxAddressErrors, () -> DEFAULT_MAX_ADDRESS_ERRORS);
+            this.parallel = FuncUtils.nullEscape(parallel, () -> DEFAULT_PARALLEL);
+
+            return new ReadClusterIndex(reads, addressSize, oligoSize, k, minSharedKmers, maxAddressErrors, parallel);
+        }
+
+        public Builder setReads(List<BaseSequence> reads) {
+            this.reads = reads;
+            return this;
+        }
+
+        public Builder setAddressSize(int addressSize) {
+            this.addressSize = addressSize;
+            return this;
+        }
+
+        public Builder setOligoSize(int oligoSize) {
+            this.oligoSize = oligoSize;
+            return this;
+        }
+
+        public Builder setK(int k) {
+            this.k = k;
+            return this;
+        }
+
+        public Builder setMinSharedKmers(int minSharedKmers) {
+            this.minSharedKmers = minSharedKmers;
+            return this;
+        }
+
+        public Builder setMaxAddressErrors(int maxAddressErrors) {
+            this.maxAddressErrors = maxAddressErrors;
+            return this;
+        }
+
+        public Builder setParallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package dnacoders.tree.encodednodestorage;
+
+import datastructures.reference.DNAPointer;
+import dnacoders.tree.wrappers.node.EncodedNode;
+import utils.FuncUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Batches node requests to an EncodedNodeStorage into retrieval rounds, a local stand-in for the PCR and sequencing runs of a DNA storage system.
+ * A round starts when roundSize distinct nodes are pending or maxWaitMillis after the arrival of the oldest pending request, whatever comes first.
+ * Requests for the same node that are pending at the same time are coalesced into a single retrieval. Each round takes latency.apply(number of nodes) milliseconds,
+ * and the requests arriving in the meantime are collected for the next round.
+ * @param <ADDR> the address type of the storage.
+ * @param <S> the sketch type of the nodes.
+ */
+public class RetrievalRoundScheduler<ADDR, S extends DNAPointer> implements AutoCloseable {
+
+    private final EncodedNodeStorage<ADDR, S> storage;
+    private final int roundSize;
+    private final long maxWaitMillis;
+    private final Function<Integer, Long> latency;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition requested = lock.newCondition();
+    // in the order of arrival, so the first pending request is the oldest one
+    private final Map<Object, Request<ADDR, S>> pending = new LinkedHashMap<>();
+    private volatile boolean closed;
+    private final Thread dispatcher;
+
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retrievedNodes = new LongAdder();
+    private final LongAdder simulatedMillis = new LongAdder();
+
+    private record Request<ADDR, S extends DNAPointer>(ADDR address, CompletableFuture<EncodedNode<S>> future, long arrivalNanos) {
+    }
+
+    // the outcome of a single retrieval, either the node or the failure
+    private record Retrieval<S extends DNAPointer>(EncodedNode<S> node, Throwable failure) {
+        private void complete(CompletableFuture<EncodedNode<S>> future) {
+            if (failure != null)
+                future.completeExceptionally(failure);
+            else
+                future.complete(node);
+        }
+    }
+
+    /**
+     * The counters of a scheduler. The number of coalesced requests is requests - retrievedNodes.
+     */
+    public record RoundStats(long rounds, long requests, long retrievedNodes, long simulatedMillis) {
+        public double meanRoundSize() {
+            return rounds == 0L ? 0d : (double) retrievedNodes / rounds;
+        }
+    }
+
+    private RetrievalRoundScheduler(EncodedNodeStorage<ADDR, S> storage, int roundSize, long maxWaitMillis, Function<Integer, Long> latency) {
+        this.storage = storage;
+        this.roundSize = roundSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.latency = latency;
+        this.dispatcher = new Thread(this::dispatch, "RetrievalRoundScheduler");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Requests the node stored at the given address in one of the next rounds.
+     * @param address the address of the node.
+     * @return a future completed with the node, or null if the storage does not contain it, when its round is finished.
+     */
+    public CompletableFuture<EncodedNode<S>> request(ADDR address) {
+        requests.increment();
+        lock.lock();
+        try {
+            if (closed)
+                return CompletableFuture.failedFuture(new IllegalStateException("RetrievalRoundScheduler is closed"));
+
+            Request<ADDR, S> request = pending.computeIfAbsent(key(address), __ -> new Request<>(address, new CompletableFuture<>(), System.nanoTime()));
+            if (pending.size() == 1 || pending.size() >= roundSize)
+                requested.signal();
+
+            return request.future();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public EncodedNodeStorage<ADDR, S> getStorage() {
+        return storage;
+    }
+
+    public int getRoundSize() {
+        return roundSize;
+    }
+
+    public RoundStats stats() {
+        return new RoundStats(rounds.sum(), requests.sum(), retrievedNodes.sum(), simulatedMillis.sum());
+    }
+
+    /**
+     * Stops the scheduler. The pending requests fail, and a round in progress is finished.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pending.values().forEach(r -> r.future().completeExceptionally(new IllegalStateException("RetrievalRoundScheduler is closed")));
+            pending.clear();
+            requested.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // native trees address their nodes by arrays of addresses, so arrays are compared by their content
+    private static Object key(Object address) {
+        return address instanceof Object[] array ? Arrays.asList(array) : address;
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                List<Request<ADDR, S>> round = nextRound();
+                if (round == null)
+                    return;
+
+                try {
+                    runRound(round);
+                }
+                catch (RuntimeException | Error e) {
+                    // e.g., thrown by the latency model. The futures completed already are not affected
+                    round.forEach(r -> r.future().completeExceptionally(e));
+                }
+            }
+        }
+        catch (InterruptedException ignored) {
+        }
+    }
+
+    private List<Request<ADDR, S>> nextRound() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && pending.isEmpty())
+                requested.await();
+
+            // requests left over from the previous round keep their arrival time, so they do not wait maxWaitMillis again
+            long waitNanos;
+            while (!closed && pending.size() < roundSize && (waitNanos = pending.values().iterator().next().arrivalNanos() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis) - System.nanoTime()) > 0L)
+                requested.awaitNanos(waitNanos);
+
+            if (closed)
+                return null;
+
+            List<Request<ADDR, S>> round = new ArrayList<>(Math.min(roundSize, pending.size()));
+            Iterator<Request<ADDR, S>> it = pending.values().iterator();
+            while (round.size() < roundSize && it.hasNext()) {
+                round.add(it.next());
+                it.remove();
+            }
+            return round;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void runRound(List<Request<ADDR, S>> round) throws InterruptedException {
+        long t = System.nanoTime();
+        List<Retrieval<S>> retrievals = FuncUtils.stream(round.stream(), storage.isParallel()).map(r -> {
+            try {
+                return new Retrieval<>(storage.findNode(r.address()), null);
+            }
+            catch (Throwable e) {
+                // an error of a single retrieval fails only its request and must not stop the dispatcher
+                return new Retrieval<S>(null, e);
+            }
+        }).toList();
+
+        long remainingMillis = latency.apply(round.size()) - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t);
+        if (remainingMillis > 0L)
+            Thread.sleep(remainingMillis);
+
+        rounds.increment();
+        retrievedNodes.add(round.size());
+        simulatedMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t));
+        for (int i = 0; i < round.size(); i++)
+            retrievals.get(i).complete(round.get(i).future());
+    }
+
+    public static <ADDR, S extends DNAPointer> Builder<ADDR, S> builder() {
+        return new Builder<>();
+    }
+
+    public static class Builder<ADDR, S extends DNAPointer> {
+        public static final int DEFAULT_ROUND_SIZE = 64;
+        public static final long DEFAULT_MAX_WAIT_MILLIS = 20L;
+        public static final Function<Integer, Long> DEFAULT_LATENCY = numNodes -> 100L + numNodes;
+
+        private EncodedNodeStorage<ADDR, S> storage;
+        private Integer roundSize;
+        private Long maxWaitMillis;
+        private Function<Integer, Long> latency;
+
+        public RetrievalRoundScheduler<ADDR, S> build() {
+            if (storage == null)
+                throw new RuntimeException("storage is not set");
+
+            this.roundSize = FuncUtils.conditionOrElse(s -> s != null && s > 0, roundSize, () -> DEFAULT_ROUND_SIZE);
+            this.maxWaitMillis = FuncUtils.conditionOrElse(w -> w != null && w >= 0L, maxWaitMillis, () -> DEFAULT_MAX_WAIT_MILLIS);
+            this.latency = FuncUtils.nullEscape(latency, DEFAULT_LATENCY);
+            return new RetrievalRoundScheduler<>(storage, roundSize, maxWaitMillis, latency);
+        }
+
+        public Builder<ADDR, S> setStorage(EncodedNodeStorage<ADDR, S> storage) {
+            this.storage = storage;
+            return this;
+        }
+
+        public Builder<ADDR, S> setRoundSize(int roundSize) {
+            this.roundSize = roundSize;
+            return this;
+        }
+
+        public Builder<ADDR, S> setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        /**
+         * Sets the latency model of a round.
+         * @param latency maps the number of nodes retrieved in a round to the duration of the round in milliseconds.
+         * @return this builder.
+         */
+        public Builder<ADDR, S> setLatency(Function<Integer, Long> latency) {
+            this.latency = latency;
+            return this;
+        }
+    }
+}
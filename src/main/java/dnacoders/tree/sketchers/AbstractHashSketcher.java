@@ -13,8 +13,7 @@ import utils.*;
 import utils.lsh.LSH;
 import utils.lsh.minhash.MinHashLSH;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -28,6 +27,7 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
     public static final String SCORE_PROPERTY_NAME = "score";
 
     protected static final Function<Integer, Coder<BaseSequence, BaseSequence>> PADDER_FUNC = BasicDNAPadder::new;
+    private static final int MIN_SCORE_CHUNK_SIZE = 8;
 
     protected final int addressSize;
     protected final LSH<BaseSequence> lsh;
@@ -41,9 +41,12 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
     protected final Coder<String, BaseSequence> stringCoder;
     protected final AsymmetricCoder<Attribute<?>, Attribute<String>, BaseSequence> attributeCoder;
     protected final Map<Integer, Permutation> permutationsMap;
-    protected final AsymmetricCoder<DNAPointer.NativeDNAPointer, DecodedSketch<DNAPointer.NativeDNAPointer>, BaseSequence> coder;
+    // created on first use, so this sketcher does not escape its constructor
+    private volatile AsymmetricCoder<DNAPointer.NativeDNAPointer, DecodedSketch<DNAPointer.NativeDNAPointer>, BaseSequence> coder;
+    // bounded by the number of sketches. Concurrent misses of the same sketch may regenerate its addresses more than once, which is harmless since the generation is deterministic
+    private final LRUCache<SketchKey, BaseSequence[]> addressCache;
 
-    public AbstractHashSketcher(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight) {
+    public AbstractHashSketcher(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight, int addressCacheSize) {
         this.addressSize = addressSize;
         this.lsh = lsh;
         this.parallel = parallel;
@@ -56,34 +59,76 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
         this.stringCoder = stringCoder;
         this.errorRules = errorRules;
         this.attributeCoder = AttributeMapper.newInstance(stringCoder);
-        this.coder = new DNAHashSketchCoder(this, parallel);
+        this.addressCache = new LRUCache<>(addressCacheSize);
     }
 
     protected abstract Stream<BaseSequence> generateCandidates(int total, long seed);
+    protected abstract BaseSequence[] regenerateFromSketch(DNAPointer.NativeDNAPointer sketch);
+
+    /**
+     * Returns the addresses of a sketch. The addresses are regenerated once and then served from an LRU cache keyed by (seed, n, badIndices),
+     * so the kid sketches decoded again by every query do not repeat the address generation. The returned array is shared and must not be modified.
+     * @param sketch the sketch.
+     * @return the addresses of the sketch.
+     */
+    @Override
+    public BaseSequence[] generateFromSketch(DNAPointer.NativeDNAPointer sketch) {
+        SketchKey key = new SketchKey(sketch.seed(), sketch.n(), sketch.badIndices());
+        BaseSequence[] addresses = addressCache.get(key);
+        if (addresses != null)
+            return addresses;
+
+        addresses = regenerateFromSketch(sketch);
+        addressCache.put(key, addresses);
+        return addresses;
+    }
+
+    public AddressCacheStats addressCacheStats() {
+        return new AddressCacheStats(addressCache.hits(), addressCache.misses(), addressCache.size(), (int) addressCache.maxWeight());
+    }
 
+    public void clearAddressCache() {
+        addressCache.clear();
+    }
+
+    /**
+     * Creates a sketch of n addresses. Of n + tol candidates, the tol candidates with the lowest scores are dropped, ties dropping the lower index.
+     * The scores are kept in a primitive array, computed in chunks if this sketcher is parallel, and the dropped candidates are selected with a bounded heap.
+     * @param n the number of addresses.
+     * @param tol the number of additional candidates.
+     * @return the sketch.
+     */
     @Override
     public DNAPointer.NativeDNAPointer createSketch(int n, int tol) {
-        int total = n + tol;
-        long seed = seedCounter.getAndIncrement();
-        List<Pair<Integer, BaseSequence>> sortedCandidates =
-                FuncUtils.stream(FuncUtils.enumerate(
-                                        FuncUtils.stream(generateCandidates(total, seed), parallel)
-                                                .toList()
-                                                .stream()
-                                )
-                                .toList()
-                                .stream(), parallel)
-                        .peek(p -> p.getT2().putProperty(SCORE_PROPERTY_NAME, score(p.getT2(), errorWeight, distanceWeight)))
-                        .sorted(Comparator.comparing(p -> p.getT2().getProperty(SCORE_PROPERTY_NAME)))
-                        .toList();
-
-
-        int[] badIds = sortedCandidates.subList(0, tol).stream().mapToInt(Pair::getT1).toArray();
-        Stream<BaseSequence> bestAddressesStream = FuncUtils.stream(sortedCandidates.subList(tol, total).stream(), parallel).sorted(Comparator.comparing(Pair::getT1)).map(Pair::getT2);
+        return createSketch(n, tol, manageLsh);
+    }
+
+    @Override
+    public DNAPointer.NativeDNAPointer createUncommittedSketch(int n, int tol) {
+        return createSketch(n, tol, false);
+    }
+
+    @Override
+    public void commitSketch(DNAPointer.NativeDNAPointer sketch) {
         if (manageLsh)
-            bestAddressesStream = bestAddressesStream.peek(lsh::insert);
+            FuncUtils.stream(Arrays.stream(sketch.addresses()), parallel).forEach(lsh::insert);
+    }
 
-        BaseSequence[] bestAddresses = bestAddressesStream.toArray(BaseSequence[]::new);
+    private DNAPointer.NativeDNAPointer createSketch(int n, int tol, boolean insertIntoLsh) {
+        int total = n + tol;
+        long seed = seedCounter.getAndIncrement();
+        BaseSequence[] candidates = FuncUtils.stream(generateCandidates(total, seed), parallel).toArray(BaseSequence[]::new);
+        int[] badIds = tol > 0 ? worstIndices(scores(candidates), tol) : new int[0];
+
+        BaseSequence[] bestAddresses = new BaseSequence[n];
+        for (int i = 0, b = 0, k = 0; i < total; i++) {
+            if (b < badIds.length && badIds[b] == i)
+                b++;
+            else
+                bestAddresses[k++] = candidates[i];
+        }
+        if (insertIntoLsh)
+            FuncUtils.stream(Arrays.stream(bestAddresses), parallel).forEach(lsh::insert);
 
         return new DNAPointer.NativeDNAPointer(
                 seed,
@@ -93,13 +138,94 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
         );
     }
 
+    private float[] scores(BaseSequence[] candidates) {
+        int total = candidates.length;
+        float[] scores = new float[total];
+        int chunkSize = parallel ? Math.max(MIN_SCORE_CHUNK_SIZE, total / (4 * Runtime.getRuntime().availableProcessors())) : total;
+        int numChunks = (total + chunkSize - 1) / chunkSize;
+        FuncUtils.stream(IntStream.range(0, numChunks), parallel).forEach(c -> {
+            int end = Math.min(total, (c + 1) * chunkSize);
+            for (int i = c * chunkSize; i < end; i++)
+                scores[i] = candidateScore(candidates[i]);
+        });
+        return scores;
+    }
+
+    // the same as score(...), but without reading a cached score property
+    private float candidateScore(BaseSequence seq) {
+        float errorScore = errorWeight != 0.0f ? errorScore(seq) : 0.0f;
+        float distScore = distanceWeight != 0.0f ? distScore(seq) : 0.0f;
+        return -errorWeight * errorScore + distanceWeight * distScore;
+    }
+
+    // returns the sorted indices of the k lowest scores. The heap's root is the best of the k worst candidates seen so far
+    private static int[] worstIndices(float[] scores, int k) {
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, scores);
+            }
+            else if (worse(i, heap[0], scores)) {
+                heap[0] = i;
+                siftDown(heap, k, scores);
+            }
+        }
+        Arrays.sort(heap);
+        return heap;
+    }
+
+    private static boolean worse(int i, int j, float[] scores) {
+        int c = Float.compare(scores[i], scores[j]);
+        return c < 0 || c == 0 && i < j;
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(heap[parent], heap[i], scores))
+                return;
+
+            int t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int kid = 2 * i + 1;
+            if (kid >= size)
+                return;
+
+            if (kid + 1 < size && worse(heap[kid], heap[kid + 1], scores))
+                kid++;
+
+            if (!worse(heap[i], heap[kid], scores))
+                return;
+
+            int t = heap[kid];
+            heap[kid] = heap[i];
+            heap[i] = t;
+            i = kid;
+        }
+    }
+
     protected IntStream usedIndices(int n, int[] badIndices) {
         return FuncUtils.stream(DNAPointer.NativeDNAPointer.computeUsedIds(n, badIndices), parallel);
     }
 
     @Override
     public AsymmetricCoder<DNAPointer.NativeDNAPointer, DecodedSketch<DNAPointer.NativeDNAPointer>, BaseSequence> coder() {
-        return coder;
+        var c = coder;
+        // racing threads may create two coders, which is harmless since the coder has no state of its own
+        if (c == null)
+            coder = c = new DNAHashSketchCoder(this, parallel);
+
+        return c;
     }
 
     @Override
@@ -149,15 +275,40 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
         return seq.getProperty(SCORE_PROPERTY_NAME, () -> -errorWeight * errorScore + distanceWeight * distScore);
     }
 
+    public record AddressCacheStats(long hits, long misses, int size, int maxSize) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0L ? 0d : (double) hits / total;
+        }
+    }
+
+    // copies badIndices, since the array of the sketch may be modified after the key was cached
+    private record SketchKey(long seed, int n, int[] badIndices) {
+        private SketchKey {
+            badIndices = badIndices != null ? badIndices.clone() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SketchKey k && seed == k.seed && n == k.n && Arrays.equals(badIndices, k.badIndices);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(seed) + n) + Arrays.hashCode(badIndices);
+        }
+    }
 
     public static class Builder {
 
         public enum Flavor {
-            F1, F2
+            F1, F2, F3
         }
 
         public static final int DEFAULT_ADDRESS_SIZE = 80;
         public static final int DEFAULT_ADDRESS_ERROR_OPTS = 3;
+        public static final int DEFAULT_ADDRESS_ERROR_OPTS_F3 = 1;
+        public static final int DEFAULT_ADDRESS_CACHE_SIZE = 1 << 14;
 
         public static final DNARule DEFAULT_ERROR_RULES = SuperBasicDNARules.INSTANCE;
 
@@ -172,6 +323,7 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
 
         private Integer addressSize;
         private Integer addressErrorOpts;
+        private Integer addressCacheSize;
         private Flavor flavor;
         private Boolean parallel;
         private Boolean manageLsh;
@@ -183,8 +335,9 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
 
         public IDNASketcher<DNAPointer.NativeDNAPointer> build() {
             this.addressSize = FuncUtils.conditionOrElse(s -> s != null && s > 0, addressSize, () -> DEFAULT_ADDRESS_SIZE);
-            this.addressErrorOpts = FuncUtils.conditionOrElse(s -> s != null && s >= 0, addressErrorOpts, () -> DEFAULT_ADDRESS_ERROR_OPTS);
             this.flavor = FuncUtils.nullEscape(flavor, () -> DEFAULT_FLAVOR);
+            this.addressErrorOpts = FuncUtils.conditionOrElse(s -> s != null && s >= 0, addressErrorOpts, () -> flavor == Flavor.F3 ? DEFAULT_ADDRESS_ERROR_OPTS_F3 : DEFAULT_ADDRESS_ERROR_OPTS);
+            this.addressCacheSize = FuncUtils.conditionOrElse(s -> s != null && s >= 0, addressCacheSize, () -> DEFAULT_ADDRESS_CACHE_SIZE);
             this.parallel = FuncUtils.nullEscape(parallel, () -> DEFAULT_PARALLEL);
             this.manageLsh = FuncUtils.nullEscape(manageLsh, () -> DEFAULT_MANAGE_LSH);
             this.lsh = FuncUtils.nullEscape(lsh, () -> DEFAULT_LSH.apply(addressSize));
@@ -196,8 +349,9 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
             this.distanceWeight = FuncUtils.nullEscape(distanceWeight, () -> DEFAULT_DIST_WEIGHT);
 
             return switch (flavor) {
-                case F1 -> new DNASketcherV1(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight);
-                case F2 -> new DNASketcherV2(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight);
+                case F1 -> new DNASketcherV1(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight, addressCacheSize);
+                case F2 -> new DNASketcherV2(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight, addressCacheSize);
+                case F3 -> new DNASketcherV3(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight, addressCacheSize);
             };
         }
 
@@ -241,6 +395,16 @@ public abstract class AbstractHashSketcher implements IDNASketcher<DNAPointer.Na
             return this;
         }
 
+        /**
+         * Sets the maximum number of sketches whose regenerated addresses are cached.
+         * @param addressCacheSize the maximum number of cached sketches. 0 disables the cache.
+         * @return this builder.
+         */
+        public Builder setAddressCacheSize(int addressCacheSize) {
+            this.addressCacheSize = addressCacheSize;
+            return this;
+        }
+
         public Builder setStringCoder(Coder<String, BaseSequence> stringCoder) {
             this.stringCoder = stringCoder;
             return this;
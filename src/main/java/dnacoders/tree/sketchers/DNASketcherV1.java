@@ -22,8 +22,8 @@ public class DNASketcherV1 extends AbstractHashSketcher {
 
     private final Function<Long, BaseSequence> address0Generator;
 
-    public DNASketcherV1(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight) {
-        super(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight);
+    public DNASketcherV1(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight, int addressCacheSize) {
+        super(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight, addressCacheSize);
         var padder = PADDER_FUNC.apply(addressSize);
         this.address0Generator = l -> {
             var seq = padder.encode(attributeCoder.encode(LONG_TO_ATTRIBUTE_CODER.encode(l)));
@@ -54,7 +54,7 @@ public class DNASketcherV1 extends AbstractHashSketcher {
     }
 
     @Override
-    public BaseSequence[] generateFromSketch(DNAPointer.NativeDNAPointer NativeDNAPointer) {
+    protected BaseSequence[] regenerateFromSketch(DNAPointer.NativeDNAPointer NativeDNAPointer) {
         BaseSequence addr0 = address0Generator.apply(NativeDNAPointer.seed());
         return usedIndices(NativeDNAPointer.n(), NativeDNAPointer.badIndices())
                 .mapToObj(id -> computeAddr(addr0, id))
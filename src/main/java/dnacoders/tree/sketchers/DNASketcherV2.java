@@ -21,8 +21,8 @@ public class DNASketcherV2 extends AbstractHashSketcher {
 
     private final BiFunction<Long, Integer, BaseSequence> addressGenerator;
 
-    public DNASketcherV2(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight) {
-        super(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight);
+    public DNASketcherV2(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight, int addressCacheSize) {
+        super(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight, addressCacheSize);
         var padder = PADDER_FUNC.apply(addressSize);
         this.addressGenerator = (seed, n) -> {
             var seq = padder.encode(attributeCoder.encode(ATTRIBUTE_MAPPER.apply(seed, n)));
@@ -38,7 +38,7 @@ public class DNASketcherV2 extends AbstractHashSketcher {
     }
 
     @Override
-    public BaseSequence[] generateFromSketch(DNAPointer.NativeDNAPointer NativeDNAPointer) {
+    protected BaseSequence[] regenerateFromSketch(DNAPointer.NativeDNAPointer NativeDNAPointer) {
         long seed = NativeDNAPointer.seed();
         return usedIndices(NativeDNAPointer.n(), NativeDNAPointer.badIndices())
                 .mapToObj(i -> addressGenerator.apply(seed, i))
@@ -0,0 +1,96 @@
+package dnacoders.tree.sketchers;
+
+import core.Base;
+import core.BaseSequence;
+import core.dnarules.DNARule;
+import datastructures.reference.DNAPointer;
+import utils.Coder;
+import utils.FuncUtils;
+import utils.lsh.LSH;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Maps (seed, index) directly to an address without the string, Huffman and padding path of DNASketcherV1 and DNASketcherV2.
+ * The bits of a SplitMix64 stream over (seed, index, trial) choose every next base among the three bases different from the previous one, so an address has no homopolymers.
+ * The choice between GC and AT is random while the GC count stays within one base of half the current length, and forced back otherwise, so every prefix of an address is GC balanced.
+ * Since these constraints hold by construction, a single trial is the default. With addressErrorOpts greater than 1, the trial with the lowest error score is taken.
+ */
+public class DNASketcherV3 extends AbstractHashSketcher {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long INDEX_GAMMA = 0xC2B2AE3D27D4EB4FL;
+    private static final long TRIAL_GAMMA = 0x165667B19E3779F9L;
+
+    private static final Base[] GC = {Base.G, Base.C};
+    private static final Base[] AT = {Base.A, Base.T};
+
+    public DNASketcherV3(int addressSize, LSH<BaseSequence> lsh, DNARule errorRules, Coder<String, BaseSequence> stringCoder, boolean parallel, boolean manageLsh, int addressErrorOpts, float errorWeight, float distanceWeight, int addressCacheSize) {
+        super(addressSize, lsh, errorRules, stringCoder, parallel, manageLsh, addressErrorOpts, errorWeight, distanceWeight, addressCacheSize);
+    }
+
+    @Override
+    protected Stream<BaseSequence> generateCandidates(int total, long seed) {
+        return FuncUtils.stream(IntStream.iterate(0, i -> i < total, i -> i + 1), parallel).mapToObj(i -> address(seed, i));
+    }
+
+    @Override
+    protected BaseSequence[] regenerateFromSketch(DNAPointer.NativeDNAPointer NativeDNAPointer) {
+        long seed = NativeDNAPointer.seed();
+        return usedIndices(NativeDNAPointer.n(), NativeDNAPointer.badIndices())
+                .mapToObj(i -> address(seed, i))
+                .toArray(BaseSequence[]::new);
+    }
+
+    private BaseSequence address(long seed, int index) {
+        if (addressErrorOpts <= 1)
+            return generate(seed, index, 0);
+
+        return IntStream.range(0, addressErrorOpts)
+                .mapToObj(trial -> generate(seed, index, trial))
+                .peek(seq -> seq.putProperty(ERROR_PROPERTY_NAME, errorScore(seq)))
+                .min(Comparator.comparing(seq -> seq.getProperty(ERROR_PROPERTY_NAME)))
+                .orElseThrow();
+    }
+
+    private BaseSequence generate(long seed, int index, int trial) {
+        long state = seed * GOLDEN_GAMMA + index * INDEX_GAMMA + trial * TRIAL_GAMMA;
+        long bits = 0L;
+        int numBits = 0;
+        Base[] bases = new Base[addressSize];
+        Base previous = null;
+        int gcCount = 0;
+        for (int i = 0; i < addressSize; i++) {
+            if (numBits < 2) {
+                state += GOLDEN_GAMMA;
+                bits = mix(state);
+                numBits = Long.SIZE;
+            }
+
+            // 2 * gcCount - i is twice the deviation from a GC content of 0.5
+            int deviation = 2 * gcCount - i;
+            boolean gc = deviation > 1 ? false : deviation < -1 || (bits & 1L) != 0L;
+            Base[] candidates = gc ? GC : AT;
+            Base b = candidates[(int) (bits >>> 1) & 1];
+            if (b == previous)
+                b = candidates[1 - ((int) (bits >>> 1) & 1)];
+
+            bits >>>= 2;
+            numBits -= 2;
+            bases[i] = b;
+            previous = b;
+            if (gc)
+                gcCount++;
+        }
+        return new BaseSequence(bases);
+    }
+
+    // the finalizer of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -12,6 +12,24 @@ public interface IDNASketcher<S extends DNAPointer> extends Function<S, BaseSequ
     BaseSequence[] generateFromSketch(S s);
     S createSketch(int n, int tol);
 
+    /**
+     * Creates a sketch like createSketch(...), but does not insert its addresses into the LSH, e.g., for a trial that may be discarded.
+     * Sketchers that cannot defer the insert create a regular sketch.
+     * @param n the number of addresses.
+     * @param tol the number of additional candidates.
+     * @return the sketch.
+     */
+    default S createUncommittedSketch(int n, int tol) {
+        return createSketch(n, tol);
+    }
+
+    /**
+     * Inserts the addresses of a sketch created by createUncommittedSketch(...) into the LSH, as createSketch(...) does.
+     * @param s the sketch.
+     */
+    default void commitSketch(S s) {
+    }
+
     int addressSize();
 
     @Override
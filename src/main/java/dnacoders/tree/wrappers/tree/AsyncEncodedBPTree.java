@@ -0,0 +1,138 @@
+package dnacoders.tree.wrappers.tree;
+
+import datastructures.reference.DNAPointer;
+import dnacoders.tree.encodednodestorage.RetrievalRoundScheduler;
+import dnacoders.tree.wrappers.node.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Answers queries on an encoded tree asynchronously. Every node below the root is requested from a RetrievalRoundScheduler, so the nodes requested by concurrent queries
+ * share retrieval rounds. The decoded root is cached, and nodes are decoded on the executor, not on the scheduler's thread.
+ * @param <K> the key type.
+ * @param <V> the value type.
+ * @param <ADDR> the address type of the tree's storage.
+ * @param <S> the sketch type of the nodes.
+ */
+public class AsyncEncodedBPTree<K extends Comparable<K>, V, ADDR, S extends DNAPointer> {
+
+    private final AbstractEncodedBPTree<K, V, ADDR, S> tree;
+    private final RetrievalRoundScheduler<ADDR, S> scheduler;
+    private final Executor executor;
+    private volatile CompletableFuture<DecodedNode<K, S>> root;
+
+    public AsyncEncodedBPTree(AbstractEncodedBPTree<K, V, ADDR, S> tree, RetrievalRoundScheduler<ADDR, S> scheduler, Executor executor) {
+        if (scheduler.getStorage() != tree.getEncodedNodeStorage())
+            throw new RuntimeException("the scheduler does not retrieve from the tree's storage");
+
+        this.tree = tree;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    public AsyncEncodedBPTree(AbstractEncodedBPTree<K, V, ADDR, S> tree, RetrievalRoundScheduler<ADDR, S> scheduler) {
+        this(tree, scheduler, ForkJoinPool.commonPool());
+    }
+
+    public AbstractEncodedBPTree<K, V, ADDR, S> getTree() {
+        return tree;
+    }
+
+    public RetrievalRoundScheduler<ADDR, S> getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Searches the value of a key.
+     * @param key the key.
+     * @return a future completed with the value, or null if the key is not found.
+     */
+    public CompletableFuture<V> search(K key) {
+        return decodedRoot()
+                .thenCompose(root -> root == null ? CompletableFuture.completedFuture(null) : leaf(root, key))
+                .thenApply(node -> {
+                    if (node == null)
+                        return null;
+
+                    DecodedLeafNode<K, V, S> leaf = node.asDecodedLeaf();
+                    int index = Collections.binarySearch(leaf.getKeys(), key);
+                    return index >= 0 ? leaf.getValues().get(index) : null;
+                });
+    }
+
+    /**
+     * Searches the values of the keys in [keyLow, keyHigh]. The remaining leaves of a parent node are requested at once, so they are usually retrieved in the same round.
+     * @param keyLow the lower bound.
+     * @param keyHigh the upper bound.
+     * @return a future completed with the values in the order of their keys.
+     */
+    public CompletableFuture<List<V>> search(K keyLow, K keyHigh) {
+        return decodedRoot().thenCompose(root -> {
+            if (root == null)
+                return CompletableFuture.completedFuture(List.of());
+
+            if (root.isLeaf())
+                return CompletableFuture.completedFuture(root.<V>asDecodedLeaf().searchByKey(keyLow, keyHigh).hits());
+
+            return parentOfLeaf(root, keyLow).thenCompose(parent -> range(parent, parent.findKidIndex(keyLow), keyLow, keyHigh, new ArrayList<>()));
+        });
+    }
+
+    private CompletableFuture<DecodedNode<K, S>> decodedRoot() {
+        var r = root;
+        if (r == null) {
+            synchronized (this) {
+                r = root;
+                if (r == null) {
+                    r = CompletableFuture.supplyAsync(() -> tree.isEmpty() ? null : tree.decode(tree.getRoot()), executor);
+                    root = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    private CompletableFuture<DecodedNode<K, S>> retrieve(ADDR address) {
+        return scheduler.request(address).thenApplyAsync(tree::decode, executor);
+    }
+
+    private CompletableFuture<DecodedNode<K, S>> leaf(DecodedNode<K, S> node, K key) {
+        if (node.isLeaf())
+            return CompletableFuture.completedFuture(node);
+
+        return retrieve(tree.getAddress(node.asDecodedInternalNode(), key)).thenCompose(kid -> leaf(kid, key));
+    }
+
+    private CompletableFuture<DecodedInternalNode<K, S>> parentOfLeaf(DecodedNode<K, S> node, K key) {
+        DecodedInternalNode<K, S> internalNode = node.asDecodedInternalNode();
+        if (internalNode.isAboveLeaf())
+            return CompletableFuture.completedFuture(internalNode);
+
+        return retrieve(tree.getAddress(internalNode, key)).thenCompose(kid -> parentOfLeaf(kid, key));
+    }
+
+    private CompletableFuture<List<V>> range(DecodedInternalNode<K, S> parent, int fromIndex, K keyLow, K keyHigh, List<V> hits) {
+        List<CompletableFuture<DecodedNode<K, S>>> leaves = new ArrayList<>(parent.numKids() - fromIndex);
+        for (int i = fromIndex; i < parent.numKids(); i++)
+            leaves.add(retrieve(tree.getAddress(parent, i)));
+
+        return CompletableFuture.allOf(leaves.toArray(CompletableFuture[]::new)).thenCompose(__ -> {
+            for (var leaf : leaves) {
+                DecodedLeafNode.RangeSearchResult<V> result = leaf.join().<V>asDecodedLeaf().searchByKey(keyLow, keyHigh);
+                hits.addAll(result.hits());
+                if (result.isLastLeaf())
+                    return CompletableFuture.completedFuture(hits);
+            }
+
+            S right = parent instanceof DecodedInternalNodeAboveLeaf<K, S> n ? n.getRightSketch() : null;
+            if (right == null)
+                return CompletableFuture.completedFuture(hits);
+
+            return retrieve(tree.getAddress(right)).thenCompose(next -> range(next.asDecodedInternalNode(), 0, keyLow, keyHigh, hits));
+        });
+    }
+}
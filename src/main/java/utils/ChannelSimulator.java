@@ -0,0 +1,269 @@
+package utils;
+
+import core.Base;
+import core.BaseSequence;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates the synthesis, PCR and sequencing channel of a pool of oligos. Each oligo is dropped out with a fixed probability, or amplified with a log-normal efficiency
+ * and read a number of times drawn from the coverage distribution. Every read gets independent substitutions, insertions and deletions, and the reads are returned shuffled.
+ * The simulation only depends on the seed and the order of the oligos, so it is reproducible, also when it runs in parallel.
+ */
+public class ChannelSimulator {
+
+    /**
+     * The distribution of the number of reads of an oligo. NEGATIVE_BINOMIAL is a gamma-Poisson mixture, i.e., an over-dispersed Poisson distribution.
+     */
+    public enum Coverage {
+        FIXED, POISSON, NEGATIVE_BINOMIAL
+    }
+
+    private static final Base[] BASES = Base.values();
+
+    private final double substitutionRate;
+    private final double insertionRate;
+    private final double deletionRate;
+    private final double meanCoverage;
+    private final Coverage coverage;
+    private final double dispersion;
+    private final double dropoutRate;
+    private final double pcrSkew;
+    private final long seed;
+    private final boolean parallel;
+
+    private ChannelSimulator(double substitutionRate, double insertionRate, double deletionRate, double meanCoverage, Coverage coverage, double dispersion, double dropoutRate, double pcrSkew, long seed, boolean parallel) {
+        this.substitutionRate = substitutionRate;
+        this.insertionRate = insertionRate;
+        this.deletionRate = deletionRate;
+        this.meanCoverage = meanCoverage;
+        this.coverage = coverage;
+        this.dispersion = dispersion;
+        this.dropoutRate = dropoutRate;
+        this.pcrSkew = pcrSkew;
+        this.seed = seed;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Simulates the reads of a pool of oligos.
+     * @param oligos the oligos.
+     * @return the shuffled reads.
+     */
+    public List<BaseSequence> simulate(List<BaseSequence> oligos) {
+        List<BaseSequence> reads = new ArrayList<>(FuncUtils.stream(IntStream.range(0, oligos.size()), parallel)
+                .mapToObj(i -> reads(oligos.get(i), new SplittableRandom(seed ^ (i * 0x9E3779B97F4A7C15L))))
+                .flatMap(List::stream)
+                .toList());
+
+        Collections.shuffle(reads, new Random(seed));
+        return reads;
+    }
+
+    /**
+     * Simulates the reads of a pool of oligos stored in a FASTA or FASTQ file, e.g., a pool written by OligoExporter.
+     * @param pool the file of the pool.
+     * @return the shuffled reads.
+     */
+    public List<BaseSequence> simulate(Path pool) {
+        return simulate(new FastxReader(pool).sequences(parallel).toList());
+    }
+
+    private List<BaseSequence> reads(BaseSequence oligo, SplittableRandom rand) {
+        if (rand.nextDouble() < dropoutRate)
+            return List.of();
+
+        // the efficiency is normalized to a mean of 1, so pcrSkew does not change the mean coverage
+        double efficiency = pcrSkew > 0d ? Math.exp(pcrSkew * rand.nextGaussian() - pcrSkew * pcrSkew / 2d) : 1d;
+        double mean = meanCoverage * efficiency;
+        int numReads = switch (coverage) {
+            case FIXED -> (int) Math.round(mean);
+            case POISSON -> poisson(mean, rand);
+            case NEGATIVE_BINOMIAL -> poisson(gamma(dispersion, rand) * mean / dispersion, rand);
+        };
+
+        List<BaseSequence> reads = new ArrayList<>(numReads);
+        for (int i = 0; i < numReads; i++)
+            reads.add(read(oligo, rand));
+
+        return reads;
+    }
+
+    private BaseSequence read(BaseSequence oligo, SplittableRandom rand) {
+        int len = oligo.length();
+        List<Base> bases = new ArrayList<>(len + 4);
+        for (int i = 0; i < len; i++) {
+            double r = rand.nextDouble();
+            if (r < deletionRate)
+                continue;
+
+            if (r < deletionRate + insertionRate)
+                bases.add(BASES[rand.nextInt(BASES.length)]);
+
+            Base b = oligo.get(i);
+            if (rand.nextDouble() < substitutionRate)
+                b = BASES[(b.ordinal() + 1 + rand.nextInt(BASES.length - 1)) % BASES.length];
+
+            bases.add(b);
+        }
+        return new BaseSequence(bases);
+    }
+
+    private static int poisson(double mean, SplittableRandom rand) {
+        if (mean <= 0d)
+            return 0;
+
+        if (mean > 64d)
+            return (int) Math.max(0L, Math.round(mean + Math.sqrt(mean) * rand.nextGaussian()));
+
+        double l = Math.exp(-mean);
+        double p = rand.nextDouble();
+        int k = 0;
+        while (p > l) {
+            p *= rand.nextDouble();
+            k++;
+        }
+        return k;
+    }
+
+    // Marsaglia and Tsang's method for the gamma distribution with the given shape and a scale of 1
+    private static double gamma(double shape, SplittableRandom rand) {
+        if (shape < 1d)
+            return gamma(shape + 1d, rand) * Math.pow(rand.nextDouble(), 1d / shape);
+
+        double d = shape - 1d / 3d;
+        double c = 1d / Math.sqrt(9d * d);
+        while (true) {
+            double x = rand.nextGaussian();
+            double v = 1d + c * x;
+            if (v <= 0d)
+                continue;
+
+            v = v * v * v;
+            double u = rand.nextDouble();
+            if (Math.log(u) < 0.5d * x * x + d - d * v + d * Math.log(v))
+                return d * v;
+        }
+    }
+
+    public double getMeanCoverage() {
+        return meanCoverage;
+    }
+
+    public double getErrorRate() {
+        return substitutionRate + insertionRate + deletionRate;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        public static final double DEFAULT_SUBSTITUTION_RATE = 0.005d;
+        public static final double DEFAULT_INSERTION_RATE = 0.001d;
+        public static final double DEFAULT_DELETION_RATE = 0.001d;
+        public static final double DEFAULT_MEAN_COVERAGE = 10d;
+        public static final Coverage DEFAULT_COVERAGE = Coverage.POISSON;
+        public static final double DEFAULT_DISPERSION = 4d;
+        public static final double DEFAULT_DROPOUT_RATE = 0d;
+        public static final double DEFAULT_PCR_SKEW = 0d;
+        public static final long DEFAULT_SEED = 42L;
+        public static final boolean DEFAULT_PARALLEL = true;
+
+        private Double substitutionRate;
+        private Double insertionRate;
+        private Double deletionRate;
+        private Double meanCoverage;
+        private Coverage coverage;
+        private Double dispersion;
+        private Double dropoutRate;
+        private Double pcrSkew;
+        private Long seed;
+        private Boolean parallel;
+
+        public ChannelSimulator build() {
+            this.substitutionRate = FuncUtils.conditionOrElse(r -> r != null && r >= 0d, substitutionRate, () -> DEFAULT_SUBSTITUTION_RATE);
+            this.insertionRate = FuncUtils.conditionOrElse(r -> r != null && r >= 0d, insertionRate, () -> DEFAULT_INSERTION_RATE);
+            this.deletionRate = FuncUtils.conditionOrElse(r -> r != null && r >= 0d, deletionRate, () -> DEFAULT_DELETION_RATE);
+            this.meanCoverage = FuncUtils.conditionOrElse(c -> c != null && c >= 0d, meanCoverage, () -> DEFAULT_MEAN_COVERAGE);
+            this.coverage = FuncUtils.nullEscape(coverage, DEFAULT_COVERAGE);
+            this.dispersion = FuncUtils.conditionOrElse(d -> d != null && d > 0d, dispersion, () -> DEFAULT_DISPERSION);
+            this.dropoutRate = FuncUtils.conditionOrElse(r -> r != null && r >= 0d, dropoutRate, () -> DEFAULT_DROPOUT_RATE);
+            this.pcrSkew = FuncUtils.conditionOrElse(s -> s != null && s >= 0d, pcrSkew, () -> DEFAULT_PCR_SKEW);
+            this.seed = FuncUtils.nullEscape(seed, DEFAULT_SEED);
+            this.parallel = FuncUtils.nullEscape(parallel, DEFAULT_PARALLEL);
+            if (insertionRate + deletionRate > 1d)
+                throw new RuntimeException("insertionRate + deletionRate > 1");
+
+            return new ChannelSimulator(substitutionRate, insertionRate, deletionRate, meanCoverage, coverage, dispersion, dropoutRate, pcrSkew, seed, parallel);
+        }
+
+        public Builder setSubstitutionRate(double substitutionRate) {
+            this.substitutionRate = substitutionRate;
+            return this;
+        }
+
+        public Builder setInsertionRate(double insertionRate) {
+            this.insertionRate = insertionRate;
+            return this;
+        }
+
+        public Builder setDeletionRate(double deletionRate) {
+            this.deletionRate = deletionRate;
+            return this;
+        }
+
+        /**
+         * Splits a total error rate into substitutions, insertions and deletions in the ratio 70:15:15.
+         * @param errorRate the total error rate per base.
+         * @return this builder.
+         */
+        public Builder setErrorRate(double errorRate) {
+            this.substitutionRate = 0.7d * errorRate;
+            this.insertionRate = 0.15d * errorRate;
+            this.deletionRate = 0.15d * errorRate;
+            return this;
+        }
+
+        public Builder setMeanCoverage(double meanCoverage) {
+            this.meanCoverage = meanCoverage;
+            return this;
+        }
+
+        public Builder setCoverage(Coverage coverage) {
+            this.coverage = coverage;
+            return this;
+        }
+
+        public Builder setDispersion(double dispersion) {
+            this.dispersion = dispersion;
+            return this;
+        }
+
+        public Builder setDropoutRate(double dropoutRate) {
+            this.dropoutRate = dropoutRate;
+            return this;
+        }
+
+        public Builder setPcrSkew(double pcrSkew) {
+            this.pcrSkew = pcrSkew;
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder setParallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+    }
+}
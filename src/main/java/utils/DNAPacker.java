@@ -7,6 +7,7 @@ import dnacoders.dnaconvertors.RotatingQuattro;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 public class DNAPacker {
@@ -193,6 +194,17 @@ public class DNAPacker {
             return numMapperUnsigned.apply(decodedBases);
         }
 
+        /**
+         * Unpacks the first packed number in a given DNA sequence as primitive long without boxing it.
+         * @param seq the DNA sequence.
+         * @return the decoded number.
+         */
+        public long unpackSingleUnsignedLong(BaseSequence seq) {
+            BaseSequence encodedValue = seq.window(getSignatureSize(), totalSize());
+            BitString decodedBases = ROTATOR.decodeDirect(encodedValue);
+            return decodedBases.toLong(0, decodedBases.length());
+        }
+
         public int getSignatureSize() {
             return signature.length();
         }
@@ -288,6 +300,35 @@ public class DNAPacker {
         pack(seq, n, header);
     }
 
+    /**
+     * Packs the given unsigned primitive long to the supplied DNA sequence without boxing it. The result is the same as packUnsigned(seq, n) for a non-negative Number n.
+     * @param seq the DNA sequence.
+     * @param n the number to be packed.
+     */
+    public static void packUnsignedLong(BaseSequence seq, long n) {
+        BitString bits = new BitString().append(n, false);
+        LengthBase header = LengthBase.parseUnsignedNumber(bits.length());
+        BitString newBits = new BitString().append(false, header.bitCount - bits.length()).append(bits);
+        seq.append(header.signature);
+        seq.append(ROTATOR.encodeDirect(newBits));
+    }
+
+    /**
+     * Unpacks all unsigned values from a given DNA sequence to a primitive long array.
+     * @param seq the DNA sequence.
+     * @return the unpacked values.
+     */
+    public static long[] unpackAllUnsignedLong(BaseSequence seq) {
+        LongStream.Builder builder = LongStream.builder();
+        LengthBase lb;
+        while (seq.length() > 0) {
+            lb = LengthBase.parsePrefix(seq);
+            builder.add(lb.unpackSingleUnsignedLong(seq));
+            seq = seq.window(lb.totalSize());
+        }
+        return builder.build().toArray();
+    }
+
     /**
      * Packs the given number to the supplied DNA sequence as specified by a LengthBase.
      * @param seq the DNA sequence.
@@ -0,0 +1,351 @@
+package utils;
+
+import core.Base;
+import core.BaseSequence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads FASTA or FASTQ files through read-only memory mappings, so files larger than the heap are parsed without copying them first.
+ * The records are exposed as an ordered Spliterator over byte ranges that are split on record boundaries, so a parallel stream parses disjoint parts of the file in parallel.
+ * Bases are decoded with a lookup table straight into BaseSequences. Multi-line FASTA sequences are supported, while FASTQ records must have the 4-line layout written by OligoExporter.
+ */
+public class FastxReader {
+
+    public static final long DEFAULT_MIN_SPLIT_SIZE = 1L << 16;
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1L;
+    private static final Base[] LOOKUP = new Base[256];
+    static {
+        for (Base b : Base.values()) {
+            LOOKUP[Character.toUpperCase(b.name().charAt(0))] = b;
+            LOOKUP[Character.toLowerCase(b.name().charAt(0))] = b;
+        }
+    }
+
+    /**
+     * A parsed record.
+     * @param name the name in the header line.
+     * @param seq the sequence.
+     * @param quality the quality line of a FASTQ record, or null for FASTA records.
+     */
+    public record Record(String name, BaseSequence seq, String quality) {
+    }
+
+    private final Path path;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+    private final OligoExporter.Format format;
+    private final long minSplitSize;
+
+    /**
+     * Maps a FASTA or FASTQ file. The format is detected from the first byte.
+     * @param path the file.
+     * @param minSplitSize the minimum number of bytes of a split of the spliterator.
+     */
+    public FastxReader(Path path, long minSplitSize) {
+        this.path = path;
+        this.minSplitSize = Math.max(1L, minSplitSize);
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.size = fc.size();
+            this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long pos = (long) i << CHUNK_SHIFT;
+                chunks[i] = fc.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(CHUNK_MASK + 1L, size - pos));
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (size == 0L || byteAt(0L) == '>')
+            this.format = OligoExporter.Format.FASTA;
+        else if (byteAt(0L) == '@')
+            this.format = OligoExporter.Format.FASTQ;
+        else
+            throw new RuntimeException("not a FASTA or FASTQ file: " + path);
+    }
+
+    public FastxReader(Path path) {
+        this(path, DEFAULT_MIN_SPLIT_SIZE);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public OligoExporter.Format getFormat() {
+        return format;
+    }
+
+    public long sizeInBytes() {
+        return size;
+    }
+
+    public Spliterator<Record> spliterator() {
+        return new RecordSpliterator(0L, size, false);
+    }
+
+    public Stream<Record> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    /**
+     * Streams the sequences of all records in file order, e.g., to import them with SizedDNAContainer.putAll(...).
+     * @param parallel true to parse in parallel.
+     * @return the stream of sequences.
+     */
+    public Stream<BaseSequence> sequences(boolean parallel) {
+        return stream(parallel).map(Record::seq);
+    }
+
+    /**
+     * Streams the sequences of consecutive records grouped by the part of their names before the last '_', i.e., the oligos of the nodes exported by OligoExporter from a tree.
+     * The groups can be passed to BPTreeNativeCoder.decodeOligoStream(...). Splits never cut a group.
+     * @param parallel true to parse in parallel.
+     * @return the stream of the grouped sequences.
+     */
+    public Stream<BaseSequence[]> groupedSequences(boolean parallel) {
+        return StreamSupport.stream(new GroupSpliterator(new RecordSpliterator(0L, size, true)), parallel);
+    }
+
+    private static String group(String name) {
+        int i = name.lastIndexOf('_');
+        return i < 0 ? name : name.substring(0, i);
+    }
+
+    private byte byteAt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].get((int) (pos & CHUNK_MASK));
+    }
+
+    // returns the position after the next '\n' at or after pos, or size
+    private long nextLine(long pos) {
+        while (pos < size && byteAt(pos) != '\n')
+            pos++;
+
+        return Math.min(size, pos + 1L);
+    }
+
+    private boolean isRecordStart(long pos) {
+        if (pos >= size)
+            return true;
+
+        if (format == OligoExporter.Format.FASTA)
+            return byteAt(pos) == '>';
+
+        // a quality line may start with '@' as well, but only a header is followed by the sequence and then the '+' line
+        if (byteAt(pos) != '@')
+            return false;
+
+        long plusLine = nextLine(nextLine(pos));
+        return plusLine < size && byteAt(plusLine) == '+';
+    }
+
+    // returns the first record start at a line start after pos, or size
+    private long nextRecordStart(long pos) {
+        long line = nextLine(pos);
+        while (!isRecordStart(line))
+            line = nextLine(line);
+
+        return line;
+    }
+
+    private String readLine(long from, long to) {
+        if (to > from && byteAt(to - 1L) == '\n')
+            to--;
+        if (to > from && byteAt(to - 1L) == '\r')
+            to--;
+
+        byte[] bytes = new byte[(int) (to - from)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = byteAt(from + i);
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // parses the record at pos into result[0] and returns the start of the next record
+    private long parse(long pos, Record[] result) {
+        long seqStart = nextLine(pos);
+        String name = readLine(pos + 1L, seqStart);
+        Base[] bases = new Base[64];
+        int len = 0;
+        long p = seqStart;
+        long end;
+        if (format == OligoExporter.Format.FASTA) {
+            while (p < size && byteAt(p) != '>') {
+                for (byte b; p < size && (b = byteAt(p)) != '\n'; p++) {
+                    if (b == '\r')
+                        continue;
+
+                    if (len == bases.length)
+                        bases = Arrays.copyOf(bases, len << 1);
+
+                    bases[len++] = decode(b, p);
+                }
+                p = Math.min(size, p + 1L);
+            }
+            end = p;
+            result[0] = new Record(name, toSeq(bases, len), null);
+        }
+        else {
+            long plusLine = nextLine(seqStart);
+            for (; p < plusLine; p++) {
+                byte b = byteAt(p);
+                if (b == '\n' || b == '\r')
+                    continue;
+
+                if (len == bases.length)
+                    bases = Arrays.copyOf(bases, len << 1);
+
+                bases[len++] = decode(b, p);
+            }
+            long qualityLine = nextLine(plusLine);
+            end = nextLine(qualityLine);
+            result[0] = new Record(name, toSeq(bases, len), readLine(qualityLine, end));
+        }
+        return end;
+    }
+
+    private static BaseSequence toSeq(Base[] bases, int len) {
+        return new BaseSequence(new ArrayList<>(Arrays.asList(bases).subList(0, len)));
+    }
+
+    private Base decode(byte b, long pos) {
+        Base base = LOOKUP[b & 0xFF];
+        if (base == null)
+            throw new RuntimeException("invalid base '" + (char) b + "' at byte " + pos + " of " + path);
+
+        return base;
+    }
+
+    // the records whose first byte lies in [start, end). Both bounds are record starts, or group starts if grouped is true
+    private final class RecordSpliterator implements Spliterator<Record> {
+        private long start;
+        private final long end;
+        private final boolean grouped;
+        private final Record[] next = new Record[1];
+
+        private RecordSpliterator(long start, long end, boolean grouped) {
+            this.start = start;
+            this.end = end;
+            this.grouped = grouped;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Record> action) {
+            if (start >= end)
+                return false;
+
+            start = parse(start, next);
+            action.accept(next[0]);
+            return true;
+        }
+
+        @Override
+        public Spliterator<Record> trySplit() {
+            if (end - start < 2L * minSplitSize)
+                return null;
+
+            long mid = nextRecordStart(start + (end - start) / 2L);
+            if (grouped)
+                mid = nextGroupStart(mid);
+
+            if (mid <= start || mid >= end)
+                return null;
+
+            RecordSpliterator prefix = new RecordSpliterator(start, mid, grouped);
+            this.start = mid;
+            return prefix;
+        }
+
+        // skips the records of the group at pos
+        private long nextGroupStart(long pos) {
+            if (pos >= end)
+                return pos;
+
+            Record[] r = new Record[1];
+            long p = parse(pos, r);
+            String group = group(r[0].name());
+            while (p < end) {
+                long q = parse(p, r);
+                if (!group.equals(group(r[0].name())))
+                    break;
+
+                p = q;
+            }
+            return p;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - start;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    // groups consecutive records of a RecordSpliterator by group(name)
+    private static final class GroupSpliterator implements Spliterator<BaseSequence[]> {
+        private final Spliterator<Record> records;
+        private Record pending;
+
+        private GroupSpliterator(Spliterator<Record> records) {
+            this.records = records;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BaseSequence[]> action) {
+            if (pending == null && !records.tryAdvance(r -> pending = r))
+                return false;
+
+            String group = group(pending.name());
+            List<BaseSequence> seqs = new ArrayList<>();
+            seqs.add(pending.seq());
+            pending = null;
+            while (records.tryAdvance(r -> pending = r)) {
+                if (!group.equals(group(pending.name())))
+                    break;
+
+                seqs.add(pending.seq());
+                pending = null;
+            }
+            action.accept(seqs.toArray(BaseSequence[]::new));
+            return true;
+        }
+
+        @Override
+        public Spliterator<BaseSequence[]> trySplit() {
+            if (pending != null)
+                return null;
+
+            Spliterator<Record> prefix = records.trySplit();
+            return prefix == null ? null : new GroupSpliterator(prefix);
+        }
+
+        @Override
+        public long estimateSize() {
+            return records.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import utils.rand.Ranlux;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
@@ -25,6 +26,16 @@ public final class FuncUtils {
         void run() throws Exception;
     }
 
+    @FunctionalInterface
+    public interface OutputAttempt {
+        void write(DataOutputStream out) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface InputAttempt {
+        void read(DataInputStream in) throws Exception;
+    }
+
     /**
      * Runs the given runnableAttempt and converts all exceptions to RuntimeExceptions.
      * @param runnableAttempt the RunnableAttempt object.
@@ -315,6 +326,35 @@ public final class FuncUtils {
         return StreamSupport.stream(stream.spliterator(), stream.isParallel()).map(e -> new Pair<>(i.getAndIncrement(), e));
     }
 
+    /**
+     * Writes a file through a temporary sibling file that atomically replaces the target, so a crash never leaves a partially written file behind.
+     * Converts all exceptions to RuntimeExceptions.
+     * @param path the path of the file.
+     * @param writer the function writing the content of the file.
+     */
+    public static void writeFileAtomically(Path path, OutputAttempt writer) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        safeRun(() -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                writer.write(out);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        });
+    }
+
+    /**
+     * Reads a file, e.g., one written by writeFileAtomically(...). Converts all exceptions to RuntimeExceptions.
+     * @param path the path of the file.
+     * @param reader the function reading the content of the file.
+     */
+    public static void readFile(Path path, InputAttempt reader) {
+        safeRun(() -> {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                reader.read(in);
+            }
+        });
+    }
+
     /**
      * Serializes a given Serializable object to a byte array.
      * @param object the Serializable object.
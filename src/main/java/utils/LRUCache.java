@@ -0,0 +1,121 @@
+package utils;
+
+import java.util.LinkedHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * A synchronized LRU map bounded by the total weight of its values, counting its hits and misses. A maximum weight of 0 disables the cache.
+ * Every removal bumps a version, so a caller can read the version before loading a value and drop the value if an invalidation happened meanwhile.
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public final class LRUCache<K, V> {
+    private final LinkedHashMap<K, V> map;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private long weight;
+    private long version;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache bounded by the number of its entries.
+     * @param maxSize the maximum number of entries.
+     */
+    public LRUCache(long maxSize) {
+        this(maxSize, __ -> 1L);
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its values.
+     * @param maxWeight the maximum total weight.
+     * @param weigher the weight of a value.
+     */
+    public LRUCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        if (maxWeight <= 0L)
+            return null;
+
+        V value = map.get(key);
+        if (value != null)
+            hits++;
+        else
+            misses++;
+
+        return value;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized void put(K key, V value) {
+        put(key, value, version);
+    }
+
+    /**
+     * Caches a value unless the cache was invalidated since readVersion, or the value alone exceeds the maximum weight.
+     * @param key the key.
+     * @param value the value.
+     * @param readVersion the version read before loading the value.
+     */
+    public synchronized void put(K key, V value, long readVersion) {
+        if (maxWeight <= 0L)
+            return;
+
+        long w = weigher.applyAsLong(value);
+        if (readVersion != version || w > maxWeight)
+            return;
+
+        V old = map.put(key, value);
+        weight += w - (old != null ? weigher.applyAsLong(old) : 0L);
+        var it = map.values().iterator();
+        while (weight > maxWeight) {
+            weight -= weigher.applyAsLong(it.next());
+            it.remove();
+        }
+    }
+
+    public synchronized void remove(K key) {
+        version++;
+        V old = map.remove(key);
+        if (old != null)
+            weight -= weigher.applyAsLong(old);
+    }
+
+    public synchronized void clear() {
+        version++;
+        map.clear();
+        weight = 0L;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0L ? 0.0d : hits / (double) total;
+    }
+}
@@ -0,0 +1,66 @@
+package utils;
+
+import core.BaseSequence;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A coder that packs primitive long arrays to DNA without boxing the values. The delta flavor expects ascending non-negative values, e.g., the keys of a tree node,
+ * and packs the differences between consecutive values.
+ */
+public class LongArrayCoder implements Coder<long[], BaseSequence> {
+
+    private final boolean delta;
+
+    private LongArrayCoder(boolean delta) {
+        this.delta = delta;
+    }
+
+    /**
+     * Returns a coder that packs each value unsigned.
+     * @return the coder.
+     */
+    public static LongArrayCoder unsigned() {
+        return new LongArrayCoder(false);
+    }
+
+    /**
+     * Returns a coder that packs the first value and the deltas between consecutive values unsigned. The encoded array must be sorted in ascending order.
+     * @return the coder.
+     */
+    public static LongArrayCoder deltaUnsigned() {
+        return new LongArrayCoder(true);
+    }
+
+    @Override
+    public BaseSequence encode(long[] values) {
+        BaseSequence seq = new BaseSequence();
+        long previous = 0L;
+        for (long value : values) {
+            DNAPacker.packUnsignedLong(seq, delta ? value - previous : value);
+            previous = value;
+        }
+        return seq;
+    }
+
+    @Override
+    public long[] decode(BaseSequence seq) {
+        long[] values = DNAPacker.unpackAllUnsignedLong(seq);
+        if (delta) {
+            for (int i = 1; i < values.length; i++)
+                values[i] += values[i - 1];
+        }
+        return values;
+    }
+
+    /**
+     * Returns a coder for lists of boxed longs with the same encoding as this coder. Useful to decode trees that were encoded from primitive long arrays.
+     * @return the boxed coder.
+     */
+    public Coder<List<Long>, BaseSequence> boxed() {
+        return Coder.of(
+                list -> encode(list.stream().mapToLong(Long::longValue).toArray()),
+                seq -> Arrays.stream(decode(seq)).boxed().toList()
+        );
+    }
+}
@@ -0,0 +1,316 @@
+package utils;
+
+import core.Base;
+import core.BaseSequence;
+import datastructures.container.DNAContainer;
+import dnacoders.tree.encodednodestorage.EncodedNodeContainerStorage;
+import dnacoders.tree.wrappers.node.EncodedNode;
+import dnacoders.tree.wrappers.tree.EncodedBPTree;
+import dnacoders.tree.wrappers.tree.LNALContainerEncodedTree;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streams the oligos of a DNAContainer or an encoded tree to a FASTA, FASTQ or CSV file.
+ * The oligos are read and formatted in chunks by a pool of threads, and the chunks are written to a FileChannel in their original order,
+ * so the output is deterministic. At most a fixed number of chunks is in flight, so the memory used does not depend on the number of oligos.
+ */
+public class OligoExporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+    public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+    public static final char FASTQ_QUALITY = 'I';
+
+    private static final String CSV_HEADER = "name,oligo\n";
+    private static final byte[] BASE_BYTES = new byte[Base.values().length];
+    static {
+        for (Base b : Base.values())
+            BASE_BYTES[b.ordinal()] = (byte) b.name().charAt(0);
+    }
+
+    /**
+     * The supported output formats. FASTQ records carry the constant quality FASTQ_QUALITY since the oligos are synthesized, not sequenced.
+     */
+    public enum Format {
+        FASTA, FASTQ, CSV
+    }
+
+    /**
+     * The result of an export.
+     * @param numOligos the number of exported oligos.
+     * @param numBytes the number of written bytes.
+     * @param nanos the time the export took in nanoseconds.
+     */
+    public record ExportStats(long numOligos, long numBytes, long nanos) {
+        public double seconds() {
+            return nanos / 1e9d;
+        }
+
+        public double megabytesPerSecond() {
+            return numBytes / 1e6d / Math.max(seconds(), 1e-9d);
+        }
+
+        public double oligosPerSecond() {
+            return numOligos / Math.max(seconds(), 1e-9d);
+        }
+    }
+
+    private final Format format;
+    private final int parallelism;
+    private final int chunkSize;
+
+    /**
+     * Creates an OligoExporter.
+     * @param format the output format.
+     * @param parallelism the number of threads that read and format chunks.
+     * @param chunkSize the number of ids or nodes per chunk.
+     */
+    public OligoExporter(Format format, int parallelism, int chunkSize) {
+        if (parallelism <= 0 || chunkSize <= 0)
+            throw new RuntimeException("parallelism and chunkSize must be > 0");
+
+        this.format = format;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    public OligoExporter(Format format) {
+        this(format, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Exports all oligos of a DNAContainer in the order of their ids. Each oligo is named by its id.
+     * @param container the container.
+     * @param path the output file, which is overwritten.
+     * @return the stats of the export.
+     */
+    public ExportStats export(DNAContainer container, Path path) {
+        DNAContainer.DNAStorage store = container.getOligoStore();
+        PrimitiveIterator.OfLong ids = container.oligoIds().iterator();
+        return write(path, new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Callable<Chunk> next() {
+                long[] chunkIds = nextIds(ids);
+                return () -> {
+                    AddressedDNA[] oligos = store.getAll(chunkIds);
+                    Chunk chunk = new Chunk();
+                    for (int i = 0; i < chunkIds.length; i++) {
+                        if (oligos[i] != null)
+                            chunk.append(Long.toString(chunkIds[i]), oligos[i].address(), oligos[i].payload());
+                    }
+                    return chunk;
+                };
+            }
+        });
+    }
+
+    /**
+     * Exports the oligos of all nodes of a tree stored in a DNAContainer. The oligos of the node with id i are named i_0, i_1, ...
+     * @param tree the tree.
+     * @param path the output file, which is overwritten.
+     * @return the stats of the export.
+     */
+    public ExportStats export(LNALContainerEncodedTree<?, ?> tree, Path path) {
+        if (!(tree.getEncodedNodeStorage() instanceof EncodedNodeContainerStorage storage))
+            return exportNodes(tree, path);
+
+        DNAContainer container = storage.getContainer();
+        PrimitiveIterator.OfLong ids = storage.getNodeIds().stream().mapToLong(Long::longValue).iterator();
+        return write(path, new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Callable<Chunk> next() {
+                long[] nodeIds = nextIds(ids);
+                return () -> {
+                    AddressedDNA[][] oligos = container.getOligos(nodeIds);
+                    Chunk chunk = new Chunk();
+                    for (int i = 0; i < nodeIds.length; i++) {
+                        if (oligos[i] == null)
+                            throw new RuntimeException("node id not found: " + nodeIds[i]);
+
+                        for (int j = 0; j < oligos[i].length; j++)
+                            chunk.append(nodeIds[i] + "_" + j, oligos[i][j].address(), oligos[i][j].payload());
+                    }
+                    return chunk;
+                };
+            }
+        });
+    }
+
+    /**
+     * Exports the oligos of all nodes of a natively encoded tree in the order of its node storage. The oligos of the i-th node are named i_0, i_1, ...
+     * @param tree the tree.
+     * @param path the output file, which is overwritten.
+     * @return the stats of the export.
+     */
+    public ExportStats export(LNALNativeEncodedTree<?, ?, ?> tree, Path path) {
+        return exportNodes(tree, path);
+    }
+
+    private ExportStats exportNodes(EncodedBPTree<?, ?, ?, ?> tree, Path path) {
+        Iterator<? extends EncodedNode<?>> nodes = tree.iterator();
+        return write(path, new Iterator<>() {
+            long nodeIndex = 0L;
+
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public Callable<Chunk> next() {
+                List<EncodedNode<?>> chunkNodes = new ArrayList<>(chunkSize);
+                while (chunkNodes.size() < chunkSize && nodes.hasNext())
+                    chunkNodes.add(nodes.next());
+
+                long firstIndex = nodeIndex;
+                nodeIndex += chunkNodes.size();
+                return () -> {
+                    Chunk chunk = new Chunk();
+                    for (int i = 0; i < chunkNodes.size(); i++) {
+                        BaseSequence[] oligos = chunkNodes.get(i).joinedOligos();
+                        for (int j = 0; j < oligos.length; j++)
+                            chunk.append((firstIndex + i) + "_" + j, oligos[j]);
+                    }
+                    return chunk;
+                };
+            }
+        });
+    }
+
+    private long[] nextIds(PrimitiveIterator.OfLong ids) {
+        long[] chunkIds = new long[chunkSize];
+        int n = 0;
+        while (n < chunkSize && ids.hasNext())
+            chunkIds[n++] = ids.nextLong();
+
+        return n == chunkSize ? chunkIds : Arrays.copyOf(chunkIds, n);
+    }
+
+    // submits the chunks in order, keeps at most maxInFlight of them pending, and writes each one as soon as it and all chunks before it are done
+    private ExportStats write(Path path, Iterator<Callable<Chunk>> chunks) {
+        long start = System.nanoTime();
+        long numOligos = 0L;
+        long numBytes = 0L;
+        int maxInFlight = parallelism * DEFAULT_MAX_CHUNKS_IN_FLIGHT_PER_THREAD;
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>(maxInFlight);
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (format == Format.CSV)
+                numBytes += writeFully(fc, ByteBuffer.wrap(CSV_HEADER.getBytes(StandardCharsets.US_ASCII)));
+
+            while (chunks.hasNext() || !inFlight.isEmpty()) {
+                while (inFlight.size() < maxInFlight && chunks.hasNext())
+                    inFlight.add(pool.submit(chunks.next()));
+
+                Chunk chunk = inFlight.poll().get();
+                numOligos += chunk.numOligos;
+                numBytes += writeFully(fc, ByteBuffer.wrap(chunk.buf, 0, chunk.size));
+            }
+            return new ExportStats(numOligos, numBytes, System.nanoTime() - start);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int writeFully(FileChannel fc, ByteBuffer buffer) throws IOException {
+        int n = buffer.remaining();
+        while (buffer.hasRemaining())
+            fc.write(buffer);
+
+        return n;
+    }
+
+    // the formatted records of a chunk in a growable ASCII buffer
+    private final class Chunk {
+        private byte[] buf = new byte[1 << 12];
+        private int size;
+        private int numOligos;
+
+        private void append(String name, BaseSequence... parts) {
+            int len = 0;
+            for (BaseSequence part : parts)
+                len += part.length();
+
+            ensureCapacity(name.length() + 2 * len + 6);
+            switch (format) {
+                case FASTA -> {
+                    put((byte) '>');
+                    put(name);
+                    put((byte) '\n');
+                    put(parts);
+                    put((byte) '\n');
+                }
+                case FASTQ -> {
+                    put((byte) '@');
+                    put(name);
+                    put((byte) '\n');
+                    put(parts);
+                    put((byte) '\n');
+                    put((byte) '+');
+                    put((byte) '\n');
+                    Arrays.fill(buf, size, size + len, (byte) FASTQ_QUALITY);
+                    size += len;
+                    put((byte) '\n');
+                }
+                case CSV -> {
+                    put(name);
+                    put((byte) ',');
+                    put(parts);
+                    put((byte) '\n');
+                }
+            }
+            numOligos++;
+        }
+
+        private void ensureCapacity(int n) {
+            if (size + n > buf.length)
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + n));
+        }
+
+        private void put(byte b) {
+            buf[size++] = b;
+        }
+
+        private void put(String s) {
+            for (int i = 0; i < s.length(); i++)
+                buf[size++] = (byte) s.charAt(i);
+        }
+
+        private void put(BaseSequence[] parts) {
+            for (BaseSequence part : parts) {
+                int len = part.length();
+                for (int i = 0; i < len; i++)
+                    buf[size++] = BASE_BYTES[part.get(i).ordinal()];
+            }
+        }
+    }
+}
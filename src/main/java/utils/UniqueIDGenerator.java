@@ -1,36 +1,92 @@
 package utils;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
+/**
+ * Generates unique, increasing ids. Ranges of ids are reserved lock-free with a single atomic add on a shared counter.
+ * Threads that request many single ids can lease blocks of ids with getLeased(), which hands out ids from a thread-local block and only touches the shared counter once per block.
+ */
 public class UniqueIDGenerator implements Supplier<Long> {
 
-    private long nextFreeId;
+    public static final int DEFAULT_LEASE_SIZE = 64;
+
+    private final AtomicLong nextFreeId;
     private final long start;
+    private final int leaseSize;
+    private final ThreadLocal<Lease> lease;
+    private volatile long syncedId;
 
     public UniqueIDGenerator() {
         this(0L);
     }
     public UniqueIDGenerator(long start) {
-        this.nextFreeId = start;
+        this(start, DEFAULT_LEASE_SIZE);
+    }
+
+    /**
+     * Creates a UniqueIDGenerator.
+     * @param start the first id.
+     * @param leaseSize the number of ids a thread leases at once in getLeased().
+     */
+    public UniqueIDGenerator(long start, int leaseSize) {
+        if (leaseSize <= 0)
+            throw new RuntimeException("leaseSize <= 0");
+
+        this.nextFreeId = new AtomicLong(start);
         this.start = start;
+        this.leaseSize = leaseSize;
+        this.lease = ThreadLocal.withInitial(Lease::new);
+        this.syncedId = start - 1L;
     }
 
     @Override
     public Long get() {
-        return getNBoxed(1)[0];
+        return nextFreeId.getAndIncrement();
+    }
+
+    /**
+     * Returns an id from a block of ids leased by the calling thread, and leases a new block if the current one is used up.
+     * Ids returned by this method are unique, but they only increase per thread, and ids left in the block of a thread that stops calling this method are never handed out.
+     * @return the id.
+     */
+    public long getLeased() {
+        Lease l = lease.get();
+        if (l.next >= l.end || l.next <= syncedId) {
+            l.next = reserve(leaseSize);
+            l.end = l.next + leaseSize;
+        }
+        return l.next++;
+    }
+
+    /**
+     * Reserves n consecutive ids.
+     * @param n the number of ids.
+     * @return the first reserved id.
+     */
+    public long reserve(int n) {
+        return nextFreeId.getAndAdd(n);
     }
 
     public void advance() {
         get();
     }
 
+    /**
+     * Makes sure that no id smaller than or equal to lastId is handed out anymore. This also drops leased blocks containing such ids.
+     * @param lastId the last used id.
+     */
     public void sync(long lastId) {
-        nextFreeId = Math.max(lastId + 1, nextFreeId);
+        nextFreeId.accumulateAndGet(lastId + 1, Math::max);
+        if (lastId > syncedId) {
+            synchronized (this) {
+                syncedId = Math.max(syncedId, lastId);
+            }
+        }
     }
 
-    public synchronized Long[] getNBoxed(int n) {
-        long start = nextFreeId;
-        nextFreeId += n;
+    public Long[] getNBoxed(int n) {
+        long start = reserve(n);
         Long[] result = new Long[n];
         for (int i = 0; i < n; i++)
             result[i] = start++;
@@ -38,9 +94,8 @@ public class UniqueIDGenerator implements Supplier<Long> {
        return result;
     }
 
-    public synchronized long[] getN(int n) {
-        long start = nextFreeId;
-        nextFreeId += n;
+    public long[] getN(int n) {
+        long start = reserve(n);
         long[] result = new long[n];
         for (int i = 0; i < n; i++)
             result[i] = start++;
@@ -52,7 +107,20 @@ public class UniqueIDGenerator implements Supplier<Long> {
         return start;
     }
 
-    public synchronized long getCurrentNextFreeId() {
-        return nextFreeId;
+    public int getLeaseSize() {
+        return leaseSize;
+    }
+
+    /**
+     * Returns the next id that is neither handed out nor leased.
+     * @return the next free id.
+     */
+    public long getCurrentNextFreeId() {
+        return nextFreeId.get();
+    }
+
+    private static final class Lease {
+        private long next;
+        private long end;
     }
 }
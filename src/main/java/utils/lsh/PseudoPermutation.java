@@ -23,6 +23,34 @@ public class PseudoPermutation {
         this.b = ThreadLocalRandom.current().nextLong(0L, p);
     }
 
+    /**
+     * Restores a PseudoPermutation instance from its parameters, e.g., to reload a persisted LSH.
+     * @param m largest index for this instance to permute.
+     * @param p the prime >= m.
+     * @param a the multiplier with 1 <= a <= p - 1.
+     * @param b the offset with 0 <= b <= p - 1.
+     */
+    public PseudoPermutation(long m, long p, long a, long b) {
+        if (p < m || a < 1L || a >= p || b < 0L || b >= p)
+            throw new RuntimeException("invalid parameters: m=" + m + ", p=" + p + ", a=" + a + ", b=" + b);
+        this.m = m;
+        this.p = p;
+        this.a = a;
+        this.b = b;
+    }
+
+    public long getM() {
+        return m;
+    }
+
+    public long getA() {
+        return a;
+    }
+
+    public long getB() {
+        return b;
+    }
+
     public long getP() {
         return p;
     }
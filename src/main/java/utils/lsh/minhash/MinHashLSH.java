@@ -1,6 +1,8 @@
 package utils.lsh.minhash;
 
+import core.Base;
 import core.BaseSequence;
+import utils.Coder;
 import utils.lsh.LSH;
 import utils.lsh.PseudoPermutation;
 import utils.lsh.storage.LSHStorage;
@@ -9,10 +11,10 @@ import utils.lsh.storage.minhash.BloomFilterHashStorage;
 import utils.lsh.storage.minhash.LightHashStorage;
 import utils.lsh.storage.minhash.TraditionalHashStorage;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Set;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -21,6 +23,9 @@ import java.util.stream.Stream;
 public class MinHashLSH<T, S extends LSHStorage<Long>> implements LSH<T> {
     protected final AmplifiedMinHashStorage<S> storage;
 
+    public static final Coder<BaseSequence, byte[]> SEQ_SNAPSHOT_CODER = Coder.of(MinHashLSH::packSeq, MinHashLSH::unpackSeq);
+    private static final Base[] BASES = Base.values();
+
     protected final static long PRIME = 16777619L;
     protected final static long START_HASH = 2166136261L;
     protected final int k;
@@ -232,6 +237,72 @@ public class MinHashLSH<T, S extends LSHStorage<Long>> implements LSH<T> {
         return hash;
     }
 
+    /**
+     * Writes the permutations and the stored hashes of this LSH, so that readSnapshot(...) restores it without hashing the items again.
+     * @param out the output to write to.
+     * @param itemCoder the coder for the stored items. Only used if the storage keeps the items, i.e., for Traditional.
+     */
+    public void writeSnapshot(DataOutput out, Coder<T, byte[]> itemCoder) throws IOException {
+        out.writeInt(k);
+        out.writeInt(permutations.length);
+        out.writeInt(b);
+        for (PseudoPermutation p : permutations) {
+            out.writeLong(p.getM());
+            out.writeLong(p.getP());
+            out.writeLong(p.getA());
+            out.writeLong(p.getB());
+        }
+        for (S band : storage.bands())
+            writeBand(out, band, itemCoder);
+    }
+
+    /**
+     * Restores the permutations and the stored hashes written by writeSnapshot(...) into this empty LSH.
+     * @param in the input to read from.
+     * @param itemCoder the coder for the stored items. Only used if the storage keeps the items, i.e., for Traditional.
+     */
+    public void readSnapshot(DataInput in, Coder<T, byte[]> itemCoder) throws IOException {
+        if (in.readInt() != k || in.readInt() != permutations.length || in.readInt() != b)
+            throw new RuntimeException("the snapshot does not match k, r, and b of this LSH");
+
+        for (int i = 0; i < permutations.length; i++)
+            permutations[i] = new PseudoPermutation(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+
+        for (S band : storage.bands())
+            readBand(in, band, itemCoder);
+    }
+
+    // packs the length followed by 2 bits per base
+    private static byte[] packSeq(BaseSequence seq) {
+        int len = seq.length();
+        byte[] bs = new byte[Integer.BYTES + (len + 3) / 4];
+        bs[0] = (byte) (len >>> 24);
+        bs[1] = (byte) (len >>> 16);
+        bs[2] = (byte) (len >>> 8);
+        bs[3] = (byte) len;
+        for (int i = 0; i < len; i++)
+            bs[Integer.BYTES + (i >>> 2)] |= (byte) (seq.get(i).ordinal() << (6 - 2 * (i & 3)));
+
+        return bs;
+    }
+
+    private static BaseSequence unpackSeq(byte[] bs) {
+        int len = (bs[0] & 0xFF) << 24 | (bs[1] & 0xFF) << 16 | (bs[2] & 0xFF) << 8 | (bs[3] & 0xFF);
+        List<Base> bases = new ArrayList<>(len);
+        for (int i = 0; i < len; i++)
+            bases.add(BASES[(bs[Integer.BYTES + (i >>> 2)] >>> (6 - 2 * (i & 3))) & 0b11]);
+
+        return new BaseSequence(bases);
+    }
+
+    protected void writeBand(DataOutput out, S band, Coder<T, byte[]> itemCoder) throws IOException {
+        throw new UnsupportedOperationException("snapshots are not supported by " + getClass().getSimpleName());
+    }
+
+    protected void readBand(DataInput in, S band, Coder<T, byte[]> itemCoder) throws IOException {
+        throw new UnsupportedOperationException("snapshots are not supported by " + getClass().getSimpleName());
+    }
+
     public int getK() {
         return k;
     }
@@ -293,6 +364,36 @@ public class MinHashLSH<T, S extends LSHStorage<Long>> implements LSH<T> {
         public Set<O> candidates(O o, int bandId) {
             return storage.bands().get(bandId).candidates(hashSignature(signatureOf(o, bandId)));
         }
+
+        @Override
+        protected void writeBand(DataOutput out, TraditionalHashStorage<Long, O> band, Coder<O, byte[]> itemCoder) throws IOException {
+            List<Map.Entry<Long, Set<O>>> entries = new ArrayList<>(band.getMappings().entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<Long, Set<O>> e : entries) {
+                List<O> items = new ArrayList<>(e.getValue());
+                out.writeLong(e.getKey());
+                out.writeInt(items.size());
+                for (O item : items) {
+                    byte[] bs = itemCoder.encode(item);
+                    out.writeInt(bs.length);
+                    out.write(bs);
+                }
+            }
+        }
+
+        @Override
+        protected void readBand(DataInput in, TraditionalHashStorage<Long, O> band, Coder<O, byte[]> itemCoder) throws IOException {
+            int numHashes = in.readInt();
+            for (int i = 0; i < numHashes; i++) {
+                long hash = in.readLong();
+                int numItems = in.readInt();
+                for (int j = 0; j < numItems; j++) {
+                    byte[] bs = new byte[in.readInt()];
+                    in.readFully(bs);
+                    band.store(hash, itemCoder.decode(bs));
+                }
+            }
+        }
     }
 
     public static class Bloom<O> extends MinHashLSH<O, BloomFilterHashStorage<Long>> {
@@ -338,5 +439,20 @@ public class MinHashLSH<T, S extends LSHStorage<Long>> implements LSH<T> {
         public Set<Long> hashSet(int bandId) {
             return Collections.unmodifiableSet(this.storage.band(bandId).hashSet());
         }
+
+        @Override
+        protected void writeBand(DataOutput out, LightHashStorage<Long> band, Coder<O, byte[]> itemCoder) throws IOException {
+            long[] hashes = band.hashSet().stream().mapToLong(Long::longValue).toArray();
+            out.writeInt(hashes.length);
+            for (long hash : hashes)
+                out.writeLong(hash);
+        }
+
+        @Override
+        protected void readBand(DataInput in, LightHashStorage<Long> band, Coder<O, byte[]> itemCoder) throws IOException {
+            int numHashes = in.readInt();
+            for (int i = 0; i < numHashes; i++)
+                band.store(in.readLong());
+        }
     }
 }
\ No newline at end of file
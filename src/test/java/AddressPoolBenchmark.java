@@ -0,0 +1,65 @@
+import core.BaseSequence;
+import datastructures.container.translation.AddressManager;
+import datastructures.container.translation.DNAAddrManager;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+public class AddressPoolBenchmark {
+
+    static final int N = 300;
+    static final int THINK_TIME_MILLIS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        DNAAddrManager inline = DNAAddrManager.builder().build();
+        System.out.println("inline, back to back:      " + String.format("%.2f", meanLatencyMillis(inline, 0)) + " ms per new address");
+        inline = DNAAddrManager.builder().build();
+        System.out.println("inline, with think time:   " + String.format("%.2f", meanLatencyMillis(inline, THINK_TIME_MILLIS)) + " ms per new address");
+
+        DNAAddrManager pooled = DNAAddrManager.builder().setAddressPool(N, DNAAddrManager.Builder.DEFAULT_ADDRESS_POOL_THREADS).build();
+        while (pooled.getAddressPoolSize() < N)
+            Thread.sleep(100);
+        System.out.println("pooled, filled pool:       " + String.format("%.2f", meanLatencyMillis(pooled, 0)) + " ms per new address");
+        verify(pooled);
+        pooled.shutdownAddressPool();
+
+        pooled = DNAAddrManager.builder().setAddressPool(64, DNAAddrManager.Builder.DEFAULT_ADDRESS_POOL_THREADS).build();
+        System.out.println("pooled, with think time:   " + String.format("%.2f", meanLatencyMillis(pooled, THINK_TIME_MILLIS)) + " ms per new address");
+        verify(pooled);
+        pooled.shutdownAddressPool();
+
+        // after the shutdown, the remaining pooled barcodes are handed out and further addresses are generated inline
+        for (long i = N; i < 2 * N; i++)
+            pooled.routeAndTranslate(i);
+        pooled.routeAndTranslateAll(LongStream.range(2 * N, 3 * N).boxed().toList());
+        if (pooled.size() != 3 * N)
+            throw new RuntimeException("wrong number of addresses after the shutdown: " + pooled.size());
+    }
+
+    // the think time stands for the rest of a put, e.g., encoding the payload and writing the oligos
+    static double meanLatencyMillis(DNAAddrManager am, int thinkTimeMillis) throws InterruptedException {
+        long total = 0L;
+        for (long i = 0; i < N; i++) {
+            long t = System.nanoTime();
+            am.routeAndTranslate(i);
+            total += System.nanoTime() - t;
+            if (thinkTimeMillis > 0)
+                Thread.sleep(thinkTimeMillis);
+        }
+        return total / (N * 1000_000d);
+    }
+
+    static void verify(DNAAddrManager am) {
+        Set<Long> routed = new HashSet<>();
+        Set<BaseSequence> barcodes = new HashSet<>();
+        for (long i = 0; i < N; i++) {
+            AddressManager.ManagedAddress<Long, BaseSequence> managed = am.routeAndTranslate(i);
+            if (!routed.add(managed.routed()) || !barcodes.add(managed.translated()))
+                throw new RuntimeException("duplicate address for id: " + i);
+            if (!managed.translated().equals(am.addressTranslationManager().container().get(managed.routed())))
+                throw new RuntimeException("wrong translation for id: " + i);
+        }
+        if (am.size() != N)
+            throw new RuntimeException("wrong number of addresses: " + am.size());
+    }
+}
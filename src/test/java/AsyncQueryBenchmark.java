@@ -0,0 +1,59 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.encodednodestorage.RetrievalRoundScheduler;
+import dnacoders.tree.wrappers.tree.AsyncEncodedBPTree;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+public class AsyncQueryBenchmark {
+
+    static final int TREE_KEYS = 2000;
+    static final int QUERIES = 400;
+    static final int[] ROUND_SIZES = {1, 16, 128};
+    static final long ROUND_LATENCY_MILLIS = 20L;
+
+    public static void main(String[] args) {
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 8, 8);
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> tree = DPBAndContainerTreesTest.bpbCoder.encode(btree);
+        int[] keys = new Random(42).ints(QUERIES, 0, TREE_KEYS).toArray();
+
+        for (int roundSize : ROUND_SIZES) {
+            try (RetrievalRoundScheduler<BaseSequence[], DNAPointer.NativeDNAPointer> scheduler = RetrievalRoundScheduler.<BaseSequence[], DNAPointer.NativeDNAPointer>builder()
+                    .setStorage(tree.getEncodedNodeStorage())
+                    .setRoundSize(roundSize)
+                    .setMaxWaitMillis(5L)
+                    .setLatency(n -> ROUND_LATENCY_MILLIS)
+                    .build()) {
+
+                AsyncEncodedBPTree<Integer, Integer, BaseSequence[], DNAPointer.NativeDNAPointer> asyncTree = new AsyncEncodedBPTree<>(tree, scheduler);
+                long t = System.nanoTime();
+                long[] latencies = new long[QUERIES];
+                List<CompletableFuture<Integer>> futures = IntStream.range(0, QUERIES).mapToObj(i -> {
+                    long start = System.nanoTime();
+                    return asyncTree.search(keys[i]).whenComplete((__, ___) -> latencies[i] = System.nanoTime() - start);
+                }).toList();
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+                long nanos = System.nanoTime() - t;
+
+                for (int i = 0; i < QUERIES; i++) {
+                    if (futures.get(i).join() != keys[i])
+                        throw new RuntimeException("wrong value for key: " + keys[i]);
+                }
+
+                List<Integer> range = asyncTree.search(100, 180).join();
+                if (!range.equals(IntStream.rangeClosed(100, 180).boxed().toList()))
+                    throw new RuntimeException("wrong range query result: " + range);
+
+                var stats = scheduler.stats();
+                System.out.println(String.format("round size %3d: %d queries in %.1f ms (%.0f queries/s, mean latency %.1f ms), %d rounds, %.1f nodes/round, %d of %d requests coalesced",
+                        roundSize, QUERIES, nanos / 1000_000d, QUERIES / (nanos / 1000_000_000d), IntStream.range(0, QUERIES).mapToLong(i -> latencies[i]).average().orElse(0d) / 1000_000d,
+                        stats.rounds(), stats.meanRoundSize(), stats.requests() - stats.retrievedNodes(), stats.requests()));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import datastructures.searchtrees.BPlusTree;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class BPlusTreeInsertBenchmark {
+
+    static final int N = 2_000_000;
+    static final int WARMUP_ROUNDS = 3;
+    static final int ROUNDS = 5;
+    static final int[][] B_C = {{2, 2}, {8, 8}, {32, 32}, {128, 128}};
+
+    public static void main(String[] args) {
+        int[] sequentialKeys = IntStream.range(0, N).toArray();
+        int[] randomKeys = shuffled(sequentialKeys, new Random(42));
+
+        for (int[] bc : B_C) {
+            System.out.println("b = " + bc[0] + ", c = " + bc[1]);
+            System.out.println("  sequential inserts: " + String.format("%.2f", benchmark(sequentialKeys, bc[0], bc[1])) + " M ops/s");
+            System.out.println("  random inserts:     " + String.format("%.2f", benchmark(randomKeys, bc[0], bc[1])) + " M ops/s");
+        }
+    }
+
+    static double benchmark(int[] keys, int b, int c) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            insertAll(keys, b, c);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t = System.nanoTime();
+            BPlusTree<Integer, Integer> tree = insertAll(keys, b, c);
+            best = Math.min(best, System.nanoTime() - t);
+            if (tree.size() != keys.length)
+                throw new RuntimeException("wrong tree size");
+        }
+
+        return keys.length / (best / 1000d);
+    }
+
+    static BPlusTree<Integer, Integer> insertAll(int[] keys, int b, int c) {
+        BPlusTree<Integer, Integer> tree = new BPlusTree<>(b, c);
+        for (int key : keys)
+            tree.insert(key, key);
+
+        return tree;
+    }
+
+    static int[] shuffled(int[] arr, Random rand) {
+        int[] result = arr.clone();
+        for (int i = result.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+import core.BaseSequence;
+import datastructures.container.translation.AddressManager;
+import datastructures.container.translation.DNAAddrManager;
+import dnacoders.DistanceCoder;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+public class BatchRouteAndTranslateBenchmark {
+
+    static final int N = 1000;
+    static final int[] BATCH_SIZES = {1, 16, 64};
+
+    public static void main(String[] args) {
+        DNAAddrManager single = DNAAddrManager.builder().build();
+        long t = System.nanoTime();
+        for (long i = 0; i < N; i++)
+            single.routeAndTranslate(i);
+        System.out.println("routeAndTranslate(id):        " + String.format("%.2f", (System.nanoTime() - t) / (N * 1000_000d)) + " ms per new address");
+        verify(single);
+
+        for (int batchSize : BATCH_SIZES) {
+            DNAAddrManager batched = DNAAddrManager.builder().build();
+            t = System.nanoTime();
+            for (long i = 0; i < N; i += batchSize) {
+                List<Long> ids = LongStream.range(i, Math.min(N, i + batchSize)).boxed().toList();
+                batched.routeAndTranslateAll(ids);
+            }
+            System.out.println("routeAndTranslateAll, batch " + batchSize + ": " + String.format("%.2f", (System.nanoTime() - t) / (N * 1000_000d)) + " ms per new address, bad addresses: " + batched.badAddressesCount());
+            verify(batched);
+            verifyBatchDistance(batched, batchSize);
+        }
+    }
+
+    static void verify(DNAAddrManager am) {
+        Set<Long> routed = new HashSet<>();
+        Set<BaseSequence> barcodes = new HashSet<>();
+        for (long i = 0; i < N; i++) {
+            AddressManager.ManagedAddress<Long, BaseSequence> managed = am.routeAndTranslate(i);
+            if (!routed.add(managed.routed()) || !barcodes.add(managed.translated()))
+                throw new RuntimeException("duplicate address for id: " + i);
+            if (!managed.translated().equals(am.addressTranslationManager().container().get(managed.routed())))
+                throw new RuntimeException("wrong translation for id: " + i);
+        }
+        if (am.size() != N)
+            throw new RuntimeException("wrong number of addresses: " + am.size());
+    }
+
+    // barcodes of the same batch are never checked against each other through the LSH, so check them directly
+    static void verifyBatchDistance(DNAAddrManager am, int batchSize) {
+        int k = 5;
+        for (long from = 0; from < N; from += batchSize) {
+            List<BaseSequence> batch = am.routeAndTranslateAll(LongStream.range(from, Math.min(N, from + batchSize)).boxed().toList()).stream().map(AddressManager.ManagedAddress::translated).toList();
+            for (int i = 0; i < batch.size(); i++) {
+                for (int j = i + 1; j < batch.size(); j++) {
+                    float dist = DistanceCoder.jaccardDistanceLowK(DistanceCoder.kmersJaccard(batch.get(i), k), DistanceCoder.kmersJaccard(batch.get(j), k));
+                    if (dist < DNAAddrManager.Builder.DEFAULT_MIN_DIST)
+                        throw new RuntimeException("barcodes of ids " + (from + i) + " and " + (from + j) + " are too close: " + dist);
+                }
+            }
+        }
+    }
+}
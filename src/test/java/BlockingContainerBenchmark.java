@@ -0,0 +1,120 @@
+import datastructures.KVEntry;
+import datastructures.container.BlockingContainer;
+import datastructures.container.Container;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.FuncUtils;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+public class BlockingContainerBenchmark {
+
+    static final int N = 1_000_000;
+    static final int ROUNDS = 3;
+    static final int[] THREADS = {2, 4, 8, 16};
+    static final int TREE_SIZE = 2000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int numThreads : THREADS) {
+            double latches = 0.0d;
+            double futures = 0.0d;
+            for (int r = 0; r < ROUNDS; r++) {
+                latches = Math.max(latches, run(numThreads, new LatchContainer<>(new Container.MapContainer<>())));
+                futures = Math.max(futures, run(numThreads, new BlockingContainer<>(new Container.MapContainer<>())));
+            }
+            System.out.println(numThreads + " threads, half readers and half writers:");
+            System.out.println("  synchronized latch map:  " + String.format("%.2f", latches) + " M handoffs/s");
+            System.out.println("  BlockingContainer:       " + String.format("%.2f", futures) + " M handoffs/s");
+        }
+
+        BlockingContainer<Integer, Integer> container = new BlockingContainer<>(new Container.MapContainer<>());
+        if (container.get(1, 10, TimeUnit.MILLISECONDS) != null)
+            throw new RuntimeException("timed out get returned a value");
+        if (!container.cancel(1))
+            throw new RuntimeException("the timed out key is not pending");
+        CompletableFuture<Integer> cancelled = container.getAsync(2);
+        CompletableFuture<Integer> waiting = container.getAsync(2);
+        cancelled.cancel(false);
+        container.put(2, 2);
+        if (waiting.join() != 2 || container.numPendingKeys() != 0)
+            throw new RuntimeException("cancelling a reader affected another reader");
+
+        // the parallel encoders chain on BlockingContainer.getAsync(...)
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_SIZE).mapToObj(i -> new KVEntry<>(i, i)), 2, 2);
+        long t = System.nanoTime();
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> encoded = DPBAndContainerTreesTest.bpbCoder.encode(btree);
+        System.out.println("parallel encode of a tree of height " + btree.getHeight() + ": " + (System.nanoTime() - t) / 1000_000L + " ms");
+        if (!encoded.search(100, 199).toList().equals(IntStream.range(100, 200).boxed().toList()))
+            throw new RuntimeException("wrong range query result");
+    }
+
+    static double run(int numThreads, Container<Integer, Integer> container) throws InterruptedException {
+        int numReaders = numThreads / 2;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            int from = (int) ((long) N * (t % numReaders) / numReaders);
+            int to = (int) ((long) N * (t % numReaders + 1) / numReaders);
+            boolean reader = t < numReaders;
+            Thread thread = new Thread(() -> {
+                FuncUtils.safeRun(start::await);
+                for (int i = from; i < to; i++) {
+                    if (!reader)
+                        container.put(i, i);
+                    else if (container.get(i) != i)
+                        throw new RuntimeException("wrong value for key: " + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long t = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        return N / ((System.nanoTime() - t) / 1000d);
+    }
+
+    // the previous implementation of BlockingContainer.get(...) and put(...)
+    static final class LatchContainer<K, V> extends BlockingContainer<K, V> {
+        private final Container<K, V> container;
+        private final Map<K, CountDownLatch> latchMap = new HashMap<>();
+
+        LatchContainer(Container<K, V> container) {
+            super(container);
+            this.container = container;
+        }
+
+        @Override
+        public V get(K key) {
+            V value = container.get(key);
+            if (value != null)
+                return value;
+
+            CountDownLatch latch;
+            synchronized (latchMap) {
+                // checking again under the monitor avoids the lost wakeup of the previous implementation
+                value = container.get(key);
+                if (value != null)
+                    return value;
+                latch = latchMap.computeIfAbsent(key, __ -> new CountDownLatch(1));
+            }
+            FuncUtils.safeRun(latch::await);
+            return container.get(key);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            container.put(key, value);
+            synchronized (latchMap) {
+                CountDownLatch latch = latchMap.remove(key);
+                if (latch != null)
+                    latch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import core.BaseSequence;
+import datastructures.container.impl.CachedDNAContainer;
+import datastructures.container.impl.SizedDNAContainer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class CachedDNAContainerBenchmark {
+
+    static final int N = 200;
+    static final int SEQ_LENGTH = 400;
+    static final int HOT_IDS = 10;
+    static final int READS = 5000;
+    static final double HOT_READS = 0.9d;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("cached-container");
+        CachedDNAContainer cached = SizedDNAContainer.builder()
+                .setPersistentDirectory(dir.toString())
+                .setReadCache(HOT_IDS * (long) SEQ_LENGTH, HOT_IDS)
+                .buildCached();
+        SizedDNAContainer uncached = (SizedDNAContainer) cached.getContainer();
+
+        BaseSequence[] seqs = IntStream.range(0, N).mapToObj(__ -> BaseSequence.random(SEQ_LENGTH)).toArray(BaseSequence[]::new);
+        long[] ids = Arrays.stream(seqs).mapToLong(cached::put).toArray();
+
+        // 90% of the reads go to a few hot ids, like tree roots or list heads
+        Random rand = new Random(42);
+        int[] reads = IntStream.range(0, READS).map(__ -> rand.nextDouble() < HOT_READS ? rand.nextInt(HOT_IDS) : rand.nextInt(N)).toArray();
+
+        long t = System.nanoTime();
+        for (int i : reads) {
+            if (!uncached.get(ids[i]).equals(seqs[i]))
+                throw new RuntimeException("wrong sequence for id: " + ids[i]);
+        }
+        long uncachedNanos = System.nanoTime() - t;
+
+        t = System.nanoTime();
+        for (int i : reads) {
+            if (!cached.get(ids[i]).equals(seqs[i]))
+                throw new RuntimeException("wrong cached sequence for id: " + ids[i]);
+        }
+        long cachedNanos = System.nanoTime() - t;
+
+        System.out.println(READS + " reads, " + (int) (HOT_READS * 100) + "% on " + HOT_IDS + " of " + N + " ids:");
+        System.out.println("  SizedDNAContainer:  " + uncachedNanos / 1000_000L + " ms");
+        System.out.println("  CachedDNAContainer: " + cachedNanos / 1000_000L + " ms, value hit rate " + String.format("%.2f", cached.valueHitRate()) + ", oligo hit rate " + String.format("%.2f", cached.oligoHitRate()) + ", cached bases " + cached.cachedBases());
+        if (cached.cachedBases() > HOT_IDS * (long) SEQ_LENGTH)
+            throw new RuntimeException("cache exceeds its bound: " + cached.cachedBases());
+
+        BaseSequence updated = BaseSequence.random(SEQ_LENGTH);
+        cached.put(ids[0], updated);
+        if (!cached.get(ids[0]).equals(updated))
+            throw new RuntimeException("put did not invalidate the cached sequence");
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
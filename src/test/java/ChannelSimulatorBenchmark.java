@@ -0,0 +1,107 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.container.impl.DNAStorageReadPool;
+import datastructures.container.impl.SizedDNAContainer;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.coders.BPTreeContainerCoder;
+import dnacoders.tree.encodednodestorage.EncodedNodeContainerStorage;
+import dnacoders.tree.encodednodestorage.EncodedNodeReadPoolStorage;
+import dnacoders.tree.encodednodestorage.ReadClusterIndex;
+import dnacoders.tree.wrappers.tree.EncodedBPTree;
+import dnacoders.tree.wrappers.tree.LNALContainerEncodedTree;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.ChannelSimulator;
+import utils.OligoExporter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class ChannelSimulatorBenchmark {
+
+    static final int TREE_KEYS = 300;
+    static final int QUERY_STEP = 7;
+    static final double[] ERROR_RATES = {0.002d, 0.01d, 0.03d};
+    static final double[] COVERAGES = {3d, 6d, 12d};
+
+    public static void main(String[] args) throws IOException {
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 4, 4);
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> bpbTree = DPBAndContainerTreesTest.bpbCoder.encode(btree);
+        SizedDNAContainer container = SizedDNAContainer.builder()
+                .setPayloadSize(DPBAndContainerTreesTest.payloadSize)
+                .setParallel(true)
+                .build();
+        LNALContainerEncodedTree<Integer, Integer> containerTree = new BPTreeContainerCoder<>(container, DPBAndContainerTreesTest.integerCoder, DPBAndContainerTreesTest.integerCoder).encode(btree);
+
+        Path dir = Files.createTempDirectory("channel-simulator");
+        Path bpbPool = dir.resolve("bpb.fasta");
+        Path containerPool = dir.resolve("container-tree.fasta");
+        new OligoExporter(OligoExporter.Format.FASTA).export(bpbTree, bpbPool);
+        new OligoExporter(OligoExporter.Format.FASTA).export(containerTree, containerPool);
+
+        for (double errorRate : ERROR_RATES) {
+            for (double coverage : COVERAGES) {
+                ChannelSimulator channel = ChannelSimulator.builder()
+                        .setErrorRate(errorRate)
+                        .setMeanCoverage(coverage)
+                        .setCoverage(ChannelSimulator.Coverage.NEGATIVE_BINOMIAL)
+                        .setPcrSkew(0.3d)
+                        .setDropoutRate(0.001d)
+                        .build();
+
+                ReadClusterIndex bpbIndex = index(channel.simulate(bpbPool), DPBAndContainerTreesTest.bpbCoder.getAddressSize(), DPBAndContainerTreesTest.bpbCoder.getOligoSize());
+                report("BPB", channel, queries(EncodedNodeReadPoolStorage.treeOf(DPBAndContainerTreesTest.bpbCoder, bpbIndex, bpbTree.getRoot().addresses())));
+
+                ReadClusterIndex containerIndex = index(channel.simulate(containerPool), container.getAddressSize(), container.getAddressSize() + container.getPayloadSize());
+                SizedDNAContainer readContainer = container.withOligoStore(new DNAStorageReadPool(container.getAddressManager(), containerIndex));
+                BPTreeContainerCoder<Integer, Integer> readCoder = new BPTreeContainerCoder<>(readContainer, DPBAndContainerTreesTest.integerCoder, DPBAndContainerTreesTest.integerCoder);
+                EncodedNodeContainerStorage storage = (EncodedNodeContainerStorage) containerTree.getEncodedNodeStorage();
+                long rootId = containerTree.getRoot().sketch().id();
+                report("container", channel, queries(new LNALContainerEncodedTree<>(new EncodedNodeContainerStorage(readContainer, rootId, storage.getNodeIds()), readCoder::decodeNode)));
+            }
+        }
+    }
+
+    static ReadClusterIndex index(List<BaseSequence> reads, int addressSize, int oligoSize) {
+        return ReadClusterIndex.builder()
+                .setReads(reads)
+                .setAddressSize(addressSize)
+                .setOligoSize(oligoSize)
+                .build();
+    }
+
+    record QueryStats(int hits, int queries, long nanos) {
+        double successRate() {
+            return (double) hits / queries;
+        }
+
+        double queriesPerSecond() {
+            return queries / (nanos / 1000_000_000d);
+        }
+    }
+
+    // a query fails if it decodes a wrong value or throws while decoding a corrupted node
+    static QueryStats queries(EncodedBPTree<Integer, Integer, ?, ?> tree) {
+        int hits = 0;
+        int queries = 0;
+        long t = System.nanoTime();
+        for (int key = 0; key < TREE_KEYS; key += QUERY_STEP) {
+            queries++;
+            try {
+                Integer value = tree.search(key);
+                if (value != null && value == key)
+                    hits++;
+            }
+            catch (RuntimeException ignored) {
+            }
+        }
+        return new QueryStats(hits, queries, System.nanoTime() - t);
+    }
+
+    static void report(String name, ChannelSimulator channel, QueryStats stats) {
+        System.out.println(String.format("%-9s error rate: %.3f, coverage: %4.1f -> %3d of %3d queries decoded (%5.1f%%), %.1f queries/s",
+                name, channel.getErrorRate(), channel.getMeanCoverage(), stats.hits(), stats.queries(), 100d * stats.successRate(), stats.queriesPerSecond()));
+    }
+}
@@ -0,0 +1,101 @@
+import datastructures.searchtrees.BPlusTree;
+import datastructures.searchtrees.ConcurrentBPlusTree;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+public class ConcurrentBPlusTreeBenchmark {
+
+    static final int N = 2_000_000;
+    static final int B = 16;
+    static final int C = 16;
+    static final int ROUNDS = 3;
+    static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] keys = IntStream.range(0, N).toArray();
+        shuffle(keys, new Random(42));
+
+        for (int numThreads : THREADS) {
+            double globalLockInserts = 0.0d;
+            double concurrentInserts = 0.0d;
+            double concurrentMixed = 0.0d;
+            for (int r = 0; r < ROUNDS; r++) {
+                BPlusTree<Integer, Integer> lockedTree = new BPlusTree<>(B, C);
+                globalLockInserts = Math.max(globalLockInserts, run(numThreads, i -> {
+                    synchronized (lockedTree) {
+                        lockedTree.insert(keys[i], keys[i]);
+                    }
+                }));
+
+                ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<>(B, C);
+                concurrentInserts = Math.max(concurrentInserts, run(numThreads, i -> tree.insert(keys[i], keys[i])));
+                verify(tree, keys);
+
+                // 50% inserts of new keys and 50% point searches on the filled tree
+                concurrentMixed = Math.max(concurrentMixed, run(numThreads, i -> {
+                    if ((i & 1) == 0)
+                        tree.insert(N + i, i);
+                    else if (tree.search(keys[i]) == null)
+                        throw new RuntimeException("missing key: " + keys[i]);
+                }));
+            }
+
+            System.out.println(numThreads + " threads:");
+            System.out.println("  BPlusTree with global lock, inserts:  " + String.format("%.2f", globalLockInserts) + " M ops/s");
+            System.out.println("  ConcurrentBPlusTree, inserts:         " + String.format("%.2f", concurrentInserts) + " M ops/s");
+            System.out.println("  ConcurrentBPlusTree, inserts/searches: " + String.format("%.2f", concurrentMixed) + " M ops/s");
+        }
+    }
+
+    static double run(int numThreads, IntConsumer op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int from = (int) ((long) N * t / numThreads);
+            int to = (int) ((long) N * (t + 1) / numThreads);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = from; i < to; i++)
+                    op.accept(i);
+            });
+            threads[t].start();
+        }
+
+        long t = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        return N / ((System.nanoTime() - t) / 1000d);
+    }
+
+    static void verify(ConcurrentBPlusTree<Integer, Integer> tree, int[] keys) {
+        if (tree.size() != keys.length)
+            throw new RuntimeException("wrong tree size: " + tree.size());
+
+        for (int key : keys) {
+            Integer value = tree.search(key);
+            if (value == null || value != key)
+                throw new RuntimeException("wrong value for key: " + key);
+        }
+
+        if (tree.search(0, N - 1).count() != N)
+            throw new RuntimeException("wrong range scan");
+    }
+
+    static void shuffle(int[] arr, Random rand) {
+        for (int i = arr.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = tmp;
+        }
+    }
+}
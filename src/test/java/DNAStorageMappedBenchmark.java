@@ -0,0 +1,85 @@
+import core.BaseSequence;
+import datastructures.container.DNAContainer;
+import datastructures.container.impl.DNAStorageDisk;
+import datastructures.container.impl.DNAStorageMapped;
+import datastructures.container.translation.AddressManager;
+import datastructures.container.translation.DNAAddrManager;
+import utils.AddressedDNA;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class DNAStorageMappedBenchmark {
+
+    static final int N = 200_000;
+    static final int PAYLOAD_SIZE = 150;
+    static final int NUM_THREADS = 4;
+
+    public static void main(String[] args) throws Exception {
+        DNAAddrManager am = DNAAddrManager.builder().build();
+        int addrSize = am.addressTranslationManager().addressSize();
+        AddressedDNA[] oligos = IntStream.range(0, N).mapToObj(i -> AddressedDNA.of(BaseSequence.random(addrSize + PAYLOAD_SIZE), addrSize)).toArray(AddressedDNA[]::new);
+
+        Path dir = Files.createTempDirectory("dnastorage-bench");
+        DNAStorageDisk disk = new DNAStorageDisk(am, PAYLOAD_SIZE, dir.resolve("disk.store").toString());
+        System.out.println("DNAStorageDisk puts:   " + String.format("%.2f", run(disk, oligos)) + " K ops/s");
+        verify(disk, oligos);
+
+        String segmentsDir = dir.resolve("segments").toString();
+        DNAStorageMapped mapped = new DNAStorageMapped(am, PAYLOAD_SIZE, segmentsDir);
+        double mappedPuts = run(mapped, oligos);
+        long t = System.nanoTime();
+        mapped.close();
+        System.out.println("DNAStorageMapped puts: " + String.format("%.2f", mappedPuts) + " K ops/s (final force: " + (System.nanoTime() - t) / 1000_000L + " ms)");
+        verify(mapped, oligos);
+
+        // reopening rebuilds the routing from the segments
+        DNAStorageMapped reopened = new DNAStorageMapped(am, PAYLOAD_SIZE, segmentsDir);
+        verify(reopened, oligos);
+        reopened.close();
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    static double run(DNAContainer.DNAStorage store, AddressedDNA[] oligos) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[NUM_THREADS];
+        for (int t = 0; t < NUM_THREADS; t++) {
+            int from = (int) ((long) N * t / NUM_THREADS);
+            int to = (int) ((long) N * (t + 1) / NUM_THREADS);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = from; i < to; i++)
+                    store.put(i, oligos[i]);
+            });
+            threads[t].start();
+        }
+
+        long t = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        return N / ((System.nanoTime() - t) / 1000_000d);
+    }
+
+    static void verify(DNAContainer.DNAStorage store, AddressedDNA[] oligos) {
+        if (store.size() != oligos.length)
+            throw new RuntimeException("wrong store size: " + store.size());
+
+        for (int i = 0; i < oligos.length; i++) {
+            if (!store.get(new AddressManager.ManagedAddress<>((long) i, (long) i, oligos[i].address())).join().equals(oligos[i].join()))
+                throw new RuntimeException("wrong oligo for key: " + i);
+        }
+    }
+}
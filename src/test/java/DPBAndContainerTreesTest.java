@@ -101,5 +101,17 @@ public class DPBAndContainerTreesTest {
         LNALContainerEncodedTree<Integer, Integer> containerTree = containerCoder.encode(btree);
         System.out.println("Number of oligos in the Container B+-tree: " + containerTree.getEncodedNodeStorage().collect().stream().mapToInt(EncodedNode::oligosCount).sum());
         System.out.println("Executing the range query [" + x + ", " + y + "] on the Container B+-tree: " + containerTree.search(x, y).toList());
+        System.out.println();
+
+        // the default key and value coders serialize the key and value lists of the nodes
+        BPTreeNativeCoder<Integer, Integer, DNAPointer.NativeDNAPointer> defaultCoder = new BPTreeNativeCoder.Builder<Integer, Integer, DNAPointer.NativeDNAPointer>()
+                .setPayloadSize(payloadSize)
+                .setLsh(MinHashLSH.newSeqLSHTraditional(6, 5))
+                .setSketcher(sketcher)
+                .build();
+        List<Integer> defaultCoderResult = defaultCoder.encode(btree).search(x, y).toList();
+        System.out.println("Executing the range query [" + x + ", " + y + "] on the BPB B+-tree with default coders: " + defaultCoderResult);
+        if (!defaultCoderResult.equals(IntStream.rangeClosed(x, y).boxed().toList()))
+            throw new RuntimeException("wrong result with the default coders: " + defaultCoderResult);
     }
 }
@@ -0,0 +1,85 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.wrappers.node.DecodedNode;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.FastxReader;
+import utils.OligoExporter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class FastxReaderBenchmark {
+
+    static final int N = 100_000;
+    static final int SEQ_LENGTH = 150;
+    static final int TREE_KEYS = 200;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("fastx-reader");
+        List<BaseSequence> seqs = IntStream.range(0, N).mapToObj(__ -> BaseSequence.random(SEQ_LENGTH)).toList();
+        Path fasta = dir.resolve("reads.fasta");
+        Path fastq = dir.resolve("reads.fastq");
+        try (BufferedWriter fa = Files.newBufferedWriter(fasta); BufferedWriter fq = Files.newBufferedWriter(fastq)) {
+            for (int i = 0; i < N; i++) {
+                String seq = seqs.get(i).toString();
+                // FASTA sequences wrapped at 60 bases, FASTQ quality lines starting with '@' to test the record detection
+                fa.write(">" + i + "\n");
+                for (int j = 0; j < seq.length(); j += 60) {
+                    fa.write(seq, j, Math.min(60, seq.length() - j));
+                    fa.write("\n");
+                }
+                fq.write("@" + i + "\n" + seq + "\n+\n" + "@".repeat(seq.length()) + "\n");
+            }
+        }
+
+        long t = System.nanoTime();
+        List<BaseSequence> baseline = new ArrayList<>(N);
+        try (BufferedReader br = Files.newBufferedReader(fastq)) {
+            for (String line; (line = br.readLine()) != null; ) {
+                baseline.add(new BaseSequence(br.readLine()));
+                br.readLine();
+                br.readLine();
+            }
+        }
+        report("BufferedReader + BaseSequence(String), FASTQ", fastq, System.nanoTime() - t);
+        check(baseline, seqs);
+
+        for (Path path : List.of(fasta, fastq)) {
+            FastxReader reader = new FastxReader(path);
+            for (boolean parallel : new boolean[] {false, true}) {
+                t = System.nanoTime();
+                List<BaseSequence> read = reader.sequences(parallel).toList();
+                report("FastxReader " + reader.getFormat() + (parallel ? ", parallel" : ", sequential"), path, System.nanoTime() - t);
+                check(read, seqs);
+            }
+        }
+
+        // round trip of a tree: export its nodes, read them back grouped per node, and decode them
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 4, 4);
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> tree = DPBAndContainerTreesTest.bpbCoder.encode(btree);
+        Path treeFasta = dir.resolve("tree.fasta");
+        new OligoExporter(OligoExporter.Format.FASTA).export(tree, treeFasta);
+        List<DecodedNode<Integer, DNAPointer.NativeDNAPointer>> decoded = DPBAndContainerTreesTest.bpbCoder.decodeOligoStream(new FastxReader(treeFasta, 256L).groupedSequences(true)).toList();
+        List<Integer> keys = decoded.stream().filter(DecodedNode::isLeaf).flatMap(n -> n.getKeys().stream()).sorted().toList();
+        if (decoded.size() != tree.size() || !keys.equals(IntStream.range(0, TREE_KEYS).boxed().toList()))
+            throw new RuntimeException("tree round trip failed: " + decoded.size() + " of " + tree.size() + " nodes decoded");
+
+        System.out.println("tree round trip: " + decoded.size() + " nodes decoded from " + treeFasta.getFileName());
+    }
+
+    static void check(List<BaseSequence> read, List<BaseSequence> expected) {
+        if (!read.equals(expected))
+            throw new RuntimeException("read sequences differ from the written sequences");
+    }
+
+    static void report(String name, Path path, long nanos) throws IOException {
+        System.out.println(name + ": " + String.format("%.1f ms, %.1f MB/s", nanos / 1e6d, Files.size(path) / 1e3d / (nanos / 1e6d)));
+    }
+}
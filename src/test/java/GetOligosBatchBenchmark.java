@@ -0,0 +1,65 @@
+import core.BaseSequence;
+import datastructures.container.impl.SizedDNAContainer;
+import datastructures.container.types.ContainerArray;
+import utils.AddressedDNA;
+import utils.Coder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class GetOligosBatchBenchmark {
+
+    static final int N = 400;
+    static final int SEQ_LENGTH = 400;
+    static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("get-oligos");
+        SizedDNAContainer container = SizedDNAContainer.builder().setPersistentDirectory(dir.toString()).build();
+        BaseSequence[] seqs = IntStream.range(0, N).mapToObj(__ -> BaseSequence.random(SEQ_LENGTH)).toArray(BaseSequence[]::new);
+        long[] ids = Arrays.stream(seqs).mapToLong(container::put).toArray();
+        ContainerArray<BaseSequence> array = ContainerArray.putArray(container, Coder.identity(), seqs);
+        System.out.println(N + " sequences stored in " + container.size() + " oligos on disk");
+
+        long[] oligoIds = LongStream.range(0L, container.size()).toArray();
+        for (int r = 0; r < ROUNDS; r++) {
+            long t = System.nanoTime();
+            AddressedDNA[] singleOligos = Arrays.stream(oligoIds).mapToObj(id -> container.getOligoStore().get(id)).toArray(AddressedDNA[]::new);
+            long storeSingleNanos = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            AddressedDNA[] batchedOligos = container.getOligoStore().getAll(oligoIds);
+            long storeBatchedNanos = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            AddressedDNA[][] single = Arrays.stream(ids).mapToObj(container::getOligos).toArray(AddressedDNA[][]::new);
+            long singleNanos = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            AddressedDNA[][] batched = container.getOligos(ids);
+            long batchedNanos = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            long iterated = array.stream().count();
+            long iteratedNanos = System.nanoTime() - t;
+
+            if (!Arrays.deepEquals(single, batched) || !Arrays.equals(singleOligos, batchedOligos) || iterated != N)
+                throw new RuntimeException("batched oligos differ");
+
+            System.out.println("round " + r + ": store.get(id) " + storeSingleNanos / 1000_000L + " ms, store.getAll(ids) " + storeBatchedNanos / 1000_000L + " ms");
+            System.out.println("         getOligos(id) " + singleNanos / 1000_000L + " ms, getOligos(ids) " + batchedNanos / 1000_000L + " ms, ContainerArray iteration " + iteratedNanos / 1000_000L + " ms");
+        }
+
+        if (!Arrays.equals(seqs, array.stream().toArray(BaseSequence[]::new)))
+            throw new RuntimeException("wrong array elements");
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
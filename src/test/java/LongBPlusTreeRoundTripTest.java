@@ -0,0 +1,156 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.container.DNAContainer;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import datastructures.searchtrees.LongBPlusTree;
+import dnacoders.tree.coders.BPTreeContainerCoder;
+import dnacoders.tree.coders.BPTreeNativeCoder;
+import dnacoders.tree.sketchers.AbstractHashSketcher;
+import dnacoders.tree.wrappers.tree.AbstractEncodedBPTree;
+import utils.DNAPacker;
+import utils.LongArrayCoder;
+import utils.lsh.minhash.MinHashLSH;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class LongBPlusTreeRoundTripTest {
+
+    static final int NUM_KEYS = 300;
+    static final int NUM_QUERIES = 200;
+    static final int B = 3;
+    static final int C = 3;
+    static final long[] EDGE_VALUES = {0L, 1L, -1L, Long.MIN_VALUE, Long.MIN_VALUE + 1L, Long.MAX_VALUE, Long.MAX_VALUE - 1L, Integer.MIN_VALUE, Integer.MAX_VALUE, 1L << 32};
+
+    public static void main(String[] args) {
+        Random rand = new Random(42L);
+        checkPacker(rand);
+        checkLongArrayCoder(rand);
+
+        // ascending keys around zero, so the trees hold negative keys and values, too
+        long[] keys = LongStream.range(0, NUM_KEYS).map(i -> 7L * i - 3L * NUM_KEYS).toArray();
+        long[] values = Arrays.stream(keys).map(k -> -3L * k + 1L).toArray();
+        BPlusTree<Long, Long> oracle = BPlusTree.bulkLoad(IntStream.range(0, NUM_KEYS).mapToObj(i -> new KVEntry<>(keys[i], values[i])), B, C);
+
+        LongBPlusTree bulkLoaded = LongBPlusTree.bulkLoad(keys, values, B, C);
+        checkTree("bulkLoad", bulkLoaded, oracle, keys, rand);
+        checkTree("bulkLoadParallel", LongBPlusTree.bulkLoadParallel(keys, values, B, C), oracle, keys, rand);
+        LongBPlusTree inserted = new LongBPlusTree(B, C);
+        shuffled(NUM_KEYS, rand).forEach(i -> inserted.insert(keys[i], values[i]));
+        checkTree("insert", inserted, oracle, keys, rand);
+
+        BPTreeNativeCoder<Long, Long, DNAPointer.NativeDNAPointer> nativeCoder = new BPTreeNativeCoder.Builder<Long, Long, DNAPointer.NativeDNAPointer>()
+                .setPayloadSize(DPBAndContainerTreesTest.payloadSize)
+                .setToleranceFunctionLeaves(__ -> 0)
+                .setToleranceFunctionInternalNodes(__ -> 0)
+                .setLsh(MinHashLSH.newSeqLSHTraditional(6, 5))
+                .setKeyCoder(LongArrayCoder.deltaUnsigned().boxed())
+                .setValueCoder(LongArrayCoder.unsigned().boxed())
+                .setParallel(true)
+                .setSketcher(AbstractHashSketcher.builder().setFlavor(AbstractHashSketcher.Builder.Flavor.F2).setAddressSize(DPBAndContainerTreesTest.addrSize).build())
+                .build();
+        checkEncoded("BPTreeNativeCoder", nativeCoder.encode(bulkLoaded, LongArrayCoder.deltaUnsigned(), LongArrayCoder.unsigned()), oracle, keys, rand);
+
+        DNAContainer dnaContainer = DNAContainer.builder()
+                .setPayloadSize(DPBAndContainerTreesTest.payloadSize)
+                .setOligoLSH(MinHashLSH.newSeqLSHTraditional(6, 5))
+                .setParallel(true)
+                .build();
+        BPTreeContainerCoder<Long, Long> containerCoder = new BPTreeContainerCoder<>(dnaContainer, LongArrayCoder.deltaUnsigned().boxed(), LongArrayCoder.unsigned().boxed());
+        checkEncoded("BPTreeContainerCoder", containerCoder.encode(bulkLoaded, LongArrayCoder.deltaUnsigned(), LongArrayCoder.unsigned()), oracle, keys, rand);
+    }
+
+    static void checkPacker(Random rand) {
+        long[] values = LongStream.concat(Arrays.stream(EDGE_VALUES), rand.longs(1000)).toArray();
+        BaseSequence seq = new BaseSequence();
+        for (long value : values)
+            DNAPacker.packUnsignedLong(seq, value);
+
+        if (!Arrays.equals(DNAPacker.unpackAllUnsignedLong(seq), values))
+            throw new RuntimeException("DNAPacker: unpackAllUnsignedLong does not return the packed values");
+
+        System.out.println("DNAPacker: " + values.length + " values round-tripped");
+    }
+
+    static void checkLongArrayCoder(Random rand) {
+        long[] unsorted = LongStream.concat(Arrays.stream(EDGE_VALUES), rand.longs(1000)).toArray();
+        if (!Arrays.equals(LongArrayCoder.unsigned().decode(LongArrayCoder.unsigned().encode(unsorted)), unsorted))
+            throw new RuntimeException("LongArrayCoder: unsigned round trip failed");
+
+        // the deltas of sorted values wrap around for negative values and large gaps, and are restored by the same wrap-around when decoding
+        long[] sorted = unsorted.clone();
+        Arrays.sort(sorted);
+        if (!Arrays.equals(LongArrayCoder.deltaUnsigned().decode(LongArrayCoder.deltaUnsigned().encode(sorted)), sorted))
+            throw new RuntimeException("LongArrayCoder: delta unsigned round trip failed");
+
+        List<Long> boxed = Arrays.stream(sorted).boxed().toList();
+        if (!LongArrayCoder.deltaUnsigned().boxed().decode(LongArrayCoder.deltaUnsigned().encode(sorted)).equals(boxed))
+            throw new RuntimeException("LongArrayCoder: boxed coder does not decode the primitive format");
+
+        System.out.println("LongArrayCoder: " + unsorted.length + " values round-tripped");
+    }
+
+    static void checkTree(String name, LongBPlusTree tree, BPlusTree<Long, Long> oracle, long[] keys, Random rand) {
+        if (tree.size() != keys.length)
+            throw new RuntimeException(name + ": wrong size " + tree.size());
+
+        for (long key : queryKeys(keys, rand)) {
+            Long expected = oracle.search(key);
+            var found = tree.search(key);
+            if (expected == null ? found.isPresent() : found.isEmpty() || found.getAsLong() != expected)
+                throw new RuntimeException(name + ": wrong value for key " + key);
+        }
+        for (long[] range : queryRanges(keys, rand)) {
+            List<Long> expected = oracle.search(range[0], range[1]).toList();
+            List<Long> found = tree.search(range[0], range[1]).boxed().toList();
+            if (!found.equals(expected))
+                throw new RuntimeException(name + ": wrong values for range [" + range[0] + ", " + range[1] + "]");
+        }
+        System.out.println("LongBPlusTree " + name + ": " + NUM_QUERIES + " point and range queries match the oracle");
+    }
+
+    static void checkEncoded(String name, AbstractEncodedBPTree<Long, Long, ?, ?> tree, BPlusTree<Long, Long> oracle, long[] keys, Random rand) {
+        for (long key : queryKeys(keys, rand)) {
+            Long expected = oracle.search(key);
+            Long found = tree.search(key);
+            if (expected == null ? found != null : !expected.equals(found))
+                throw new RuntimeException(name + ": wrong value for key " + key + ": " + found);
+        }
+        for (long[] range : queryRanges(keys, rand)) {
+            List<Long> expected = oracle.search(range[0], range[1]).toList();
+            List<Long> found = tree.search(range[0], range[1]).toList();
+            if (!found.equals(expected))
+                throw new RuntimeException(name + ": wrong values for range [" + range[0] + ", " + range[1] + "]");
+        }
+        System.out.println(name + ": " + NUM_QUERIES + " point and range queries on the decoded tree match the oracle");
+    }
+
+    // present keys, absent keys between them, and keys beyond both ends
+    static long[] queryKeys(long[] keys, Random rand) {
+        return LongStream.concat(
+                LongStream.of(keys[0], keys[keys.length - 1], keys[0] - 1L, keys[keys.length - 1] + 1L),
+                rand.ints(NUM_QUERIES - 4, 0, keys.length).mapToLong(i -> keys[i] + rand.nextInt(3))
+        ).toArray();
+    }
+
+    static List<long[]> queryRanges(long[] keys, Random rand) {
+        return IntStream.range(0, NUM_QUERIES).mapToObj(__ -> {
+            long low = keys[rand.nextInt(keys.length)] - rand.nextInt(10);
+            return new long[] {low, low + rand.nextInt(100)};
+        }).toList();
+    }
+
+    static IntStream shuffled(int n, Random rand) {
+        int[] order = IntStream.range(0, n).toArray();
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return Arrays.stream(order);
+    }
+}
@@ -0,0 +1,93 @@
+import datastructures.container.Container;
+import datastructures.container.impl.MappedLongContainer;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class MappedLongContainerBenchmark {
+
+    static final int N = 5_000_000;
+
+    public static void main(String[] args) throws Exception {
+        File file = File.createTempFile("routing", ".index");
+        file.delete();
+        String path = file.getPath();
+
+        long heapBefore = usedHeap();
+        Container<Long, Long> map = new Container.MapContainer<>();
+        long t = System.nanoTime();
+        for (long i = 0; i < N; i++)
+            map.put(i, 2 * i);
+        String mapRate = rate(t);
+        long mapHeap = usedHeap() - heapBefore;
+        System.out.println("MapContainer puts:        " + mapRate + " M ops/s, heap: " + mapHeap / map.size() + " bytes/entry");
+        map = null;
+
+        heapBefore = usedHeap();
+        MappedLongContainer index = new MappedLongContainer(path);
+        t = System.nanoTime();
+        for (long i = 0; i < N; i++)
+            index.put(i, 2 * i);
+        String indexRate = rate(t);
+        long indexHeap = usedHeap() - heapBefore;
+        System.out.println("MappedLongContainer puts: " + indexRate + " M ops/s, heap: " + indexHeap / index.size() + " bytes/entry, file: " + new File(path).length() / index.size() + " bytes/entry");
+        index.close();
+
+        t = System.nanoTime();
+        MappedLongContainer reopened = new MappedLongContainer(path);
+        System.out.println("reopen of " + reopened.size() + " entries: " + (System.nanoTime() - t) / 1000_000L + " ms");
+        t = System.nanoTime();
+        for (long i = 0; i < N; i++) {
+            if (reopened.get(i, -1L) != 2 * i)
+                throw new RuntimeException("wrong value for key: " + i);
+        }
+        System.out.println("MappedLongContainer gets: " + rate(t) + " M ops/s");
+        reopened.close();
+        new File(path).delete();
+
+        verifyRandomOps(path);
+    }
+
+    // compares random puts and removes against a HashMap, including a reopen
+    static void verifyRandomOps(String path) {
+        Random rand = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        MappedLongContainer index = new MappedLongContainer(path, 16);
+        for (int i = 0; i < 1_000_000; i++) {
+            long key = rand.nextInt(100_000);
+            if (rand.nextInt(3) == 0) {
+                if (index.remove(key) != (expected.remove(key) != null))
+                    throw new RuntimeException("wrong remove of key: " + key);
+            }
+            else {
+                long value = rand.nextLong();
+                index.put(key, value);
+                expected.put(key, value);
+            }
+        }
+        index.close();
+        index = new MappedLongContainer(path);
+        if (index.size() != expected.size() || !index.keys().equals(expected.keySet()))
+            throw new RuntimeException("wrong keys after reopen");
+
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            if (!e.getValue().equals(index.get(e.getKey())))
+                throw new RuntimeException("wrong value for key: " + e.getKey());
+        }
+        new File(path).delete();
+        System.out.println("random puts/removes verified");
+    }
+
+    static String rate(long startNanos) {
+        return String.format("%.2f", N / ((System.nanoTime() - startNanos) / 1000d));
+    }
+
+    static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+}
@@ -0,0 +1,70 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.container.impl.SizedDNAContainer;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.wrappers.node.EncodedNode;
+import dnacoders.tree.wrappers.tree.LNALContainerEncodedTree;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.AddressedDNA;
+import utils.OligoExporter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class OligoExportBenchmark {
+
+    static final int N = 500;
+    static final int SEQ_LENGTH = 300;
+    static final int TREE_KEYS = 200;
+
+    public static void main(String[] args) throws IOException {
+        SizedDNAContainer container = SizedDNAContainer.builder().setParallel(true).build();
+        IntStream.range(0, N).forEach(__ -> container.put(BaseSequence.random(SEQ_LENGTH)));
+
+        Path dir = Files.createTempDirectory("oligo-export");
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path single = dir.resolve("single.fasta");
+        Path parallel = dir.resolve("parallel.fasta");
+        report("container, 1 thread", new OligoExporter(OligoExporter.Format.FASTA, 1, 64).export(container, single));
+        report("container, " + threads + " threads", new OligoExporter(OligoExporter.Format.FASTA, threads, 64).export(container, parallel));
+
+        if (!Arrays.equals(Files.readAllBytes(single), Files.readAllBytes(parallel)))
+            throw new RuntimeException("parallel export differs from the sequential export");
+
+        List<String> lines = Files.readAllLines(parallel);
+        if (lines.size() != 2 * container.size())
+            throw new RuntimeException("exported " + lines.size() / 2 + " oligos of " + container.size());
+
+        for (int i = 0; i < lines.size(); i += 2) {
+            long id = Long.parseLong(lines.get(i).substring(1));
+            AddressedDNA oligo = container.getOligoStore().get(id);
+            if (!lines.get(i + 1).equals(oligo.join().toString()))
+                throw new RuntimeException("wrong oligo for id: " + id);
+        }
+
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 4, 4);
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> bpbTree = DPBAndContainerTreesTest.bpbCoder.encode(btree);
+        LNALContainerEncodedTree<Integer, Integer> containerTree = DPBAndContainerTreesTest.containerCoder.encode(btree);
+
+        Path bpbCsv = dir.resolve("bpb.csv");
+        Path containerFastq = dir.resolve("container-tree.fastq");
+        check("BPB tree (CSV)", new OligoExporter(OligoExporter.Format.CSV).export(bpbTree, bpbCsv), bpbTree.stream().mapToInt(EncodedNode::oligosCount).sum());
+        check("container tree (FASTQ)", new OligoExporter(OligoExporter.Format.FASTQ).export(containerTree, containerFastq), containerTree.stream().mapToInt(EncodedNode::oligosCount).sum());
+        if (Files.readAllLines(bpbCsv).size() != bpbTree.stream().mapToInt(EncodedNode::oligosCount).sum() + 1)
+            throw new RuntimeException("wrong number of CSV lines");
+    }
+
+    static void check(String name, OligoExporter.ExportStats stats, long expectedOligos) {
+        report(name, stats);
+        if (stats.numOligos() != expectedOligos)
+            throw new RuntimeException(name + ": exported " + stats.numOligos() + " oligos of " + expectedOligos);
+    }
+
+    static void report(String name, OligoExporter.ExportStats stats) {
+        System.out.println(name + ": " + stats.numOligos() + " oligos, " + stats.numBytes() + " bytes in " + String.format("%.1f ms (%.1f MB/s, %.0f oligos/s)", stats.seconds() * 1000d, stats.megabytesPerSecond(), stats.oligosPerSecond()));
+    }
+}
@@ -0,0 +1,81 @@
+import datastructures.container.Container;
+import datastructures.container.impl.MappedLongContainer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+public class OptimisticReadContainerBenchmark {
+
+    static final int N = 4_000_000;
+    static final int NUM_KEYS = 1 << 20;
+    static final int WRITE_EVERY = 100; // 1% writes
+    static final int ROUNDS = 3;
+    static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("optimistic-read");
+        for (int numThreads : THREADS) {
+            double rwLocked = 0.0d;
+            double optimistic = 0.0d;
+            for (int r = 0; r < ROUNDS; r++) {
+                rwLocked = Math.max(rwLocked, run(numThreads, Container.readWriteSynchronizedContainer(filled(dir.resolve("rw-" + numThreads + "-" + r)))));
+                optimistic = Math.max(optimistic, run(numThreads, Container.optimisticReadContainer(filled(dir.resolve("opt-" + numThreads + "-" + r)))));
+            }
+
+            System.out.println(numThreads + " threads, " + (100 / WRITE_EVERY) + "% writes:");
+            System.out.println("  readWriteSynchronizedContainer: " + String.format("%.2f", rwLocked) + " M ops/s");
+            System.out.println("  optimisticReadContainer:        " + String.format("%.2f", optimistic) + " M ops/s");
+        }
+    }
+
+    static MappedLongContainer filled(Path path) {
+        MappedLongContainer container = new MappedLongContainer(path.toString(), 2L * NUM_KEYS);
+        for (long i = 0; i < NUM_KEYS; i++)
+            container.put(i, i);
+
+        return container;
+    }
+
+    static double run(int numThreads, Container<Long, Long> container) throws InterruptedException {
+        return run(numThreads, i -> {
+            long key = (i * 0x9E3779B1L) & (NUM_KEYS - 1);
+            if (i % WRITE_EVERY == 0) {
+                container.put(key, key);
+            }
+            else {
+                Long value = container.get(key);
+                if (value == null || value != key)
+                    throw new RuntimeException("wrong value for key: " + key);
+            }
+        });
+    }
+
+    static double run(int numThreads, IntConsumer op) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int from = (int) ((long) N * t / numThreads);
+            int to = (int) ((long) N * (t + 1) / numThreads);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                for (int i = from; i < to; i++)
+                    op.accept(i);
+            });
+            threads[t].start();
+        }
+
+        long t = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        return N / ((System.nanoTime() - t) / 1000d);
+    }
+}
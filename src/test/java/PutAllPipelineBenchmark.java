@@ -0,0 +1,66 @@
+import core.BaseSequence;
+import datastructures.container.impl.SizedDNAContainer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+public class PutAllPipelineBenchmark {
+
+    static final int N = 500;
+    static final int SEQ_LENGTH = 60;
+
+    public static void main(String[] args) {
+        BaseSequence[] seqs = IntStream.range(0, N).mapToObj(__ -> BaseSequence.random(SEQ_LENGTH)).toArray(BaseSequence[]::new);
+
+        SizedDNAContainer container = SizedDNAContainer.builder().build();
+        long t = System.nanoTime();
+        long[] ids = Arrays.stream(seqs).mapToLong(container::put).toArray();
+        System.out.println("put(seq) one by one:  " + (System.nanoTime() - t) / 1000_000L + " ms");
+        verify(container, ids, seqs);
+
+        container = SizedDNAContainer.builder().build();
+        t = System.nanoTime();
+        ids = container.putAll(Arrays.stream(seqs));
+        System.out.println("putAll(Stream):       " + (System.nanoTime() - t) / 1000_000L + " ms with " + SizedDNAContainer.PutPipeline.defaults());
+        verify(container, ids, seqs);
+
+        container = SizedDNAContainer.builder().build();
+        ids = container.registerIds(N);
+        Map<Long, BaseSequence> map = new HashMap<>();
+        for (int i = 0; i < N; i++)
+            map.put(ids[i], seqs[i]);
+        t = System.nanoTime();
+        container.putAll(map, new SizedDNAContainer.PutPipeline(2, 1, 2, 1, 16));
+        System.out.println("putAll(Map):          " + (System.nanoTime() - t) / 1000_000L + " ms with small queues");
+        verify(container, ids, seqs);
+
+        try {
+            container.putAll(Map.of(Long.MAX_VALUE - 1, seqs[0]));
+            throw new IllegalStateException("unregistered id accepted");
+        }
+        catch (RuntimeException e) {
+            if (e instanceof IllegalStateException)
+                throw e;
+        }
+
+        // a failing stream of the caller must end the pipeline and surface, instead of leaving the workers waiting for more objects
+        try {
+            SizedDNAContainer.builder().build().putAll(IntStream.range(0, 10).mapToObj(i -> {
+                if (i == 5)
+                    throw new UnsupportedOperationException("failing stream");
+                return seqs[i];
+            }));
+            throw new IllegalStateException("failure of the stream swallowed");
+        }
+        catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    static void verify(SizedDNAContainer container, long[] ids, BaseSequence[] seqs) {
+        for (int i = 0; i < seqs.length; i++) {
+            if (!seqs[i].equals(container.get(ids[i])))
+                throw new RuntimeException("wrong sequence for id: " + ids[i]);
+        }
+    }
+}
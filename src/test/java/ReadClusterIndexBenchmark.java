@@ -0,0 +1,79 @@
+import core.Base;
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.encodednodestorage.EncodedNodeReadPoolStorage;
+import dnacoders.tree.encodednodestorage.ReadClusterIndex;
+import dnacoders.tree.wrappers.node.EncodedNode;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class ReadClusterIndexBenchmark {
+
+    static final int TREE_KEYS = 500;
+    static final int COVERAGE = 6;
+    static final double SUBSTITUTION_RATE = 0.01d;
+    static final double INDEL_RATE = 0.002d;
+
+    public static void main(String[] args) {
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 4, 4);
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> tree = DPBAndContainerTreesTest.bpbCoder.encode(btree);
+
+        // every oligo is read COVERAGE times with substitutions and rare indels, and the reads are shuffled
+        Random rand = new Random(42);
+        List<BaseSequence> reads = new ArrayList<>();
+        for (EncodedNode<DNAPointer.NativeDNAPointer> node : tree) {
+            for (BaseSequence oligo : node.joinedOligos()) {
+                for (int c = 0; c < COVERAGE; c++)
+                    reads.add(noisy(oligo, rand));
+            }
+        }
+        Collections.shuffle(reads, rand);
+
+        long t = System.nanoTime();
+        ReadClusterIndex index = ReadClusterIndex.builder()
+                .setReads(reads)
+                .setAddressSize(DPBAndContainerTreesTest.bpbCoder.getAddressSize())
+                .setOligoSize(DPBAndContainerTreesTest.bpbCoder.getOligoSize())
+                .build();
+        System.out.println("indexed " + index.numReads() + " reads (" + index.numIndexedKmers() + " k-mers) in " + (System.nanoTime() - t) / 1000_000L + " ms");
+
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> readTree = EncodedNodeReadPoolStorage.treeOf(DPBAndContainerTreesTest.bpbCoder, index, tree.getRoot().addresses());
+        t = System.nanoTime();
+        int hits = 0;
+        for (int key = 0; key < TREE_KEYS; key += 7) {
+            Integer value = readTree.search(key);
+            if (value != null && value == key)
+                hits++;
+        }
+        System.out.println("point queries: " + hits + " of " + (TREE_KEYS + 6) / 7 + " decoded correctly in " + (System.nanoTime() - t) / 1000_000L + " ms");
+
+        List<Integer> range = readTree.search(100, 120).toList();
+        System.out.println("range query [100, 120]: " + range);
+        if (!range.equals(IntStream.rangeClosed(100, 120).boxed().toList()))
+            throw new RuntimeException("range query on the read pool failed");
+
+        if (readTree.size() != tree.size())
+            throw new RuntimeException("assembled " + readTree.size() + " of " + tree.size() + " nodes");
+    }
+
+    static BaseSequence noisy(BaseSequence oligo, Random rand) {
+        BaseSequence read = new BaseSequence();
+        for (Base b : oligo) {
+            double r = rand.nextDouble();
+            if (r < INDEL_RATE / 2d)
+                continue;
+
+            if (r < INDEL_RATE)
+                read.append(Base.values()[rand.nextInt(4)]);
+
+            read.append(rand.nextDouble() < SUBSTITUTION_RATE ? Base.values()[rand.nextInt(4)] : b);
+        }
+        return read;
+    }
+}
@@ -0,0 +1,75 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.coders.BPTreeNativeCoder;
+import dnacoders.tree.sketchers.AbstractHashSketcher;
+import dnacoders.tree.wrappers.node.EncodedNode;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.lsh.minhash.MinHashLSH;
+import utils.lsh.storage.LSHStorage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+public class SeedTrialsBenchmark {
+
+    static final int TREE_KEYS = 400;
+    static final int SEED_TRIALS = 8;
+    static final float TARGET_SCORE = 0.8f;
+
+    public static void main(String[] args) {
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 4, 4);
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        run("1 concurrent trial", btree, 1, Long.MAX_VALUE);
+        run(threads + " concurrent trials", btree, threads, Long.MAX_VALUE);
+        run(threads + " concurrent trials, 50 ms budget", btree, threads, 50L);
+    }
+
+    static void run(String name, BPlusTree<Integer, Integer> btree, int trialParallelism, long trialBudgetMillis) {
+        CountingLSH sketcherLsh = new CountingLSH(5 + Math.max(1, DPBAndContainerTreesTest.addrSize / 80), 5);
+        CountingLSH oligoLsh = new CountingLSH(6, 5);
+        BPTreeNativeCoder<Integer, Integer, DNAPointer.NativeDNAPointer> coder = new BPTreeNativeCoder.Builder<Integer, Integer, DNAPointer.NativeDNAPointer>()
+                .setPayloadSize(DPBAndContainerTreesTest.payloadSize)
+                .setToleranceFunctionLeaves(__ -> 0)
+                .setToleranceFunctionInternalNodes(__ -> 0)
+                .setLsh(oligoLsh)
+                .setKeyCoder(DPBAndContainerTreesTest.integerCoder)
+                .setValueCoder(DPBAndContainerTreesTest.integerCoder)
+                .setParallel(true)
+                .setSketcher(AbstractHashSketcher.builder().setFlavor(AbstractHashSketcher.Builder.Flavor.F2).setAddressSize(DPBAndContainerTreesTest.addrSize).setLsh(sketcherLsh).build())
+                .setSeedTrialsAndTargetScore(SEED_TRIALS, TARGET_SCORE)
+                .setTrialParallelism(trialParallelism)
+                .setTrialBudgetMillis(trialBudgetMillis)
+                .build();
+
+        long t = System.nanoTime();
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> tree = coder.encode(btree);
+        long nanos = System.nanoTime() - t;
+
+        if (!tree.search(50, 150).toList().equals(IntStream.rangeClosed(50, 150).boxed().toList()))
+            throw new RuntimeException(name + ": range query failed");
+
+        // only the addresses and oligos of the winning trials are inserted into the LSHs
+        long oligos = tree.stream().mapToLong(EncodedNode::oligosCount).sum();
+        if (sketcherLsh.inserts.sum() != oligos || oligoLsh.inserts.sum() != oligos)
+            throw new RuntimeException(name + ": " + sketcherLsh.inserts.sum() + " address and " + oligoLsh.inserts.sum() + " oligo LSH inserts for " + oligos + " oligos");
+
+        var stats = coder.trialStats();
+        System.out.println(String.format("%-36s: encoded %d nodes in %.1f ms, %.2f trials/node, %.1f ms/node",
+                name, stats.nodes(), nanos / 1000_000d, stats.trialsPerNode(), stats.millisPerNode()));
+    }
+
+    static class CountingLSH extends MinHashLSH.Traditional<BaseSequence> {
+        final LongAdder inserts = new LongAdder();
+
+        CountingLSH(int k, int r) {
+            super(k, r, 1, seq -> seq.kmers(k).stream().mapToLong(BaseSequence::toBase4).toArray(), LSHStorage.AmplifiedLSHStorage.Amplification.AND);
+        }
+
+        @Override
+        public void insert(BaseSequence seq) {
+            inserts.increment();
+            super.insert(seq);
+        }
+    }
+}
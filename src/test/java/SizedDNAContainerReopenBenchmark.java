@@ -0,0 +1,75 @@
+import core.BaseSequence;
+import datastructures.container.impl.SizedDNAContainer;
+import datastructures.container.translation.DNAAddrManager;
+import utils.lsh.LSH;
+import utils.lsh.minhash.MinHashLSH;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class SizedDNAContainerReopenBenchmark {
+
+    static final int N = 500;
+    static final int SEQ_LENGTH = 400;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("sized-container");
+        BaseSequence[] seqs = IntStream.range(0, N).mapToObj(__ -> BaseSequence.random(SEQ_LENGTH)).toArray(BaseSequence[]::new);
+
+        SizedDNAContainer container = SizedDNAContainer.builder().setPersistentDirectory(dir.toString()).build();
+        long[] ids = new long[N];
+        long t = System.nanoTime();
+        for (int i = 0; i < N; i++)
+            ids[i] = container.put(seqs[i]);
+        System.out.println("put " + N + " sequences (" + container.size() + " oligos): " + (System.nanoTime() - t) / 1000_000L + " ms");
+
+        t = System.nanoTime();
+        container.saveState();
+        System.out.println("saveState: " + (System.nanoTime() - t) / 1000_000L + " ms");
+
+        t = System.nanoTime();
+        SizedDNAContainer reopened = SizedDNAContainer.builder().setPersistentDirectory(dir.toString()).build();
+        System.out.println("reopen: " + (System.nanoTime() - t) / 1000_000L + " ms");
+
+        // the alternative to the snapshot: re-inserting every address into a fresh LSH
+        DNAAddrManager am = (DNAAddrManager) reopened.getAddressManager();
+        LSH<BaseSequence> lsh = DNAAddrManager.Builder.DEFAULT_LSH.apply(am.getAddressSize(), DNAAddrManager.Builder.DEFAULT_DEEP_LSH);
+        t = System.nanoTime();
+        am.addressTranslationManager().container().values().forEach(lsh::insert);
+        System.out.println("re-inserting " + am.size() + " addresses into the LSH: " + (System.nanoTime() - t) / 1000_000L + " ms");
+
+        for (int i = 0; i < N; i++) {
+            if (!seqs[i].equals(reopened.get(ids[i])))
+                throw new RuntimeException("wrong sequence for id: " + ids[i]);
+        }
+        if (am.size() != ((DNAAddrManager) container.getAddressManager()).size())
+            throw new RuntimeException("wrong number of addresses after reopen");
+        if (!((MinHashLSH<BaseSequence, ?>) am.getLsh()).query(am.addressTranslationManager().container().get(0L)))
+            throw new RuntimeException("LSH misses a restored address");
+
+        // the id generators continue, so new sequences do not overwrite restored ones
+        BaseSequence seq = BaseSequence.random(SEQ_LENGTH);
+        long id = reopened.put(seq);
+        if (id <= ids[N - 1] || !seq.equals(reopened.get(id)) || !seqs[0].equals(reopened.get(ids[0])))
+            throw new RuntimeException("wrong put after reopen");
+
+        System.out.println("reopened container verified");
+
+        // without a persistent directory, the ids start over, so the store files of a previous container must not be continued
+        for (int round = 0; round < 2; round++) {
+            SizedDNAContainer fresh = SizedDNAContainer.builder().setStorePersistentDefault().build();
+            if (fresh.size() != 0L)
+                throw new RuntimeException("stale oligos of a previous container: " + fresh.size());
+            fresh.put(seqs[0]);
+        }
+        Files.deleteIfExists(Path.of(SizedDNAContainer.Builder.DEFAULT_STORE_FILE_NAME));
+        Files.deleteIfExists(Path.of(SizedDNAContainer.Builder.DEFAULT_STORE_FILE_NAME + ".routing"));
+        System.out.println("fresh container verified");
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import datastructures.KVEntry;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.coders.BPTreeNativeCoder;
+import dnacoders.tree.sketchers.AbstractHashSketcher;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.lsh.minhash.MinHashLSH;
+import java.util.stream.IntStream;
+
+public class SketchAddressCacheBenchmark {
+
+    static final int TREE_KEYS = 5000;
+    static final int QUERIES = 2000;
+
+    public static void main(String[] args) {
+        BPlusTree<Integer, Integer> btree = BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 8, 8);
+        run("no cache", btree, 0);
+        run("cache", btree, AbstractHashSketcher.Builder.DEFAULT_ADDRESS_CACHE_SIZE);
+    }
+
+    static void run(String name, BPlusTree<Integer, Integer> btree, int addressCacheSize) {
+        AbstractHashSketcher sketcher = (AbstractHashSketcher) AbstractHashSketcher.builder()
+                .setFlavor(AbstractHashSketcher.Builder.Flavor.F2)
+                .setAddressSize(DPBAndContainerTreesTest.addrSize)
+                .setAddressCacheSize(addressCacheSize)
+                .build();
+
+        BPTreeNativeCoder<Integer, Integer, DNAPointer.NativeDNAPointer> coder = new BPTreeNativeCoder.Builder<Integer, Integer, DNAPointer.NativeDNAPointer>()
+                .setPayloadSize(DPBAndContainerTreesTest.payloadSize)
+                .setToleranceFunctionLeaves(__ -> 0)
+                .setToleranceFunctionInternalNodes(__ -> 0)
+                .setLsh(MinHashLSH.newSeqLSHTraditional(6, 5))
+                .setKeyCoder(DPBAndContainerTreesTest.integerCoder)
+                .setValueCoder(DPBAndContainerTreesTest.integerCoder)
+                .setParallel(true)
+                .setSketcher(sketcher)
+                .build();
+
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> tree = coder.encode(btree);
+        long t = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            int key = (int) ((i * 7919L) % TREE_KEYS);
+            Integer value = tree.search(key);
+            if (value == null || value != key)
+                throw new RuntimeException("wrong value for key: " + key);
+        }
+        long nanos = System.nanoTime() - t;
+
+        var stats = sketcher.addressCacheStats();
+        System.out.println(String.format("%-8s: %d queries in %.1f ms, %d hits, %d misses (hit rate %.1f%%), %d of %d sketches cached",
+                name, QUERIES, nanos / 1000_000d, stats.hits(), stats.misses(), 100d * stats.hitRate(), stats.size(), stats.maxSize()));
+    }
+}
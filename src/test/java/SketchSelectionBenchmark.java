@@ -0,0 +1,37 @@
+import datastructures.reference.DNAPointer;
+import dnacoders.tree.sketchers.AbstractHashSketcher;
+import dnacoders.tree.sketchers.IDNASketcher;
+import java.util.Arrays;
+
+public class SketchSelectionBenchmark {
+
+    static final int[] LEAF_SIZES = {64, 256, 1024};
+    static final int SKETCHES = 20;
+
+    public static void main(String[] args) {
+        for (boolean parallel : new boolean[] {false, true}) {
+            for (int n : LEAF_SIZES) {
+                int tol = n / 10;
+                IDNASketcher<DNAPointer.NativeDNAPointer> sketcher = AbstractHashSketcher.builder()
+                        .setFlavor(AbstractHashSketcher.Builder.Flavor.F3)
+                        .setAddressSize(DPBAndContainerTreesTest.addrSize)
+                        .setParallel(parallel)
+                        .setAddressCacheSize(0)
+                        .build();
+
+                sketcher.createSketch(n, tol);
+                long t = System.nanoTime();
+                for (int i = 0; i < SKETCHES; i++) {
+                    DNAPointer.NativeDNAPointer sketch = sketcher.createSketch(n, tol);
+                    if (sketch.badIndices().length != tol || sketch.addresses().length != n)
+                        throw new RuntimeException("wrong number of bad or kept addresses");
+
+                    if (!Arrays.equals(sketcher.generateFromSketch(sketch), sketch.addresses()))
+                        throw new RuntimeException("regenerated addresses differ for seed: " + sketch.seed());
+                }
+                long nanos = System.nanoTime() - t;
+                System.out.println(String.format("%s n = %4d, tol = %3d: %.2f ms/sketch", parallel ? "parallel  " : "sequential", n, tol, nanos / 1000_000d / SKETCHES));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import core.BaseSequence;
+import datastructures.KVEntry;
+import datastructures.reference.DNAPointer;
+import datastructures.searchtrees.BPlusTree;
+import dnacoders.tree.coders.BPTreeNativeCoder;
+import dnacoders.tree.sketchers.AbstractHashSketcher;
+import dnacoders.tree.sketchers.IDNASketcher;
+import dnacoders.tree.wrappers.tree.LNALNativeEncodedTree;
+import utils.lsh.minhash.MinHashLSH;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class SketcherFlavorBenchmark {
+
+    static final int SKETCHES = 500;
+    static final int ADDRESSES_PER_SKETCH = 8;
+    static final int TREE_KEYS = 2000;
+
+    public static void main(String[] args) {
+        for (AbstractHashSketcher.Builder.Flavor flavor : AbstractHashSketcher.Builder.Flavor.values())
+            run(flavor);
+    }
+
+    static void run(AbstractHashSketcher.Builder.Flavor flavor) {
+        // the address cache is disabled, so regeneration is measured, and the LSH is not managed, so the cost of the address generation is not hidden by LSH inserts
+        IDNASketcher<DNAPointer.NativeDNAPointer> sketcher = AbstractHashSketcher.builder()
+                .setFlavor(flavor)
+                .setAddressSize(DPBAndContainerTreesTest.addrSize)
+                .setManageLsh(false)
+                .setDistanceWeight(0f)
+                .setAddressCacheSize(0)
+                .build();
+
+        long t = System.nanoTime();
+        List<DNAPointer.NativeDNAPointer> sketches = IntStream.range(0, SKETCHES).mapToObj(__ -> sketcher.createSketch(ADDRESSES_PER_SKETCH, 0)).toList();
+        long createNanos = System.nanoTime() - t;
+
+        t = System.nanoTime();
+        for (DNAPointer.NativeDNAPointer sketch : sketches) {
+            if (!Arrays.equals(sketcher.generateFromSketch(sketch), sketch.addresses()))
+                throw new RuntimeException(flavor + ": regenerated addresses differ for seed: " + sketch.seed());
+        }
+        long regenerateNanos = System.nanoTime() - t;
+
+        List<BaseSequence> addresses = sketches.stream().flatMap(s -> Arrays.stream(s.addresses())).toList();
+        int maxHomopolymer = addresses.stream().mapToInt(BaseSequence::longestHomopolymer).max().orElse(0);
+        double minGc = addresses.stream().mapToDouble(BaseSequence::gcContent).min().orElse(0d);
+        double maxGc = addresses.stream().mapToDouble(BaseSequence::gcContent).max().orElse(0d);
+
+        BPTreeNativeCoder<Integer, Integer, DNAPointer.NativeDNAPointer> coder = new BPTreeNativeCoder.Builder<Integer, Integer, DNAPointer.NativeDNAPointer>()
+                .setPayloadSize(DPBAndContainerTreesTest.payloadSize)
+                .setToleranceFunctionLeaves(__ -> 0)
+                .setToleranceFunctionInternalNodes(__ -> 0)
+                .setLsh(MinHashLSH.newSeqLSHTraditional(6, 5))
+                .setKeyCoder(DPBAndContainerTreesTest.integerCoder)
+                .setValueCoder(DPBAndContainerTreesTest.integerCoder)
+                .setParallel(true)
+                .setSketcher(AbstractHashSketcher.builder().setFlavor(flavor).setAddressSize(DPBAndContainerTreesTest.addrSize).build())
+                .build();
+
+        t = System.nanoTime();
+        LNALNativeEncodedTree<Integer, Integer, DNAPointer.NativeDNAPointer> tree = coder.encode(BPlusTree.bulkLoad(IntStream.range(0, TREE_KEYS).mapToObj(i -> new KVEntry<>(i, i)), 8, 8));
+        long encodeNanos = System.nanoTime() - t;
+        if (!tree.search(100, 300).toList().equals(IntStream.rangeClosed(100, 300).boxed().toList()))
+            throw new RuntimeException(flavor + ": range query failed");
+
+        System.out.println(String.format("%s: create %.1f us/sketch, regenerate %.1f us/sketch, max homopolymer %d, GC content [%.2f, %.2f], tree encoded in %.1f ms",
+                flavor, createNanos / 1000d / SKETCHES, regenerateNanos / 1000d / SKETCHES, maxHomopolymer, minGc, maxGc, encodeNanos / 1000_000d));
+    }
+}
@@ -0,0 +1,95 @@
+import utils.UniqueIDGenerator;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongSupplier;
+
+public class UniqueIDGeneratorBenchmark {
+
+    static final int N = 20_000_000;
+    static final int ROUNDS = 3;
+    static final int[] THREADS = {1, 2, 4, 8};
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int numThreads : THREADS) {
+            double synchronizedIds = 0.0d;
+            double atomicIds = 0.0d;
+            double leasedIds = 0.0d;
+            for (int r = 0; r < ROUNDS; r++) {
+                SynchronizedGenerator sync = new SynchronizedGenerator();
+                synchronizedIds = Math.max(synchronizedIds, run(numThreads, sync::get, null));
+
+                UniqueIDGenerator gen = new UniqueIDGenerator();
+                long[] ids = new long[N];
+                atomicIds = Math.max(atomicIds, run(numThreads, gen::get, ids));
+                verify(ids);
+
+                UniqueIDGenerator leased = new UniqueIDGenerator();
+                leasedIds = Math.max(leasedIds, run(numThreads, leased::getLeased, ids));
+                verify(ids);
+            }
+
+            System.out.println(numThreads + " threads:");
+            System.out.println("  synchronized counter:          " + String.format("%.2f", synchronizedIds) + " M ids/s");
+            System.out.println("  UniqueIDGenerator.get():       " + String.format("%.2f", atomicIds) + " M ids/s");
+            System.out.println("  UniqueIDGenerator.getLeased(): " + String.format("%.2f", leasedIds) + " M ids/s");
+        }
+
+        UniqueIDGenerator gen = new UniqueIDGenerator();
+        long leased = gen.getLeased();
+        gen.sync(leased + 10);
+        if (gen.getLeased() <= leased + 10 || gen.get() <= leased + 10)
+            throw new RuntimeException("sync did not drop the leased block");
+    }
+
+    static double run(int numThreads, LongSupplier gen, long[] ids) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int from = (int) ((long) N * t / numThreads);
+            int to = (int) ((long) N * (t + 1) / numThreads);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                long sink = 0L;
+                for (int i = from; i < to; i++) {
+                    long id = gen.getAsLong();
+                    if (ids != null)
+                        ids[i] = id;
+                    sink += id;
+                }
+                if (sink == -1L)
+                    System.out.println(sink);
+            });
+            threads[t].start();
+        }
+
+        long t = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        return N / ((System.nanoTime() - t) / 1000d);
+    }
+
+    static void verify(long[] ids) {
+        BitSet seen = new BitSet();
+        for (long id : ids) {
+            if (id < 0 || id > Integer.MAX_VALUE || seen.get((int) id))
+                throw new RuntimeException("duplicate or invalid id: " + id);
+            seen.set((int) id);
+        }
+    }
+
+    // the previous implementation of UniqueIDGenerator
+    static final class SynchronizedGenerator {
+        private long nextFreeId;
+
+        synchronized long get() {
+            return nextFreeId++;
+        }
+    }
+}